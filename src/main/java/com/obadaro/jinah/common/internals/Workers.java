@@ -0,0 +1,57 @@
+/*
+ * JINAH Project - Java Is Not A Hammer
+ * http://obadaro.com/jinah
+ *
+ * Copyright 2010-2012 Roberto Badaro
+ * and individual contributors by the @authors tag.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.obadaro.jinah.common.internals;
+
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Internal holder of the fork-join pool shared by the bulk operations of the library.
+ *
+ * @author Roberto Badaro
+ */
+public class Workers {
+
+    /**
+     * Lazily created, so code that never goes parallel never starts a thread.
+     */
+    private static class Holder {
+
+        static final ForkJoinPool POOL = new ForkJoinPool(Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * Returns the shared pool. Its worker threads are daemon threads.
+     *
+     * @return
+     */
+    public static ForkJoinPool pool() {
+        return Holder.POOL;
+    }
+
+    /**
+     * Returns the number of workers of the shared pool, without creating it.
+     *
+     * @return
+     */
+    public static int parallelism() {
+        return Runtime.getRuntime().availableProcessors();
+    }
+
+}
@@ -20,13 +20,25 @@
 package com.obadaro.jinah.common.util;
 
 import java.lang.ref.WeakReference;
+import java.text.ParsePosition;
 import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
 import java.util.Calendar;
 import java.util.Date;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Locale;
 import java.util.Map;
+import java.util.RandomAccess;
 import java.util.TimeZone;
+import java.util.concurrent.RecursiveAction;
+
+import com.obadaro.jinah.common.internals.Workers;
+import com.obadaro.jinah.common.util.time.EpochDays;
+import com.obadaro.jinah.common.util.time.FixedDatePattern;
+import com.obadaro.jinah.common.util.time.ZoneOffsets;
 
 /**
  * Utility methods for Date manipulation.
@@ -59,6 +71,18 @@ public class Dates {
     protected static final Locale DEFAULT_LOCALE = Locale.getDefault();
     protected static final TimeZone DEFAULT_TIME_ZONE = TimeZone.getDefault();
 
+    /**
+     * Day based helpers skip {@link Calendar} for instants in [1583, 10000): after the Gregorian
+     * cutover, where epoch day math and {@link ZoneOffsets} give the same results.
+     */
+    private static final long FAST_PATH_START = EpochDays.of(1583, 1, 1) * ONE_DAY_MILLIS;
+    private static final long FAST_PATH_END = EpochDays.of(10000, 1, 1) * ONE_DAY_MILLIS;
+
+    /**
+     * Columns smaller than this are parsed by the calling thread.
+     */
+    static final int PARALLEL_PARSE_THRESHOLD = 8192;
+
     static final ThreadLocal<Map<String, WeakReference<SimpleDateFormat>>> SDF_CACHE =
         new ThreadLocal<Map<String, WeakReference<SimpleDateFormat>>>();
 
@@ -175,6 +199,14 @@ public class Dates {
      */
     public static Date[] firstAndLastDayOfMonth(final Date refDate, TimeZone timeZone, Locale locale) {
 
+        if (refDate != null && locale != null && isFastPath(refDate.getTime())) {
+            final ZoneOffsets zone = ZoneOffsets.of(timeZone);
+            final int day = zone.epochDay(refDate.getTime());
+            final int first = day - EpochDays.dayOfMonth(day) + 1;
+            final int last = EpochDays.plusMonths(first, 1) - 1;
+            return new Date[] { new Date(zone.startOfDay(first)), new Date(zone.startOfDay(last)) };
+        }
+
         final Calendar c = calendar(refDate, true, timeZone, locale);
 
         c.set(Calendar.DAY_OF_MONTH, 1);
@@ -241,11 +273,61 @@ public class Dates {
                            TimeZone timeZone,
                            Locale locale) {
 
+        if (date != null && locale != null && isFastPath(date.getTime())) {
+            final long millis = add(date.getTime(), field, amount, ZoneOffsets.of(timeZone));
+            if (millis != ZoneOffsets.AMBIGUOUS) {
+                return new Date(millis);
+            }
+        }
+
         final Calendar c = calendar(date, false, timeZone, locale);
         c.add(field, amount);
         return c.getTime();
     }
 
+    /**
+     * Calendar-free {@link Calendar#add(int, int)} of days, months and years, keeping the local
+     * time. Returns {@link ZoneOffsets#AMBIGUOUS} for other fields, and when a transition of the
+     * zone gets in the way, where {@link Calendar} has rules of its own.
+     */
+    private static long add(final long millis, final int field, final int amount, final ZoneOffsets zone) {
+
+        final long local = zone.toLocal(millis);
+        final int day = EpochDays.ofLocalMillis(local);
+        final long timeOfDay = local - day * ONE_DAY_MILLIS;
+
+        final long newDay;
+        switch (field) {
+        case Calendar.DAY_OF_MONTH:
+            newDay = (long) day + amount;
+            break;
+        case Calendar.MONTH:
+            newDay = EpochDays.plusMonths(day, amount);
+            break;
+        case Calendar.YEAR:
+            if (Math.abs(amount) > 10000) {
+                return ZoneOffsets.AMBIGUOUS;
+            }
+            newDay = EpochDays.plusMonths(day, amount * 12);
+            break;
+        default:
+            return ZoneOffsets.AMBIGUOUS;
+        }
+
+        final long newLocal = newDay * ONE_DAY_MILLIS + timeOfDay;
+        if (!isFastPath(newLocal)) {
+            return ZoneOffsets.AMBIGUOUS;
+        }
+
+        final long ret = zone.toUtcStrict(newLocal);
+        if (field == Calendar.DAY_OF_MONTH && ret != ZoneOffsets.AMBIGUOUS
+                && zone.getOffset(ret) != zone.getOffset(millis)) {
+            // Calendar adds days keeping the offset, then corrects it in its own way
+            return ZoneOffsets.AMBIGUOUS;
+        }
+        return ret;
+    }
+
     /**
      * Verifies if {@code date} is between dates "a" and "b", inclusive.
      * 
@@ -308,6 +390,12 @@ public class Dates {
         Preconditions.checkArgument(timeZone != null, "timeZone is null");
         Preconditions.checkArgument(locale != null, "locale is null");
 
+        if (clearTime && isFastPath(a.getTime()) && isFastPath(b.getTime()) && isFastPath(date.getTime())) {
+            final ZoneOffsets zone = ZoneOffsets.of(timeZone);
+            final int day = zone.epochDay(date.getTime());
+            return day >= zone.epochDay(a.getTime()) && day <= zone.epochDay(b.getTime());
+        }
+
         if (clearTime) {
             Calendar cal = calendar(timeZone, locale);
 
@@ -321,7 +409,7 @@ public class Dates {
             date = clearTime(cal).getTime();
         }
 
-        return date.compareTo(a) <= 0 && date.compareTo(b) >= 0;
+        return date.compareTo(a) >= 0 && date.compareTo(b) <= 0;
     }
 
     /**
@@ -358,6 +446,11 @@ public class Dates {
         Preconditions.checkArgument(timeZone != null, "timeZone is null");
         Preconditions.checkArgument(locale != null, "locale is null");
 
+        if (isFastPath(a.getTime()) && isFastPath(b.getTime())) {
+            final ZoneOffsets zone = ZoneOffsets.of(timeZone);
+            return Math.abs(zone.epochDay(a.getTime()) - zone.epochDay(b.getTime()));
+        }
+
         final long millisA = calendar(a, true, timeZone, locale).getTimeInMillis();
         final long millisB = calendar(b, true, timeZone, locale).getTimeInMillis();
         long millisDif = millisA - millisB;
@@ -366,7 +459,12 @@ public class Dates {
             millisDif *= -1;
         }
 
-        return (int) (millisDif / ONE_DAY_MILLIS);
+        return (int) ((millisDif + ONE_HOUR) / ONE_DAY_MILLIS);
+    }
+
+    private static boolean isFastPath(final long millis) {
+
+        return millis >= FAST_PATH_START && millis < FAST_PATH_END;
     }
 
     /**
@@ -425,4 +523,197 @@ public class Dates {
         return sdf;
     }
 
+    /**
+     * Parses a column of dates with {@code pattern}, using the default locale and time zone. Same as
+     * calling {@code getFormatter(pattern).parse(in[i]).getTime()} for each row, but large columns
+     * are split across the cores, and each worker keeps its own parser instead of using the
+     * {@link ThreadLocal} formatter cache.
+     *
+     * @param in
+     *            Column to parse. May contain {@code null}s.
+     * @param pattern
+     * @param out
+     *            Receives the epoch millis of each row. Rows that could not be parsed receive 0
+     *            (zero). Must be at least as long as {@code in}.
+     * @return The rows of {@code in} that are {@code null} or could not be parsed.
+     * @see #getFormatter(String)
+     */
+    public static BitSet parseColumn(final String[] in, final String pattern, final long[] out) {
+
+        return parseColumn(in, pattern, out, DEFAULT_LOCALE, DEFAULT_TIME_ZONE);
+    }
+
+    /**
+     * Parses a column of dates with {@code pattern}, {@code locale} and {@code timeZone}.
+     *
+     * @param in
+     *            Column to parse. May contain {@code null}s.
+     * @param pattern
+     * @param out
+     *            Receives the epoch millis of each row. Rows that could not be parsed receive 0
+     *            (zero). Must be at least as long as {@code in}.
+     * @param locale
+     * @param timeZone
+     * @return The rows of {@code in} that are {@code null} or could not be parsed.
+     * @see #parseColumn(String[], String, long[])
+     */
+    public static BitSet parseColumn(final String[] in,
+                                     final String pattern,
+                                     final long[] out,
+                                     final Locale locale,
+                                     final TimeZone timeZone) {
+
+        Preconditions.checkArgument(in != null, "in can't be null.");
+
+        return parseColumn(Arrays.asList(in), pattern, out, locale, timeZone);
+    }
+
+    /**
+     * Parses a column of dates with {@code pattern}, using the default locale and time zone.
+     *
+     * @param in
+     *            Column to parse. May contain {@code null}s.
+     * @param pattern
+     * @param out
+     *            Receives the epoch millis of each row. Rows that could not be parsed receive 0
+     *            (zero). Must be at least as long as {@code in}.
+     * @return The rows of {@code in} that are {@code null} or could not be parsed.
+     * @see #parseColumn(String[], String, long[])
+     */
+    public static BitSet parseColumn(final List<String> in, final String pattern, final long[] out) {
+
+        return parseColumn(in, pattern, out, DEFAULT_LOCALE, DEFAULT_TIME_ZONE);
+    }
+
+    /**
+     * Parses a column of dates with {@code pattern}, {@code locale} and {@code timeZone}.
+     *
+     * @param in
+     *            Column to parse. May contain {@code null}s.
+     * @param pattern
+     * @param out
+     *            Receives the epoch millis of each row. Rows that could not be parsed receive 0
+     *            (zero). Must be at least as long as {@code in}.
+     * @param locale
+     * @param timeZone
+     * @return The rows of {@code in} that are {@code null} or could not be parsed.
+     * @see #parseColumn(String[], String, long[])
+     */
+    public static BitSet parseColumn(List<String> in,
+                                     final String pattern,
+                                     final long[] out,
+                                     final Locale locale,
+                                     final TimeZone timeZone) {
+
+        Preconditions.checkArgument(in != null, "in can't be null.");
+        Preconditions.checkArgument(out != null && out.length >= in.size(), "out must be as long as in.");
+        Preconditions.checkArgument(Strings.isNotBlank(pattern), "Invalid pattern: %s", pattern);
+        Preconditions.checkArgument(locale != null, "locale is null");
+        Preconditions.checkArgument(timeZone != null, "timeZone is null");
+
+        if (!(in instanceof RandomAccess)) {
+            in = new ArrayList<String>(in);
+        }
+
+        final int size = in.size();
+        final long[] invalid = new long[(size + 63) >>> 6];
+        final ColumnParser parser = new ColumnParser(in, pattern, locale, timeZone, out, invalid, 0, size);
+
+        if (size < PARALLEL_PARSE_THRESHOLD) {
+            parser.parse();
+        } else {
+            Workers.pool().invoke(parser);
+        }
+
+        return BitSet.valueOf(invalid);
+    }
+
+    /**
+     * Parses a slice of a column. Splits are aligned to 64 rows, so each task owns whole words of
+     * the invalid rows bitmap.
+     */
+    static class ColumnParser extends RecursiveAction {
+
+        private static final long serialVersionUID = 1L;
+        private static final int SLICE = 4096;
+
+        private final List<String> in;
+        private final String pattern;
+        private final Locale locale;
+        private final TimeZone timeZone;
+        private final long[] out;
+        private final long[] invalid;
+        private final int from;
+        private final int to;
+
+        ColumnParser(final List<String> in,
+                     final String pattern,
+                     final Locale locale,
+                     final TimeZone timeZone,
+                     final long[] out,
+                     final long[] invalid,
+                     final int from,
+                     final int to) {
+
+            this.in = in;
+            this.pattern = pattern;
+            this.locale = locale;
+            this.timeZone = timeZone;
+            this.out = out;
+            this.invalid = invalid;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+
+            if (to - from <= SLICE) {
+                parse();
+                return;
+            }
+
+            final int middle = from + ((to - from) / 2 & ~63);
+            invokeAll(new ColumnParser(in, pattern, locale, timeZone, out, invalid, from, middle),
+                new ColumnParser(in, pattern, locale, timeZone, out, invalid, middle, to));
+        }
+
+        void parse() {
+
+            final FixedDatePattern fixed = FixedDatePattern.compile(pattern);
+            final ZoneOffsets zone = (fixed != null ? ZoneOffsets.of(timeZone) : null);
+            final ParsePosition position = new ParsePosition(0);
+            SimpleDateFormat sdf = null;
+
+            for (int i = from; i < to; i++) {
+                final String s = in.get(i);
+                long millis = FixedDatePattern.INVALID;
+
+                if (s != null && fixed != null) {
+                    millis = fixed.parse(s, zone);
+                }
+                if (s != null && millis == FixedDatePattern.INVALID) {
+                    if (sdf == null) {
+                        sdf = new SimpleDateFormat(pattern, locale);
+                        sdf.setTimeZone(timeZone);
+                        sdf.setLenient(false);
+                    }
+                    position.setIndex(0);
+                    position.setErrorIndex(-1);
+                    final Date dt = sdf.parse(s, position);
+                    if (dt != null) {
+                        millis = dt.getTime();
+                    }
+                }
+
+                if (millis == FixedDatePattern.INVALID) {
+                    out[i] = 0;
+                    invalid[i >>> 6] |= (1L << i);
+                } else {
+                    out[i] = millis;
+                }
+            }
+        }
+    }
+
 }
@@ -29,7 +29,7 @@ import com.obadaro.jinah.common.util.Strings;
  */
 public abstract class Documents {
 
-    static final char MASK_CHAR = '@';
+    protected static final char MASK_CHAR = '@';
 
     protected String mask;
     protected int docLen;
@@ -19,6 +19,8 @@
  */
 package com.obadaro.jinah.common.util.documents.brazil;
 
+import com.obadaro.jinah.common.util.Preconditions;
+
 /**
  * CNPJ - Cadastro Nacional da Pessoa Jurídica.<br>
  * Pattern: {@code 99.999.999/9999-99}.
@@ -35,6 +37,33 @@ public class CNPJ extends Metodo11ValidableDocument {
         return Metodo11.isValid(cnpj, validationDigits);
     }
 
+    /**
+     * Appends the check digits to the 12 digits of {@code base}, as {@code 577428970001} to
+     * {@code 57742897000146}.
+     * 
+     * @param base
+     * @return
+     * @throws IllegalArgumentException
+     *             If {@code base} has more than 12 digits, or makes a sequence of repeated digits.
+     */
+    public static long complete(final long base) {
+        final long cnpj = Metodo11.complete(base, validationDigits);
+        Preconditions.checkArgument(cnpj >= 0, "No valid CNPJ for base %s", base);
+        return cnpj;
+    }
+
+    /**
+     * Returns a generator of the valid CNPJs of the bases in {@code [fromBase, toBase)}, in order.
+     * 
+     * @param fromBase
+     * @param toBase
+     *            Up to 10<sup>12</sup>.
+     * @return
+     */
+    public static DocumentGenerator generator(final long fromBase, final long toBase) {
+        return new DocumentGenerator(new CNPJ(), validationDigits, fromBase, toBase);
+    }
+
     public CNPJ() {
         super(MASK, DOC_LENGTH, validationDigits);
     }
@@ -19,6 +19,8 @@
  */
 package com.obadaro.jinah.common.util.documents.brazil;
 
+import com.obadaro.jinah.common.util.Preconditions;
+
 /**
  * CPF - Cadastro de Pessoas Físicas.<br>
  * Pattern: {@code 999.999.999-99}.
@@ -35,6 +37,33 @@ public class CPF extends Metodo11ValidableDocument {
         return Metodo11.isValid(cpf, validationDigits);
     }
 
+    /**
+     * Appends the check digits to the 9 digits of {@code base}, as {@code 998352292} to
+     * {@code 99835229260}.
+     * 
+     * @param base
+     * @return
+     * @throws IllegalArgumentException
+     *             If {@code base} has more than 9 digits, or makes a sequence of repeated digits.
+     */
+    public static long complete(final long base) {
+        final long cpf = Metodo11.complete(base, validationDigits);
+        Preconditions.checkArgument(cpf >= 0, "No valid CPF for base %s", base);
+        return cpf;
+    }
+
+    /**
+     * Returns a generator of the valid CPFs of the bases in {@code [fromBase, toBase)}, in order.
+     * 
+     * @param fromBase
+     * @param toBase
+     *            Up to 10<sup>9</sup>.
+     * @return
+     */
+    public static DocumentGenerator generator(final long fromBase, final long toBase) {
+        return new DocumentGenerator(new CPF(), validationDigits, fromBase, toBase);
+    }
+
     public CPF() {
         super(MASK, DOC_LENGTH, validationDigits);
     }
@@ -0,0 +1,233 @@
+/*
+ * JINAH Project - Java Is Not A Hammer
+ * http://obadaro.com/jinah
+ *
+ * Copyright (C) 2010-2012 Roberto Badaro
+ * and individual contributors by the @authors tag.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.obadaro.jinah.common.util.documents.brazil;
+
+import java.util.Arrays;
+
+import com.obadaro.jinah.common.util.Preconditions;
+
+/**
+ * Set of CNPJs in Roaring-style containers: one container per root - the 8 digits that identify
+ * the company - holding its branches, the next 4 digits. The check digits are determined by them.
+ * <p>
+ * Most companies have a single branch, so a container starts as a sorted array of the branches
+ * and becomes a bitmap of the 10<sup>4</sup> branches when that is smaller, past
+ * {@link #ARRAY_MAX} branches. The roots are in an open-addressing table, so each CNPJ takes
+ * tens of bytes, not the hundred or so of a {@code HashSet<Long>}. Thread-safe, by
+ * synchronization.
+ * </p>
+ *
+ * @author Roberto Badaro
+ * @see CpfSet
+ */
+public final class CnpjSet {
+
+    /**
+     * Number of branches of a root.
+     */
+    static final int BRANCHES = 10000;
+
+    /**
+     * Branches of the largest array container: a bitmap takes the space of 625 of them.
+     */
+    static final int ARRAY_MAX = (BRANCHES + 63) / 64 * 8 / 2;
+
+    /**
+     * Roots plus one; 0 (zero) for empty slots.
+     */
+    private int[] roots = new int[16];
+
+    /**
+     * Container of each root: a sorted {@code short[]} of branches, or a {@code long[]} bitmap.
+     */
+    private Object[] containers = new Object[16];
+
+    private int used;
+    private long size;
+
+    /**
+     * @param cnpj
+     * @return {@code true} if the set didn't contain {@code cnpj}.
+     * @throws IllegalArgumentException
+     *             If {@code cnpj} is not valid.
+     */
+    public synchronized boolean add(final long cnpj) {
+
+        Preconditions.checkArgument(CNPJ.isValid(cnpj), "Invalid CNPJ: %s", cnpj);
+
+        final long base = cnpj / 100;
+        final int root = (int) (base / BRANCHES);
+        final int branch = (int) (base % BRANCHES);
+
+        int slot = slot(root);
+        if (roots[slot] == 0) {
+            if ((used + 1) * 4 > roots.length * 3) {
+                grow();
+                slot = slot(root);
+            }
+            roots[slot] = root + 1;
+            containers[slot] = new short[] { (short) branch };
+            used++;
+            size++;
+            return true;
+        }
+
+        final Object container = containers[slot];
+        if (container instanceof long[]) {
+            final long[] bitmap = (long[]) container;
+            if ((bitmap[branch >>> 6] & 1L << branch) != 0) {
+                return false;
+            }
+            bitmap[branch >>> 6] |= 1L << branch;
+        } else {
+            final short[] array = (short[]) container;
+            final int i = Arrays.binarySearch(array, (short) branch);
+            if (i >= 0) {
+                return false;
+            }
+            if (array.length == ARRAY_MAX) {
+                final long[] bitmap = new long[(BRANCHES + 63) >>> 6];
+                for (final short b : array) {
+                    bitmap[b >>> 6] |= 1L << b;
+                }
+                bitmap[branch >>> 6] |= 1L << branch;
+                containers[slot] = bitmap;
+            } else {
+                final int at = -i - 1;
+                final short[] grown = new short[array.length + 1];
+                System.arraycopy(array, 0, grown, 0, at);
+                grown[at] = (short) branch;
+                System.arraycopy(array, at, grown, at + 1, array.length - at);
+                containers[slot] = grown;
+            }
+        }
+        size++;
+        return true;
+    }
+
+    /**
+     * Removes {@code cnpj}. The container of its root is kept, even if empty.
+     *
+     * @param cnpj
+     * @return {@code true} if the set contained {@code cnpj}.
+     */
+    public synchronized boolean remove(final long cnpj) {
+
+        if (!CNPJ.isValid(cnpj)) {
+            return false;
+        }
+
+        final long base = cnpj / 100;
+        final int slot = slot((int) (base / BRANCHES));
+        if (roots[slot] == 0) {
+            return false;
+        }
+        final int branch = (int) (base % BRANCHES);
+
+        final Object container = containers[slot];
+        if (container instanceof long[]) {
+            final long[] bitmap = (long[]) container;
+            if ((bitmap[branch >>> 6] & 1L << branch) == 0) {
+                return false;
+            }
+            bitmap[branch >>> 6] &= ~(1L << branch);
+        } else {
+            final short[] array = (short[]) container;
+            final int i = Arrays.binarySearch(array, (short) branch);
+            if (i < 0) {
+                return false;
+            }
+            final short[] shrunk = new short[array.length - 1];
+            System.arraycopy(array, 0, shrunk, 0, i);
+            System.arraycopy(array, i + 1, shrunk, i, shrunk.length - i);
+            containers[slot] = shrunk;
+        }
+        size--;
+        return true;
+    }
+
+    /**
+     * @param cnpj
+     * @return {@code false} also if {@code cnpj} is not valid.
+     */
+    public synchronized boolean contains(final long cnpj) {
+
+        if (!CNPJ.isValid(cnpj)) {
+            return false;
+        }
+
+        final long base = cnpj / 100;
+        final int slot = slot((int) (base / BRANCHES));
+        if (roots[slot] == 0) {
+            return false;
+        }
+        final int branch = (int) (base % BRANCHES);
+
+        final Object container = containers[slot];
+        if (container instanceof long[]) {
+            return (((long[]) container)[branch >>> 6] & 1L << branch) != 0;
+        }
+        return Arrays.binarySearch((short[]) container, (short) branch) >= 0;
+    }
+
+    /**
+     * @return Number of CNPJs in the set.
+     */
+    public synchronized long size() {
+
+        return size;
+    }
+
+    /**
+     * Returns the slot of {@code root}: where it is, or the empty one where it goes.
+     */
+    private int slot(final int root) {
+
+        final int mask = roots.length - 1;
+        final int hash = root * 0x9E3779B9;
+        int slot = (hash ^ hash >>> 16) & mask;
+        while (roots[slot] != 0 && roots[slot] != root + 1) {
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+    private void grow() {
+
+        final int[] oldRoots = roots;
+        final Object[] oldContainers = containers;
+        roots = new int[oldRoots.length * 2];
+        containers = new Object[oldRoots.length * 2];
+        for (int i = 0; i < oldRoots.length; i++) {
+            if (oldRoots[i] != 0) {
+                final int slot = slot(oldRoots[i] - 1);
+                roots[slot] = oldRoots[i];
+                containers[slot] = oldContainers[i];
+            }
+        }
+    }
+
+    @Override
+    public synchronized String toString() {
+
+        return "CnpjSet[size=" + size + ", roots=" + used + "]";
+    }
+
+}
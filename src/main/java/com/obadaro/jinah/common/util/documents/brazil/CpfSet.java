@@ -0,0 +1,261 @@
+/*
+ * JINAH Project - Java Is Not A Hammer
+ * http://obadaro.com/jinah
+ *
+ * Copyright (C) 2010-2012 Roberto Badaro
+ * and individual contributors by the @authors tag.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.obadaro.jinah.common.util.documents.brazil;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.LongBuffer;
+import java.nio.channels.FileChannel;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.obadaro.jinah.common.util.Preconditions;
+
+/**
+ * Set of CPFs as one bit per base - the 9 digits before the check digits, which determine them -
+ * off the Java heap: 10<sup>9</sup> bits, 125 MB, whatever the number of CPFs, against gigabytes
+ * for tens of millions of them in a {@code HashSet<Long>}.
+ * <p>
+ * The bits live in a direct buffer, or in a memory-mapped file with {@link #map(File)}. Adds and
+ * removes are thread-safe: each one locks one of {@link #STRIPES} stripes of the words, as
+ * {@link LongBuffer} has no compare-and-set. {@link #contains(long)} doesn't lock; it sees the
+ * adds of other threads once it synchronizes with them, as after joining the threads that loaded
+ * the set.
+ * </p>
+ *
+ * <pre>
+ * <code>
+ * CpfSet blocked = CpfSet.load(new File("blocked.bits"));
+ * if (blocked.contains(cpf)) {
+ *     ...
+ * }
+ * </code>
+ * </pre>
+ *
+ * @author Roberto Badaro
+ * @see CnpjSet
+ */
+public final class CpfSet {
+
+    /**
+     * Number of CPF bases.
+     */
+    public static final int BASES = 1000000000;
+
+    /**
+     * Size of the bits, in memory and in files.
+     */
+    public static final int BYTES = (BASES + 63) / 64 * 8;
+
+    /**
+     * Number of locks of the adds and removes.
+     */
+    static final int STRIPES = 64;
+
+    private final ByteBuffer bytes;
+    private final LongBuffer words;
+    private final Object[] locks = new Object[STRIPES];
+    private final AtomicLong size;
+
+    private CpfSet(final ByteBuffer bytes) {
+
+        this.bytes = bytes;
+        this.words = bytes.asLongBuffer();
+        for (int i = 0; i < STRIPES; i++) {
+            locks[i] = new Object();
+        }
+        long count = 0;
+        for (int i = 0; i < words.limit(); i++) {
+            count += Long.bitCount(words.get(i));
+        }
+        this.size = new AtomicLong(count);
+    }
+
+    /**
+     * Creates an empty set in a direct buffer.
+     */
+    public CpfSet() {
+
+        this(ByteBuffer.allocateDirect(BYTES));
+    }
+
+    /**
+     * Reads a set written by {@link #save(File)} into a direct buffer.
+     *
+     * @param file
+     * @return
+     * @throws IOException
+     */
+    public static CpfSet load(final File file) throws IOException {
+
+        Preconditions.checkArgument(file != null, "file can't be null.");
+
+        final RandomAccessFile raf = new RandomAccessFile(file, "r");
+        try {
+            final FileChannel channel = raf.getChannel();
+            checkSize(file, channel.size());
+            final ByteBuffer bytes = ByteBuffer.allocateDirect(BYTES);
+            while (bytes.hasRemaining()) {
+                if (channel.read(bytes, bytes.position()) < 0) {
+                    throw new IOException("Unexpected end of file " + file);
+                }
+            }
+            bytes.clear();
+            return new CpfSet(bytes);
+        } finally {
+            raf.close();
+        }
+    }
+
+    /**
+     * Maps {@code file} as the bits of the set: changes are written to the file by the operating
+     * system. An empty or missing file makes an empty set.
+     *
+     * @param file
+     * @return
+     * @throws IOException
+     */
+    public static CpfSet map(final File file) throws IOException {
+
+        Preconditions.checkArgument(file != null, "file can't be null.");
+
+        final RandomAccessFile raf = new RandomAccessFile(file, "rw");
+        try {
+            if (raf.length() == 0) {
+                raf.setLength(BYTES);
+            }
+            checkSize(file, raf.length());
+            // the mapping outlives the channel
+            return new CpfSet(raf.getChannel().map(FileChannel.MapMode.READ_WRITE, 0, BYTES));
+        } finally {
+            raf.close();
+        }
+    }
+
+    private static void checkSize(final File file, final long length) throws IOException {
+
+        if (length != BYTES) {
+            throw new IOException("Not a CpfSet file: " + file + " has " + length + " bytes");
+        }
+    }
+
+    /**
+     * Writes the set to {@code file}, to be read by {@link #load(File)} or {@link #map(File)}.
+     * Adds made while saving may be lost.
+     *
+     * @param file
+     * @throws IOException
+     */
+    public void save(final File file) throws IOException {
+
+        Preconditions.checkArgument(file != null, "file can't be null.");
+
+        final RandomAccessFile raf = new RandomAccessFile(file, "rw");
+        try {
+            raf.setLength(0);
+            final FileChannel channel = raf.getChannel();
+            final ByteBuffer src = bytes.duplicate();
+            src.clear();
+            while (src.hasRemaining()) {
+                channel.write(src);
+            }
+        } finally {
+            raf.close();
+        }
+    }
+
+    /**
+     * @param cpf
+     * @return {@code true} if the set didn't contain {@code cpf}.
+     * @throws IllegalArgumentException
+     *             If {@code cpf} is not valid.
+     */
+    public boolean add(final long cpf) {
+
+        Preconditions.checkArgument(CPF.isValid(cpf), "Invalid CPF: %s", cpf);
+
+        final int base = (int) (cpf / 100);
+        final int index = base >>> 6;
+        final long bit = 1L << base;
+        synchronized (locks[index & (STRIPES - 1)]) {
+            final long word = words.get(index);
+            if ((word & bit) != 0) {
+                return false;
+            }
+            words.put(index, word | bit);
+        }
+        size.incrementAndGet();
+        return true;
+    }
+
+    /**
+     * @param cpf
+     * @return {@code true} if the set contained {@code cpf}.
+     */
+    public boolean remove(final long cpf) {
+
+        if (!CPF.isValid(cpf)) {
+            return false;
+        }
+
+        final int base = (int) (cpf / 100);
+        final int index = base >>> 6;
+        final long bit = 1L << base;
+        synchronized (locks[index & (STRIPES - 1)]) {
+            final long word = words.get(index);
+            if ((word & bit) == 0) {
+                return false;
+            }
+            words.put(index, word & ~bit);
+        }
+        size.decrementAndGet();
+        return true;
+    }
+
+    /**
+     * @param cpf
+     * @return {@code false} also if {@code cpf} is not valid.
+     */
+    public boolean contains(final long cpf) {
+
+        if (!CPF.isValid(cpf)) {
+            return false;
+        }
+
+        final int base = (int) (cpf / 100);
+        return (words.get(base >>> 6) & 1L << base) != 0;
+    }
+
+    /**
+     * @return Number of CPFs in the set.
+     */
+    public long size() {
+
+        return size.get();
+    }
+
+    @Override
+    public String toString() {
+
+        return "CpfSet[size=" + size + "]";
+    }
+
+}
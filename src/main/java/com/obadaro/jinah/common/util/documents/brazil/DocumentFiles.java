@@ -0,0 +1,311 @@
+/*
+ * JINAH Project - Java Is Not A Hammer
+ * http://obadaro.com/jinah
+ *
+ * Copyright (C) 2010-2012 Roberto Badaro
+ * and individual contributors by the @authors tag.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.obadaro.jinah.common.util.documents.brazil;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.Arrays;
+import java.util.concurrent.RecursiveAction;
+
+import com.obadaro.jinah.common.internals.Workers;
+import com.obadaro.jinah.common.util.Preconditions;
+
+/**
+ * Validation of files of one document per line - masked or not, as in
+ * {@link Metodo11ValidableDocument#validate(CharSequence)} - over memory-mapped windows, for files
+ * of any size.
+ * <p>
+ * The file is split in windows at line boundaries, and each line is validated straight from the
+ * mapped bytes: no line becomes a String. In parallel mode a batch of windows, one per worker of
+ * the shared fork-join pool, is validated at a time, so the invalid lines are still reported in
+ * order while the next windows wait.
+ * </p>
+ * <p>
+ * Lines end with {@code "\n"} or {@code "\r\n"}; the last one may end with the file. A blank line
+ * is an invalid one, of {@link ValidationResult#INVALID_LENGTH}.
+ * </p>
+ *
+ * <pre>
+ * <code>
+ * long invalid = DocumentFiles.validate(file, new CPF(), new DocumentFiles.Listener() {
+ *     public void invalid(long line, ValidationResult result) {
+ *         report.println(line + ";" + result);
+ *     }
+ * }, true);
+ * </code>
+ * </pre>
+ *
+ * @author Roberto Badaro
+ */
+public final class DocumentFiles {
+
+    /**
+     * Bytes mapped at a time, give or take a line.
+     */
+    static final int WINDOW_SIZE = 1 << 22;
+
+    private static final ValidationResult[] RESULTS = ValidationResult.values();
+
+    /**
+     * Receives the invalid lines, in order, in the thread that called
+     * {@link DocumentFiles#validate(File, Metodo11ValidableDocument, Listener, boolean)}.
+     */
+    public interface Listener {
+
+        /**
+         * @param line
+         *            Number of the line, 1 (one) being the first.
+         * @param result
+         */
+        void invalid(long line, ValidationResult result);
+    }
+
+    private DocumentFiles() {
+
+        // no instances
+    }
+
+    /**
+     * Validates every line of {@code file}, by the calling thread.
+     *
+     * @param file
+     * @param document
+     *            As {@code new CPF()}.
+     * @param listener
+     * @return Number of invalid lines.
+     * @throws IOException
+     */
+    public static long validate(final File file, final Metodo11ValidableDocument document, final Listener listener)
+            throws IOException {
+
+        return validate(file, document, listener, false);
+    }
+
+    /**
+     * Validates every line of {@code file}.
+     *
+     * @param file
+     * @param document
+     *            As {@code new CPF()}.
+     * @param listener
+     * @param parallel
+     *            {@code true} to validate the windows on the shared fork-join pool.
+     * @return Number of invalid lines.
+     * @throws IOException
+     */
+    public static long validate(final File file,
+                                final Metodo11ValidableDocument document,
+                                final Listener listener,
+                                final boolean parallel) throws IOException {
+
+        Preconditions.checkArgument(file != null, "file can't be null.");
+        Preconditions.checkArgument(document != null, "document can't be null.");
+        Preconditions.checkArgument(listener != null, "listener can't be null.");
+
+        final RandomAccessFile raf = new RandomAccessFile(file, "r");
+        try {
+            final FileChannel channel = raf.getChannel();
+            final long[] bounds = bounds(channel);
+            final int windows = bounds.length - 1;
+            final int batch = (parallel ? Math.min(Workers.parallelism(), windows) : 1);
+
+            final Window[] window = new Window[batch];
+            long line = 1;
+            long invalid = 0;
+            for (int w = 0; w < windows; w += batch) {
+                final int n = Math.min(batch, windows - w);
+                for (int i = 0; i < n; i++) {
+                    window[i] = new Window(channel, document, bounds[w + i], bounds[w + i + 1]);
+                }
+                if (n > 1) {
+                    Workers.pool().invoke(new Batch(window, 0, n));
+                } else {
+                    window[0].validate();
+                }
+
+                for (int i = 0; i < n; i++) {
+                    final Window done = window[i];
+                    if (done.failure != null) {
+                        throw new IOException(done.failure.getMessage(), done.failure);
+                    }
+                    for (int k = 0; k < done.count; k++) {
+                        final int entry = done.invalid[k];
+                        listener.invalid(line + (entry >>> 3), RESULTS[entry & 7]);
+                    }
+                    line += done.lines;
+                    invalid += done.count;
+                    window[i] = null;
+                }
+            }
+            return invalid;
+        } finally {
+            raf.close();
+        }
+    }
+
+    /**
+     * Splits the file in windows of about {@link #WINDOW_SIZE} bytes, each one starting at a line.
+     *
+     * @return The offsets of the windows, and the size of the file.
+     */
+    private static long[] bounds(final FileChannel channel) throws IOException {
+
+        final long size = channel.size();
+        final int windows = (int) Math.max(1, (size + WINDOW_SIZE - 1) / WINDOW_SIZE);
+        final long[] bounds = new long[windows + 1];
+        final ByteBuffer scratch = ByteBuffer.allocate(256);
+        for (int w = 1; w < windows; w++) {
+            // the window starts after the first line break from the byte before its nominal start
+            final long from = Math.max(bounds[w - 1], (long) w * WINDOW_SIZE - 1);
+            bounds[w] = lineAfter(channel, from, size, scratch);
+        }
+        bounds[windows] = size;
+        return bounds;
+    }
+
+    private static long lineAfter(final FileChannel channel, long position, final long size, final ByteBuffer scratch)
+            throws IOException {
+
+        while (position < size) {
+            scratch.clear();
+            final int n = channel.read(scratch, position);
+            if (n < 0) {
+                break;
+            }
+            for (int i = 0; i < n; i++) {
+                if (scratch.get(i) == '\n') {
+                    return position + i + 1;
+                }
+            }
+            position += n;
+        }
+        return size;
+    }
+
+    /**
+     * The lines of one window: how many, and the invalid ones.
+     */
+    private static final class Window {
+
+        private final FileChannel channel;
+        private final Metodo11ValidableDocument document;
+        private final long start;
+        private final long end;
+
+        int lines;
+
+        /**
+         * Invalid lines, as the index of the line in the window shifted left by 3 (three), or'ed
+         * with the ordinal of the result.
+         */
+        int[] invalid = new int[16];
+        int count;
+        IOException failure;
+
+        Window(final FileChannel channel, final Metodo11ValidableDocument document, final long start, final long end) {
+
+            this.channel = channel;
+            this.document = document;
+            this.start = start;
+            this.end = end;
+        }
+
+        void validate() {
+
+            if (end - start > Integer.MAX_VALUE) {
+                failure = new IOException("Line too long at offset " + start);
+                return;
+            }
+            final int length = (int) (end - start);
+            if (length == 0) {
+                return;
+            }
+
+            final MappedByteBuffer buf;
+            try {
+                buf = channel.map(FileChannel.MapMode.READ_ONLY, start, length);
+            } catch (final IOException e) {
+                failure = e;
+                return;
+            }
+
+            int from = 0;
+            for (int i = 0; i < length; i++) {
+                if (buf.get(i) == '\n') {
+                    line(buf, from, i);
+                    from = i + 1;
+                }
+            }
+            if (from < length) {
+                line(buf, from, length);
+            }
+        }
+
+        private void line(final MappedByteBuffer buf, final int from, int to) {
+
+            if (to > from && buf.get(to - 1) == '\r') {
+                to--;
+            }
+            final ValidationResult result = document.validate(buf, from, to - from);
+            if (result != ValidationResult.VALID) {
+                if (count == invalid.length) {
+                    invalid = Arrays.copyOf(invalid, count * 2);
+                }
+                invalid[count++] = lines << 3 | result.ordinal();
+            }
+            lines++;
+        }
+    }
+
+    /**
+     * Validates the windows {@code [from, to)} of a batch, splitting in halves.
+     */
+    private static final class Batch extends RecursiveAction {
+
+        private static final long serialVersionUID = 1L;
+
+        private final Window[] windows;
+        private final int from;
+        private final int to;
+
+        Batch(final Window[] windows, final int from, final int to) {
+
+            this.windows = windows;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+
+            if (to - from > 1) {
+                final int middle = (from + to) >>> 1;
+                invokeAll(new Batch(windows, from, middle), new Batch(windows, middle, to));
+                return;
+            }
+            windows[from].validate();
+        }
+    }
+
+}
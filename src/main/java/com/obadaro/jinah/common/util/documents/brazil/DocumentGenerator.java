@@ -0,0 +1,177 @@
+/*
+ * JINAH Project - Java Is Not A Hammer
+ * http://obadaro.com/jinah
+ *
+ * Copyright (C) 2010-2012 Roberto Badaro
+ * and individual contributors by the @authors tag.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.obadaro.jinah.common.util.documents.brazil;
+
+import java.util.NoSuchElementException;
+
+import com.obadaro.jinah.common.util.Preconditions;
+
+/**
+ * Generator of valid documents - synthetic test data - from a range of bases, in order. The check
+ * digits are computed directly, nothing is retried nor allocated; bases that would make a sequence
+ * of repeated digits are skipped.
+ * <p>
+ * Not thread-safe, but splittable the way a {@code java.util.Spliterator} is: {@link #trySplit()}
+ * hands the first half of the remaining bases to a new generator, for another thread.
+ * </p>
+ *
+ * <pre>
+ * <code>
+ * DocumentGenerator cpfs = CPF.generator(0, CpfSet.BASES);
+ * DocumentGenerator half = cpfs.trySplit();
+ * long[] batch = new long[4096];
+ * int n;
+ * while ((n = cpfs.next(batch, 0, batch.length)) &gt; 0) {
+ *     ...
+ * }
+ * </code>
+ * </pre>
+ *
+ * @author Roberto Badaro
+ * @see CPF#generator(long, long)
+ * @see CNPJ#generator(long, long)
+ */
+public final class DocumentGenerator {
+
+    private final Metodo11ValidableDocument document;
+    private final int[] validationDigits;
+
+    /**
+     * The only base of each length that may be a sequence of repeated digits, times a digit.
+     */
+    private final long repunit;
+
+    private long position;
+    private final long end;
+
+    DocumentGenerator(final Metodo11ValidableDocument document,
+                      final int[] validationDigits,
+                      final long fromBase,
+                      final long toBase) {
+
+        long bases = 1;
+        for (int i = 2; i < validationDigits.length + 1; i++) {
+            bases *= 10;
+        }
+        Preconditions.checkArgument(0 <= fromBase && fromBase <= toBase && toBase <= bases,
+                "Invalid range of bases: %s, %s",
+                fromBase,
+                toBase);
+
+        this.document = document;
+        this.validationDigits = validationDigits;
+        this.repunit = (bases - 1) / 9;
+        this.position = fromBase;
+        this.end = toBase;
+    }
+
+    public boolean hasNext() {
+
+        skip();
+        return position < end;
+    }
+
+    /**
+     * @return The next document.
+     * @throws NoSuchElementException
+     *             If there are no more documents.
+     */
+    public long next() {
+
+        skip();
+        if (position >= end) {
+            throw new NoSuchElementException();
+        }
+        return Metodo11.complete(position++, validationDigits);
+    }
+
+    /**
+     * @return The next document, formatted by the mask of the document.
+     * @throws NoSuchElementException
+     *             If there are no more documents.
+     * @see Metodo11ValidableDocument#format(long)
+     */
+    public String nextFormatted() {
+
+        return document.format(next());
+    }
+
+    /**
+     * Writes up to {@code len} documents into {@code dst}.
+     *
+     * @param dst
+     * @param off
+     * @param len
+     * @return Number of documents written; 0 (zero) when there are no more.
+     */
+    public int next(final long[] dst, final int off, final int len) {
+
+        Preconditions.checkArgument(off >= 0 && len >= 0 && off <= dst.length - len,
+                "Invalid range: %s, %s",
+                off,
+                len);
+
+        int n = 0;
+        while (n < len && hasNext()) {
+            dst[off + n++] = Metodo11.complete(position++, validationDigits);
+        }
+        return n;
+    }
+
+    /**
+     * Splits off the first half of the remaining bases.
+     *
+     * @return A generator of the first half, this one keeping the second; or {@code null} if too
+     *         few bases remain.
+     */
+    public DocumentGenerator trySplit() {
+
+        final long remaining = end - position;
+        if (remaining < 2) {
+            return null;
+        }
+        final long middle = position + remaining / 2;
+        final DocumentGenerator prefix = new DocumentGenerator(document, validationDigits, position, middle);
+        position = middle;
+        return prefix;
+    }
+
+    /**
+     * @return Number of bases left: an upper bound of the documents left.
+     */
+    public long estimateSize() {
+
+        return end - position;
+    }
+
+    private void skip() {
+
+        while (position < end && position % repunit == 0 && Metodo11.complete(position, validationDigits) < 0) {
+            position++;
+        }
+    }
+
+    @Override
+    public String toString() {
+
+        return "DocumentGenerator[" + position + ", " + end + ")";
+    }
+
+}
@@ -19,6 +19,7 @@
  */
 package com.obadaro.jinah.common.util.documents.brazil;
 
+import com.obadaro.jinah.common.util.Preconditions;
 
 /**
  * @author Roberto Badaro
@@ -31,17 +32,58 @@ public class Metodo11 {
      * @param number
      * @param validationDigits
      * @return
+     * @see #validate(long, int[])
      */
-    public static boolean isValid(long number, int[] validationDigits) {
+    public static boolean isValid(final long number, final int[] validationDigits) {
 
-        String s = String.valueOf(number);
-        int[] nums = new int[s.length()];
+        return validate(number, validationDigits) == ValidationResult.VALID;
+    }
+
+    /**
+     * Validates the number without allocating: the digits are taken from {@code number} by
+     * division, right to left, and the check digits computed on the fly. Leading zeros are
+     * implicit, as in CPF {@code 012.345.678-90}.
+     * 
+     * @param number
+     * @param validationDigits
+     *            Weights of the second check digit; the first one uses all but the first weight.
+     *            The document has {@code validationDigits.length + 1} digits.
+     * @return
+     */
+    public static ValidationResult validate(final long number, final int[] validationDigits) {
+
+        if (number < 0) {
+            return ValidationResult.INVALID_LENGTH;
+        }
 
-        for (int i = 0; i < nums.length; i++) {
-            nums[i] = Integer.valueOf(s.charAt(i));
+        final int length = validationDigits.length + 1;
+        long n = number;
+        final int second = (int) (n % 10);
+        n /= 10;
+        final int first = (int) (n % 10);
+        n /= 10;
+
+        int total1 = 0;
+        int total2 = first * validationDigits[length - 2];
+        boolean repeated = true;
+        for (int k = length - 3; k >= 0; k--) {
+            final int digit = (int) (n % 10);
+            n /= 10;
+            total1 += validationDigits[k + 1] * digit;
+            total2 += validationDigits[k] * digit;
+            repeated &= (digit == first);
         }
 
-        return isValid(nums, validationDigits);
+        if (n != 0) {
+            return ValidationResult.INVALID_LENGTH;
+        }
+        if (repeated) {
+            return ValidationResult.REPEATED_DIGITS;
+        }
+        if (checkDigit(total1) != first || checkDigit(total2) != second) {
+            return ValidationResult.INVALID_CHECK_DIGIT;
+        }
+        return ValidationResult.VALID;
     }
 
     /**
@@ -110,4 +152,51 @@ public class Metodo11 {
         return (digit == number[digitIndex]);
     }
 
+    /**
+     * Computes the check digits of {@code base} directly, without allocating.
+     * 
+     * @param base
+     *            The document without its check digits, as the 9 digits of a CPF.
+     * @param validationDigits
+     * @return {@code base} followed by its check digits, or -1 (minus one) if that would be a
+     *         sequence of repeated digits, which no valid document is.
+     * @throws IllegalArgumentException
+     *             If {@code base} is negative or has too many digits.
+     */
+    public static long complete(final long base, final int[] validationDigits) {
+
+        final int length = validationDigits.length + 1;
+        long n = base;
+        final int last = (int) (n % 10);
+        int total1 = 0;
+        int total2 = 0;
+        boolean repeated = true;
+        for (int k = length - 3; k >= 0; k--) {
+            final int digit = (int) (n % 10);
+            n /= 10;
+            total1 += validationDigits[k + 1] * digit;
+            total2 += validationDigits[k] * digit;
+            repeated &= (digit == last);
+        }
+        Preconditions.checkArgument(base >= 0 && n == 0, "Invalid base: %s", base);
+
+        final int first = checkDigit(total1);
+        if (repeated && first == last) {
+            return -1;
+        }
+        final int second = checkDigit(total2 + first * validationDigits[length - 2]);
+        return base * 100 + first * 10 + second;
+    }
+
+    /**
+     * @param total
+     *            Sum of the digits times their weights.
+     * @return The check digit of {@code total}.
+     */
+    static int checkDigit(final int total) {
+
+        final int remainder = total % 11;
+        return (remainder < 2 ? 0 : 11 - remainder);
+    }
+
 }
@@ -19,7 +19,17 @@
  */
 package com.obadaro.jinah.common.util.documents.brazil;
 
-import com.obadaro.jinah.common.util.Strings;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.RandomAccess;
+import java.util.concurrent.RecursiveAction;
+
+import com.obadaro.jinah.common.internals.Workers;
+import com.obadaro.jinah.common.util.Preconditions;
 import com.obadaro.jinah.common.util.documents.Documents;
 
 /**
@@ -27,14 +37,35 @@ import com.obadaro.jinah.common.util.documents.Documents;
  */
 public abstract class Metodo11ValidableDocument extends Documents {
 
+    /**
+     * Bulk validations of this many documents or more run on the shared fork-join pool.
+     */
+    static final int PARALLEL_THRESHOLD = 1 << 14;
+
+    /**
+     * Documents validated by a single task; a multiple of 64, so each task sets its own words of
+     * the result.
+     */
+    static final int SLICE_DOCS = 1 << 12;
+
     private final int formattedLen;
     private final int[] validationDigits;
 
+    /**
+     * Whether each position of the mask holds a digit.
+     */
+    private final boolean[] digitAt;
+
     protected Metodo11ValidableDocument(final String mask, final int docLen, final int[] validationDigits) {
 
         super(mask, docLen);
         formattedLen = mask.length();
         this.validationDigits = validationDigits;
+
+        digitAt = new boolean[formattedLen];
+        for (int i = 0; i < formattedLen; i++) {
+            digitAt[i] = (mask.charAt(i) == MASK_CHAR);
+        }
     }
 
     /*
@@ -44,12 +75,7 @@ public abstract class Metodo11ValidableDocument extends Documents {
     @Override
     public boolean validate(final long doc) {
 
-        String s = String.valueOf(doc);
-        final int dif = docLen - s.length();
-        if (dif > 0) {
-            s = Strings.fill('0', dif) + s;
-        }
-        return validate(s);
+        return Metodo11.isValid(doc, validationDigits);
     }
 
     /*
@@ -58,23 +84,298 @@ public abstract class Metodo11ValidableDocument extends Documents {
      * com.obadaro.jinah.common.util.documents.Documents#validate(java.lang.String)
      */
     @Override
-    public boolean validate(String doc) {
+    public boolean validate(final String doc) {
+
+        return validate((CharSequence) doc) == ValidationResult.VALID;
+    }
+
+    /**
+     * Validates a document, masked or not, in place: mask chars are skipped, not removed, and
+     * nothing is allocated.
+     * 
+     * @param doc
+     *            A document of {@code docLen} digits, or formatted by the mask. The chars in the
+     *            place of the mask separators aren't checked.
+     * @return
+     */
+    public ValidationResult validate(final CharSequence doc) {
 
         if (doc == null) {
-            return false;
+            return ValidationResult.INVALID_LENGTH;
+        }
+        final int len = doc.length();
+        final boolean masked = (len == formattedLen);
+        if (!masked && len != docLen) {
+            return ValidationResult.INVALID_LENGTH;
+        }
+
+        long number = 0;
+        for (int i = 0; i < len; i++) {
+            if (masked && !digitAt[i]) {
+                continue;
+            }
+            final int digit = doc.charAt(i) - '0';
+            if (digit < 0 || digit > 9) {
+                return ValidationResult.INVALID_CHAR;
+            }
+            number = number * 10 + digit;
+        }
+        return Metodo11.validate(number, validationDigits);
+    }
+
+    /**
+     * Validates a document, masked or not, from US-ASCII bytes - as a field of a file being
+     * parsed - without creating a String.
+     * 
+     * @param buf
+     * @param off
+     * @param len
+     * @return
+     * @see #validate(CharSequence)
+     */
+    public ValidationResult validate(final byte[] buf, final int off, final int len) {
+
+        Preconditions.checkArgument(buf != null, "buf can't be null.");
+        Preconditions.checkArgument(off >= 0 && len >= 0 && off <= buf.length - len,
+                "Invalid range: %s, %s",
+                off,
+                len);
+
+        final boolean masked = (len == formattedLen);
+        if (!masked && len != docLen) {
+            return ValidationResult.INVALID_LENGTH;
         }
-        if (doc.length() == formattedLen) {
-            doc = unmask(doc, mask);
+
+        long number = 0;
+        for (int i = 0; i < len; i++) {
+            if (masked && !digitAt[i]) {
+                continue;
+            }
+            final int digit = buf[off + i] - '0';
+            if (digit < 0 || digit > 9) {
+                return ValidationResult.INVALID_CHAR;
+            }
+            number = number * 10 + digit;
         }
-        if (doc.length() != docLen) {
-            return false;
+        return Metodo11.validate(number, validationDigits);
+    }
+
+    /**
+     * Validates a document, masked or not, from the US-ASCII bytes of a buffer - as a line of a
+     * mapped file - by absolute gets: the position of {@code buf} is not used nor changed.
+     * 
+     * @param buf
+     * @param off
+     *            Index of the document in {@code buf}.
+     * @param len
+     * @return
+     * @see #validate(CharSequence)
+     */
+    public ValidationResult validate(final ByteBuffer buf, final int off, final int len) {
+
+        Preconditions.checkArgument(buf != null, "buf can't be null.");
+        Preconditions.checkArgument(off >= 0 && len >= 0 && off <= buf.limit() - len,
+                "Invalid range: %s, %s",
+                off,
+                len);
+
+        final boolean masked = (len == formattedLen);
+        if (!masked && len != docLen) {
+            return ValidationResult.INVALID_LENGTH;
         }
 
-        try {
-            final int[] cpfNumbers = toIntArray(doc);
-            return Metodo11.isValid(cpfNumbers, validationDigits);
-        } catch (final Exception e) {
-            return false;
+        long number = 0;
+        for (int i = 0; i < len; i++) {
+            if (masked && !digitAt[i]) {
+                continue;
+            }
+            final int digit = buf.get(off + i) - '0';
+            if (digit < 0 || digit > 9) {
+                return ValidationResult.INVALID_CHAR;
+            }
+            number = number * 10 + digit;
+        }
+        return Metodo11.validate(number, validationDigits);
+    }
+
+    /**
+     * Validates all {@code docs}, in parallel for large arrays.
+     * 
+     * @param docs
+     * @param out
+     *            Bit {@code i} is set if {@code docs[i]} is valid, cleared otherwise. Bits past
+     *            {@code docs.length} are kept.
+     * @return Number of valid documents.
+     */
+    public int validateAll(final long[] docs, final BitSet out) {
+
+        Preconditions.checkArgument(docs != null, "docs can't be null.");
+        Preconditions.checkArgument(out != null, "out can't be null.");
+
+        return bits(run(new Slice(this, docs, null, docs.length, true)), docs.length, out);
+    }
+
+    /**
+     * Validates all {@code docs}, masked or not, in parallel for large lists.
+     * 
+     * @param docs
+     *            Lists that are not {@link RandomAccess} are copied first.
+     * @param out
+     *            Bit {@code i} is set if {@code docs.get(i)} is valid, cleared otherwise. Bits
+     *            past {@code docs.size()} are kept.
+     * @return Number of valid documents.
+     * @see #validate(CharSequence)
+     */
+    public int validateAll(final List<? extends CharSequence> docs, final BitSet out) {
+
+        Preconditions.checkArgument(docs != null, "docs can't be null.");
+        Preconditions.checkArgument(out != null, "out can't be null.");
+
+        return bits(run(new Slice(this, null, randomAccess(docs), docs.size(), true)), docs.size(), out);
+    }
+
+    /**
+     * Validates all {@code docs}, in parallel for large arrays, counting the results.
+     * 
+     * @param docs
+     * @return Number of documents of each result; results that didn't occur are absent.
+     */
+    public Map<ValidationResult, Integer> countAll(final long[] docs) {
+
+        Preconditions.checkArgument(docs != null, "docs can't be null.");
+
+        return counts(run(new Slice(this, docs, null, docs.length, false)));
+    }
+
+    /**
+     * Validates all {@code docs}, masked or not, in parallel for large lists, counting the
+     * results.
+     * 
+     * @param docs
+     *            Lists that are not {@link RandomAccess} are copied first.
+     * @return Number of documents of each result; results that didn't occur are absent.
+     */
+    public Map<ValidationResult, Integer> countAll(final List<? extends CharSequence> docs) {
+
+        Preconditions.checkArgument(docs != null, "docs can't be null.");
+
+        return counts(run(new Slice(this, null, randomAccess(docs), docs.size(), false)));
+    }
+
+    private static Slice run(final Slice slice) {
+
+        if (slice.to < PARALLEL_THRESHOLD) {
+            slice.process();
+        } else {
+            Workers.pool().invoke(slice);
+        }
+        return slice;
+    }
+
+    private static List<? extends CharSequence> randomAccess(final List<? extends CharSequence> docs) {
+
+        return (docs instanceof RandomAccess ? docs : new ArrayList<CharSequence>(docs));
+    }
+
+    private static int bits(final Slice slice, final int size, final BitSet out) {
+
+        out.clear(0, size);
+        out.or(BitSet.valueOf(slice.words));
+        return slice.counts[ValidationResult.VALID.ordinal()];
+    }
+
+    private static Map<ValidationResult, Integer> counts(final Slice slice) {
+
+        final Map<ValidationResult, Integer> counts = new EnumMap<ValidationResult, Integer>(ValidationResult.class);
+        for (final ValidationResult result : ValidationResult.values()) {
+            final int count = slice.counts[result.ordinal()];
+            if (count > 0) {
+                counts.put(result, count);
+            }
+        }
+        return counts;
+    }
+
+    /**
+     * Validates the documents {@code [from, to)}, splitting in halves aligned to words of the
+     * result, and counts the results.
+     */
+    private static final class Slice extends RecursiveAction {
+
+        private static final long serialVersionUID = 1L;
+
+        private final Metodo11ValidableDocument document;
+        private final long[] numbers;
+        private final List<? extends CharSequence> texts;
+        private final int from;
+        private final int to;
+
+        /**
+         * Bits of the valid documents, shared by all slices; {@code null} if only counting.
+         */
+        final long[] words;
+
+        /**
+         * Number of documents of each result, by ordinal.
+         */
+        final int[] counts = new int[ValidationResult.values().length];
+
+        Slice(final Metodo11ValidableDocument document,
+              final long[] numbers,
+              final List<? extends CharSequence> texts,
+              final int size,
+              final boolean marking) {
+
+            this(document, numbers, texts, 0, size, (marking ? new long[(size + 63) >>> 6] : null));
+        }
+
+        private Slice(final Metodo11ValidableDocument document,
+                      final long[] numbers,
+                      final List<? extends CharSequence> texts,
+                      final int from,
+                      final int to,
+                      final long[] words) {
+
+            this.document = document;
+            this.numbers = numbers;
+            this.texts = texts;
+            this.from = from;
+            this.to = to;
+            this.words = words;
+        }
+
+        @Override
+        protected void compute() {
+
+            if (to - from <= SLICE_DOCS) {
+                process();
+                return;
+            }
+
+            final int middle = from + ((to - from) / 2 & ~63);
+            final Slice left = new Slice(document, numbers, texts, from, middle, words);
+            final Slice right = new Slice(document, numbers, texts, middle, to, words);
+            invokeAll(left, right);
+            for (int i = 0; i < counts.length; i++) {
+                counts[i] = left.counts[i] + right.counts[i];
+            }
+        }
+
+        void process() {
+
+            final int[] validationDigits = document.validationDigits;
+            for (int i = from; i < to; i++) {
+                final ValidationResult result;
+                if (numbers != null) {
+                    result = Metodo11.validate(numbers[i], validationDigits);
+                } else {
+                    result = document.validate(texts.get(i));
+                }
+                counts[result.ordinal()]++;
+                if (words != null && result == ValidationResult.VALID) {
+                    words[i >>> 6] |= 1L << i;
+                }
+            }
         }
     }
 
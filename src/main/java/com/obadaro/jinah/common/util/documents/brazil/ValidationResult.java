@@ -0,0 +1,59 @@
+/*
+ * JINAH Project - Java Is Not A Hammer
+ * http://obadaro.com/jinah
+ *
+ * Copyright (C) 2010-2012 Roberto Badaro
+ * and individual contributors by the @authors tag.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.obadaro.jinah.common.util.documents.brazil;
+
+/**
+ * Outcome of the validation of a document, so callers can tell why it failed without parsing it
+ * again - nor catching exceptions.
+ *
+ * @author Roberto Badaro
+ * @see Metodo11ValidableDocument#validate(CharSequence)
+ */
+public enum ValidationResult {
+
+    VALID,
+
+    /**
+     * {@code null}, or neither the length of the document nor of its mask.
+     */
+    INVALID_LENGTH,
+
+    /**
+     * Something other than an ASCII digit where a digit is expected.
+     */
+    INVALID_CHAR,
+
+    /**
+     * Every digit the same, as {@code 111.111.111-11}: the check digits match, but no such
+     * document is issued.
+     */
+    REPEATED_DIGITS,
+
+    /**
+     * The check digits don't match the rest of the document.
+     */
+    INVALID_CHECK_DIGIT;
+
+    public boolean isValid() {
+
+        return this == VALID;
+    }
+
+}
@@ -0,0 +1,308 @@
+/*
+ * JINAH Project - Java Is Not A Hammer
+ * http://obadaro.com/jinah
+ *
+ * Copyright (C) 2010-2012 Roberto Badaro
+ * and individual contributors by the @authors tag.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.obadaro.jinah.common.util.encoding;
+
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+import com.obadaro.jinah.common.util.Preconditions;
+
+/**
+ * Base of the codecs that encode blocks of {@code blockBytes} bytes into blocks of
+ * {@code blockChars} chars, where only the last block may be incomplete or padded.
+ * <p>
+ * Subclasses implement the array methods. This class builds everything else on top of them:
+ * buffers that are not backed by arrays and streams go through small chunks - whole blocks, the
+ * last one held back until the input ends - so the buffer management is the same for every codec.
+ * </p>
+ *
+ * @author Roberto Badaro
+ */
+public abstract class AbstractCodec implements Codec {
+
+    /**
+     * Approximate size of the chunks of bytes to encode, and of chars to decode.
+     */
+    static final int CHUNK_SIZE = 4096;
+
+    private final String name;
+    private final int blockBytes;
+    private final int blockChars;
+
+    /**
+     * @param name
+     * @param blockBytes
+     *            Bytes of a full block.
+     * @param blockChars
+     *            Chars of a full block.
+     */
+    protected AbstractCodec(final String name, final int blockBytes, final int blockChars) {
+
+        Preconditions.checkArgument(name != null, "name can't be null.");
+        Preconditions.checkArgument(blockBytes > 0 && blockChars > 0, "Invalid block: %s, %s", blockBytes, blockChars);
+
+        this.name = name;
+        this.blockBytes = blockBytes;
+        this.blockChars = blockChars;
+    }
+
+    @Override
+    public String getName() {
+
+        return name;
+    }
+
+    @Override
+    public byte[] encode(final byte[] src) {
+
+        final byte[] dst = new byte[encodedLength(src.length)];
+        encode(src, 0, src.length, dst, 0);
+        return dst;
+    }
+
+    @Override
+    public byte[] decode(final byte[] src) {
+
+        final byte[] dst = new byte[maxDecodedLength(src.length)];
+        final int n = decode(src, 0, src.length, dst, 0);
+        Preconditions.checkArgument(n >= 0, "Invalid %s input", name);
+        return (n == dst.length ? dst : Arrays.copyOf(dst, n));
+    }
+
+    @Override
+    public int encode(final ByteBuffer src, final ByteBuffer dst) {
+
+        if (dst.remaining() < encodedLength(src.remaining())) {
+            throw new BufferOverflowException();
+        }
+
+        if (src.hasArray() && dst.hasArray()) {
+            final int n = encode(src.array(), src.arrayOffset() + src.position(), src.remaining(), dst.array(),
+                dst.arrayOffset() + dst.position());
+            src.position(src.limit());
+            dst.position(dst.position() + n);
+            return n;
+        }
+
+        final byte[] chunk = new byte[encodeChunkBytes()];
+        final byte[] encoded = new byte[encodedChunkLength()];
+        int written = 0;
+        while (src.hasRemaining()) {
+            final int n = Math.min(chunk.length, src.remaining());
+            src.get(chunk, 0, n);
+            final int m = (written > 0 ? separate(encoded, 0) : 0);
+            final int total = m + encode(chunk, 0, n, encoded, m);
+            dst.put(encoded, 0, total);
+            written += total;
+        }
+        return written;
+    }
+
+    @Override
+    public int decode(final ByteBuffer src, final ByteBuffer dst) {
+
+        if (dst.remaining() < maxDecodedLength(src.remaining())) {
+            throw new BufferOverflowException();
+        }
+
+        final int srcPosition = src.position();
+        final int dstPosition = dst.position();
+        if (src.hasArray() && dst.hasArray()) {
+            final int n = decode(src.array(), src.arrayOffset() + srcPosition, src.remaining(), dst.array(),
+                dst.arrayOffset() + dstPosition);
+            if (n >= 0) {
+                src.position(src.limit());
+                dst.position(dstPosition + n);
+            }
+            return n;
+        }
+
+        final byte[] chunk = new byte[decodeChunkChars()];
+        final byte[] decoded = new byte[maxDecodedLength(chunk.length)];
+        int count = 0;
+        while (true) {
+            final int n = Math.min(chunk.length - count, src.remaining());
+            src.get(chunk, count, n);
+            count = compact(chunk, count, count + n);
+
+            final boolean end = !src.hasRemaining();
+            final int take = decodeTake(count, end);
+            final int m = decodeChunk(chunk, take, end, decoded);
+            if (m < 0) {
+                src.position(srcPosition);
+                dst.position(dstPosition);
+                return -1;
+            }
+            dst.put(decoded, 0, m);
+            System.arraycopy(chunk, take, chunk, 0, count - take);
+            count -= take;
+            if (end) {
+                return dst.position() - dstPosition;
+            }
+        }
+    }
+
+    @Override
+    public CodecOutputStream encodingStream(final OutputStream out) {
+
+        return new CodecOutputStream(this, out);
+    }
+
+    @Override
+    public InputStream decodingStream(final InputStream in) {
+
+        return new CodecInputStream(this, in);
+    }
+
+    @Override
+    public String toString() {
+
+        return name;
+    }
+
+    /**
+     * Bytes that can end a chunk of input, so the encoding of the chunks, joined by
+     * {@link #separate(byte[], int)}, is the encoding of the whole input.
+     */
+    int encodeUnit() {
+
+        return blockBytes;
+    }
+
+    /**
+     * Writes what goes between the encodings of two chunks, as a line separator.
+     *
+     * @return Number of bytes written.
+     */
+    int separate(final byte[] dst, final int dp) {
+
+        return 0;
+    }
+
+    /**
+     * @return Number of bytes {@link #separate(byte[], int)} writes.
+     */
+    int separatorLength() {
+
+        return 0;
+    }
+
+    /**
+     * @return {@code true} if decoding ignores {@code c}, as a line separator.
+     */
+    boolean isSkipped(final int c) {
+
+        return false;
+    }
+
+    final int encodeChunkBytes() {
+
+        final int unit = encodeUnit();
+        return unit * Math.max(1, CHUNK_SIZE / unit);
+    }
+
+    /**
+     * Room for the encoding of a chunk, and of the separator before it.
+     */
+    final int encodedChunkLength() {
+
+        return encodedLength(encodeChunkBytes()) + separatorLength();
+    }
+
+    final int decodeChunkChars() {
+
+        return blockChars * Math.max(2, CHUNK_SIZE / blockChars);
+    }
+
+    /**
+     * Removes the skipped chars of {@code chunk[from, to)}.
+     *
+     * @return The new end of the chunk.
+     */
+    final int compact(final byte[] chunk, final int from, final int to) {
+
+        int dp = from;
+        for (int i = from; i < to; i++) {
+            final byte c = chunk[i];
+            if (!isSkipped(c & 0xff)) {
+                chunk[dp++] = c;
+            }
+        }
+        return dp;
+    }
+
+    /**
+     * Returns the chars of a chunk to decode now: all at the end of the input, otherwise the whole
+     * blocks but the last one, that may be the padded end.
+     */
+    final int decodeTake(final int count, final boolean end) {
+
+        return (end ? count : Math.max(0, (count / blockChars - 1) * blockChars));
+    }
+
+    /**
+     * Decodes the first {@code take} chars of a chunk. Before the end of the input, the chunk must
+     * decode to whole blocks.
+     *
+     * @return Number of bytes written, or -1 (minus one) if the chunk is invalid.
+     */
+    final int decodeChunk(final byte[] chunk, final int take, final boolean end, final byte[] decoded) {
+
+        final int m = decode(chunk, 0, take, decoded, 0);
+        return (end || m == take / blockChars * blockBytes ? m : -1);
+    }
+
+    /**
+     * Finds where a chunk {@link #decodeChunk(byte[], int, boolean, byte[]) decodeChunk} refused
+     * is invalid. This implementation looks for the first block that doesn't decode to a whole
+     * block: a padded block, or the end of a complete input, is followed by the error; otherwise
+     * the error is the block itself, and the index is where the block starts.
+     *
+     * @param scratch
+     *            Room for the decoding of the chunk, overwritten.
+     * @return Index of the first invalid char; {@code take} if the chunk is valid but cut short.
+     */
+    int errorIndex(final byte[] chunk, final int take, final boolean end, final byte[] scratch) {
+
+        // the prefixes of whole blocks that decode to whole blocks are valid, and get shorter
+        // as the blocks go bad: binary search the longest one
+        int good = 0;
+        int bad = take / blockChars + 1;
+        while (bad - good > 1) {
+            final int k = (good + bad) >>> 1;
+            if (decode(chunk, 0, k * blockChars, scratch, 0) == k * blockBytes) {
+                good = k;
+            } else {
+                bad = k;
+            }
+        }
+
+        final int from = good * blockChars;
+        final int length = Math.min(blockChars, take - from);
+        if (length == 0 || decode(chunk, from, length, scratch, 0) >= 0) {
+            return Math.min(from + blockChars, take);
+        }
+        return from;
+    }
+
+}
@@ -0,0 +1,149 @@
+/*
+ * JINAH Project - Java Is Not A Hammer
+ * http://obadaro.com/jinah
+ *
+ * Copyright (C) 2010-2012 Roberto Badaro
+ * and individual contributors by the @authors tag.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.obadaro.jinah.common.util.encoding;
+
+import java.util.Arrays;
+
+import com.obadaro.jinah.common.util.Preconditions;
+
+/**
+ * Ascii85 codec: blocks of 4 bytes as 5 chars from {@code '!'} to {@code 'u'}, and an incomplete
+ * last block of {@code n} bytes as {@code n + 1} chars.
+ * <p>
+ * The output has a fixed length: neither the {@code 'z'} shorthand of zero blocks nor the
+ * {@code <~ ~>} delimiters of Adobe's variant are written or accepted.
+ * </p>
+ *
+ * @author Roberto Badaro
+ */
+public final class Ascii85 extends AbstractCodec {
+
+    public static final Ascii85 INSTANCE = new Ascii85();
+
+    private static final int FIRST = '!';
+
+    private static final byte[] VALUES = new byte[256];
+
+    static {
+        Arrays.fill(VALUES, (byte) -1);
+        for (int i = 0; i < 85; i++) {
+            VALUES[FIRST + i] = (byte) i;
+        }
+    }
+
+    /**
+     * Powers of 85, from the first char of a block.
+     */
+    private static final long[] WEIGHTS = { 85L * 85 * 85 * 85, 85 * 85 * 85, 85 * 85, 85, 1 };
+
+    private Ascii85() {
+
+        super("Ascii85", 4, 5);
+    }
+
+    @Override
+    public int encodedLength(final int length) {
+
+        Preconditions.checkArgument(length >= 0 && length <= Integer.MAX_VALUE / 5 * 4, "Invalid length: %s", length);
+
+        final int tail = length % 4;
+        return length / 4 * 5 + (tail == 0 ? 0 : tail + 1);
+    }
+
+    @Override
+    public int maxDecodedLength(final int length) {
+
+        Preconditions.checkArgument(length >= 0, "Invalid length: %s", length);
+
+        return length / 5 * 4 + Math.max(0, length % 5 - 1);
+    }
+
+    @Override
+    public int encode(final byte[] src, final int srcOff, final int srcLen, final byte[] dst, final int dstOff) {
+
+        Base64.checkRange(src.length, srcOff, srcLen);
+        Base64.checkRange(dst.length, dstOff, encodedLength(srcLen));
+
+        final int end = srcOff + srcLen;
+        int dp = dstOff;
+        for (int sp = srcOff; sp < end; sp += 4) {
+            final int n = Math.min(4, end - sp);
+            long value = 0;
+            for (int i = 0; i < 4; i++) {
+                value = value << 8 | (i < n ? src[sp + i] & 0xff : 0);
+            }
+            // digits right to left, then only the first n + 1
+            final int d4 = (int) (value % 85);
+            value /= 85;
+            final int d3 = (int) (value % 85);
+            value /= 85;
+            final int d2 = (int) (value % 85);
+            value /= 85;
+            final int d1 = (int) (value % 85);
+            final int d0 = (int) (value / 85);
+
+            dst[dp++] = (byte) (FIRST + d0);
+            dst[dp++] = (byte) (FIRST + d1);
+            if (n > 1) {
+                dst[dp++] = (byte) (FIRST + d2);
+            }
+            if (n > 2) {
+                dst[dp++] = (byte) (FIRST + d3);
+            }
+            if (n > 3) {
+                dst[dp++] = (byte) (FIRST + d4);
+            }
+        }
+        return dp - dstOff;
+    }
+
+    @Override
+    public int decode(final byte[] src, final int srcOff, final int srcLen, final byte[] dst, final int dstOff) {
+
+        Base64.checkRange(src.length, srcOff, srcLen);
+        Base64.checkRange(dst.length, dstOff, maxDecodedLength(srcLen));
+
+        if (srcLen % 5 == 1) {
+            return -1;
+        }
+
+        final int end = srcOff + srcLen;
+        int dp = dstOff;
+        for (int sp = srcOff; sp < end; sp += 5) {
+            final int chars = Math.min(5, end - sp);
+            long value = 0;
+            int invalid = 0;
+            for (int i = 0; i < 5; i++) {
+                // an incomplete block is completed with the last digit, 'u'
+                final int v = (i < chars ? VALUES[src[sp + i] & 0xff] : 84);
+                invalid |= v;
+                value += v * WEIGHTS[i];
+            }
+            if (invalid < 0 || value > 0xffffffffL) {
+                return -1;
+            }
+            for (int i = 0; i < chars - 1; i++) {
+                dst[dp++] = (byte) (value >>> (24 - 8 * i));
+            }
+        }
+        return dp - dstOff;
+    }
+
+}
@@ -0,0 +1,132 @@
+/*
+ * JINAH Project - Java Is Not A Hammer
+ * http://obadaro.com/jinah
+ *
+ * Copyright (C) 2010-2012 Roberto Badaro
+ * and individual contributors by the @authors tag.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.obadaro.jinah.common.util.encoding;
+
+import java.util.Arrays;
+
+import com.obadaro.jinah.common.util.Preconditions;
+
+/**
+ * Base16 (hex) codec of RFC 4648, for hashes and keys. Each byte is written as a pair of chars
+ * looked up in a 512-entry table; decoding accepts both cases.
+ *
+ * @author Roberto Badaro
+ */
+public final class Base16 extends AbstractCodec {
+
+    /**
+     * Upper case digits, as in RFC 4648.
+     */
+    public static final Base16 UPPER = new Base16("0123456789ABCDEF");
+
+    /**
+     * Lower case digits, as usually printed for hashes.
+     */
+    public static final Base16 LOWER = new Base16("0123456789abcdef");
+
+    private static final byte[] VALUES = new byte[256];
+
+    static {
+        Arrays.fill(VALUES, (byte) -1);
+        for (int i = 0; i < 10; i++) {
+            VALUES['0' + i] = (byte) i;
+        }
+        for (int i = 0; i < 6; i++) {
+            VALUES['A' + i] = (byte) (10 + i);
+            VALUES['a' + i] = (byte) (10 + i);
+        }
+    }
+
+    /**
+     * The 2 chars of each byte value.
+     */
+    private final byte[] pairs = new byte[512];
+
+    private Base16(final String digits) {
+
+        super("Base16", 1, 2);
+
+        for (int i = 0; i < 256; i++) {
+            pairs[i << 1] = (byte) digits.charAt(i >>> 4);
+            pairs[(i << 1) + 1] = (byte) digits.charAt(i & 0xf);
+        }
+    }
+
+    @Override
+    public int encodedLength(final int length) {
+
+        Preconditions.checkArgument(length >= 0 && length <= Integer.MAX_VALUE / 2, "Invalid length: %s", length);
+
+        return length * 2;
+    }
+
+    @Override
+    public int maxDecodedLength(final int length) {
+
+        Preconditions.checkArgument(length >= 0, "Invalid length: %s", length);
+
+        return length / 2;
+    }
+
+    @Override
+    public int encode(final byte[] src, final int srcOff, final int srcLen, final byte[] dst, final int dstOff) {
+
+        Base64.checkRange(src.length, srcOff, srcLen);
+        Base64.checkRange(dst.length, dstOff, encodedLength(srcLen));
+
+        final byte[] pairs = this.pairs;
+        int dp = dstOff;
+        for (int sp = srcOff, end = srcOff + srcLen; sp < end; sp++) {
+            final int i = (src[sp] & 0xff) << 1;
+            dst[dp++] = pairs[i];
+            dst[dp++] = pairs[i + 1];
+        }
+        return dp - dstOff;
+    }
+
+    @Override
+    public int decode(final byte[] src, final int srcOff, final int srcLen, final byte[] dst, final int dstOff) {
+
+        Base64.checkRange(src.length, srcOff, srcLen);
+        Base64.checkRange(dst.length, dstOff, maxDecodedLength(srcLen));
+
+        if ((srcLen & 1) != 0) {
+            return -1;
+        }
+
+        int dp = dstOff;
+        for (int sp = srcOff, end = srcOff + srcLen; sp < end; sp += 2) {
+            final int hi = VALUES[src[sp] & 0xff];
+            final int lo = VALUES[src[sp + 1] & 0xff];
+            if ((hi | lo) < 0) {
+                return -1;
+            }
+            dst[dp++] = (byte) (hi << 4 | lo);
+        }
+        return dp - dstOff;
+    }
+
+    @Override
+    public String toString() {
+
+        return "Base16[" + (this == LOWER ? "lower" : "upper") + "]";
+    }
+
+}
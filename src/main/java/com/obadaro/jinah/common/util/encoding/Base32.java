@@ -0,0 +1,164 @@
+/*
+ * JINAH Project - Java Is Not A Hammer
+ * http://obadaro.com/jinah
+ *
+ * Copyright (C) 2010-2012 Roberto Badaro
+ * and individual contributors by the @authors tag.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.obadaro.jinah.common.util.encoding;
+
+import java.util.Arrays;
+
+import com.obadaro.jinah.common.util.Preconditions;
+
+/**
+ * Padded Base32 codec of RFC 4648, in the standard and the "extended hex" alphabets. Blocks of 5
+ * bytes are encoded as 8 chars by table lookups over a {@code long}; decoding accepts both cases.
+ *
+ * @author Roberto Badaro
+ */
+public final class Base32 extends AbstractCodec {
+
+    /**
+     * RFC 4648 alphabet: {@code A-Z} and {@code 2-7}.
+     */
+    public static final Base32 RFC4648 = new Base32("ABCDEFGHIJKLMNOPQRSTUVWXYZ234567", "Base32");
+
+    /**
+     * RFC 4648 "extended hex" alphabet, that keeps the sort order: {@code 0-9} and {@code A-V}.
+     */
+    public static final Base32 HEX = new Base32("0123456789ABCDEFGHIJKLMNOPQRSTUV", "Base32Hex");
+
+    private static final byte PAD = '=';
+
+    /**
+     * Chars of an encoded incomplete block of 1 to 4 bytes; the rest is padding.
+     */
+    private static final int[] TAIL_CHARS = { 0, 2, 4, 5, 7 };
+
+    private final byte[] alphabet = new byte[32];
+    private final byte[] values = new byte[256];
+
+    private Base32(final String alphabet, final String name) {
+
+        super(name, 5, 8);
+
+        Arrays.fill(values, (byte) -1);
+        for (int i = 0; i < 32; i++) {
+            final char c = alphabet.charAt(i);
+            this.alphabet[i] = (byte) c;
+            values[c] = (byte) i;
+            values[Character.toLowerCase(c)] = (byte) i;
+        }
+    }
+
+    @Override
+    public int encodedLength(final int length) {
+
+        Preconditions.checkArgument(length >= 0 && length <= Integer.MAX_VALUE / 8 * 5, "Invalid length: %s", length);
+
+        return (length + 4) / 5 * 8;
+    }
+
+    @Override
+    public int maxDecodedLength(final int length) {
+
+        Preconditions.checkArgument(length >= 0, "Invalid length: %s", length);
+
+        return length / 8 * 5;
+    }
+
+    @Override
+    public int encode(final byte[] src, final int srcOff, final int srcLen, final byte[] dst, final int dstOff) {
+
+        Base64.checkRange(src.length, srcOff, srcLen);
+        Base64.checkRange(dst.length, dstOff, encodedLength(srcLen));
+
+        final byte[] alphabet = this.alphabet;
+        final int end = srcOff + srcLen - srcLen % 5;
+        int dp = dstOff;
+        for (int sp = srcOff; sp < end; sp += 5) {
+            final long bits = (src[sp] & 0xffL) << 32 | (src[sp + 1] & 0xffL) << 24 | (src[sp + 2] & 0xffL) << 16
+                    | (src[sp + 3] & 0xffL) << 8 | (src[sp + 4] & 0xffL);
+            for (int shift = 35; shift >= 0; shift -= 5) {
+                dst[dp++] = alphabet[(int) (bits >>> shift) & 0x1f];
+            }
+        }
+
+        final int remaining = srcOff + srcLen - end;
+        if (remaining > 0) {
+            long bits = 0;
+            for (int i = 0; i < remaining; i++) {
+                bits |= (src[end + i] & 0xffL) << (32 - 8 * i);
+            }
+            final int chars = TAIL_CHARS[remaining];
+            for (int i = 0; i < 8; i++) {
+                dst[dp++] = (i < chars ? alphabet[(int) (bits >>> (35 - 5 * i)) & 0x1f] : PAD);
+            }
+        }
+        return dp - dstOff;
+    }
+
+    @Override
+    public int decode(final byte[] src, final int srcOff, final int srcLen, final byte[] dst, final int dstOff) {
+
+        Base64.checkRange(src.length, srcOff, srcLen);
+        Base64.checkRange(dst.length, dstOff, maxDecodedLength(srcLen));
+
+        if (srcLen % 8 != 0) {
+            return -1;
+        }
+
+        final byte[] values = this.values;
+        final int end = srcOff + srcLen;
+        int dp = dstOff;
+        for (int sp = srcOff; sp < end; sp += 8) {
+            long bits = 0;
+            int chars = 0;
+            int invalid = 0;
+            for (; chars < 8 && src[sp + chars] != PAD; chars++) {
+                final int v = values[src[sp + chars] & 0xff];
+                invalid |= v;
+                bits |= (long) (v & 0x1f) << (35 - 5 * chars);
+            }
+            if (invalid < 0) {
+                return -1;
+            }
+
+            if (chars == 8) {
+                for (int shift = 32; shift >= 0; shift -= 8) {
+                    dst[dp++] = (byte) (bits >>> shift);
+                }
+                continue;
+            }
+
+            // padded: only the last block, with a valid number of pads
+            final int n = Arrays.binarySearch(TAIL_CHARS, chars);
+            if (n <= 0 || sp + 8 != end) {
+                return -1;
+            }
+            for (int i = chars + 1; i < 8; i++) {
+                if (src[sp + i] != PAD) {
+                    return -1;
+                }
+            }
+            for (int i = 0; i < n; i++) {
+                dst[dp++] = (byte) (bits >>> (32 - 8 * i));
+            }
+        }
+        return dp - dstOff;
+    }
+
+}
@@ -16,6 +16,13 @@
 
 package com.obadaro.jinah.common.util.encoding;
 
+import java.nio.ByteBuffer;
+import java.nio.charset.CoderResult;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import com.obadaro.jinah.common.internals.Workers;
+import com.obadaro.jinah.common.util.Preconditions;
+
 /**
  * This class provides encode/decode for RFC 2045 Base64 as defined by RFC 2045,
  * N. Freed and N. Borenstein. <a href="http://www.ietf.org/rfc/rfc2045.txt">RFC
@@ -27,13 +34,13 @@ package com.obadaro.jinah.common.util.encoding;
 public final class Base64 {
     static private final int BASELENGTH = 255;
     static private final int LOOKUPLENGTH = 64;
-    static private final int TWENTYFOURBITGROUP = 24;
-    static private final int EIGHTBIT = 8;
-    static private final int SIXTEENBIT = 16;
-    // static private final int SIXBIT = 6;
     static private final int FOURBYTE = 4;
-    static private final int SIGN = -128;
     static private final byte PAD = (byte) '=';
+    static private final int MAX_ENCODABLE = Integer.MAX_VALUE / 4 * 3;
+    /**
+     * Arrays smaller than this are encoded or decoded by the calling thread.
+     */
+    static final int PARALLEL_THRESHOLD = 1 << 20;
     static private byte[] base64Alphabet = new byte[BASELENGTH];
     static private byte[] lookUpBase64Alphabet = new byte[LOOKUPLENGTH];
     // static private final Log log =
@@ -73,14 +80,29 @@ public final class Base64 {
     }
 
     public static boolean isBase64(final String isValidString) {
-        return isArrayByteBase64(isValidString.getBytes());
+        // chars checked in place: no getBytes() copy
+        for (int i = 0, length = isValidString.length(); i < length; i++) {
+            final char c = isValidString.charAt(i);
+            if (c >= 128 || !isBase64((byte) c)) {
+                return false;
+            }
+        }
+        return true;
     }
 
     public static boolean isBase64(final byte octect) {
         // shall we ignore white space? JEFF??
-        return (octect == PAD || base64Alphabet[octect] != -1);
+        // negative bytes are not ASCII, and would index out of the table
+        return (octect == PAD || (octect >= 0 && base64Alphabet[octect] != -1));
     }
 
+    /**
+     * Checks that every byte is in the alphabet or is padding. To validate and decode, prefer
+     * {@link Base64Decoder}, which does both in a single pass.
+     * 
+     * @param arrayOctect
+     * @return
+     */
     public static boolean isArrayByteBase64(final byte[] arrayOctect) {
         final int length = arrayOctect.length;
         if (length == 0) {
@@ -96,6 +118,20 @@ public final class Base64 {
         return true;
     }
 
+    /**
+     * Same as {@code new String(encode(binaryData), "US-ASCII")}, without decoding a charset.
+     * 
+     * @param binaryData
+     *            Array containing binary data to encode.
+     * @return Base64-encoded data.
+     */
+    @SuppressWarnings("deprecation")
+    public static String encodeToString(final byte[] binaryData) {
+        final byte[] encoded = encode(binaryData);
+        // Latin-1 chars straight from the bytes: a plain copy, no CharsetDecoder
+        return new String(encoded, 0, 0, encoded.length);
+    }
+
     /**
      * Encodes hex octects into Base64.
      * 
@@ -104,105 +140,158 @@ public final class Base64 {
      * @return Base64-encoded data.
      */
     public static byte[] encode(final byte[] binaryData) {
-        final int lengthDataBits = binaryData.length * EIGHTBIT;
-        final int fewerThan24bits = lengthDataBits % TWENTYFOURBITGROUP;
-        final int numberTriplets = lengthDataBits / TWENTYFOURBITGROUP;
-        byte encodedData[] = null;
+        return Base64Engine.getDefault().encode(binaryData);
+    }
 
-        if (fewerThan24bits != 0) {
-            // data not divisible by 24 bit
-            encodedData = new byte[(numberTriplets + 1) * 4];
-        } else {
-            // 16 or 8 bit
-            encodedData = new byte[numberTriplets * 4];
+    /**
+     * Decodes Base64 data into octects
+     * 
+     * @param base64Data
+     *            Byte array containing Base64 data
+     * @return Array containing decoded data.
+     */
+    public static byte[] decode(final byte[] base64Data) {
+        final int length = Base64Engine.decodedLength(base64Data, 0, base64Data.length);
+        if (length >= 0) {
+            final byte[] decoded = new byte[length];
+            if (Base64Engine.getDefault().decode(base64Data, 0, base64Data.length, decoded, 0) == length) {
+                return decoded;
+            }
         }
+        // not canonical: keep the historical behavior
+        return decodeLegacy(base64Data);
+    }
+
+    /**
+     * Decodes Base64 chars, without copying them to a byte array first. Same results as
+     * {@link #decode(byte[])} of the chars as ASCII bytes.
+     * 
+     * @param base64Data
+     *            Base64 chars
+     * @return Array containing decoded data.
+     */
+    public static byte[] decode(final CharSequence base64Data) {
+        return decode(base64Data, 0, base64Data.length());
+    }
 
-        byte k = 0, l = 0, b1 = 0, b2 = 0, b3 = 0;
+    /**
+     * Decodes {@code len} Base64 chars of {@code base64Data}, from {@code off}.
+     * 
+     * @param base64Data
+     *            Base64 chars
+     * @param off
+     * @param len
+     * @return Array containing decoded data.
+     * @see #decode(CharSequence)
+     */
+    public static byte[] decode(final CharSequence base64Data, final int off, final int len) {
+        checkRange(base64Data.length(), off, len);
 
-        int encodedIndex = 0;
-        int dataIndex = 0;
-        int i = 0;
-        // log.debug("number of triplets = " + numberTriplets);
-        for (i = 0; i < numberTriplets; i++) {
-            dataIndex = i * 3;
-            b1 = binaryData[dataIndex];
-            b2 = binaryData[dataIndex + 1];
-            b3 = binaryData[dataIndex + 2];
-
-            // log.debug("b1= " + b1 +", b2= " + b2 + ", b3= " + b3);
-
-            l = (byte) (b2 & 0x0f);
-            k = (byte) (b1 & 0x03);
-
-            encodedIndex = i * 4;
-            final byte val1 = ((b1 & SIGN) == 0)
-                    ? (byte) (b1 >> 2)
-                    : (byte) ((b1) >> 2 ^ 0xc0);
-            final byte val2 = ((b2 & SIGN) == 0)
-                    ? (byte) (b2 >> 4)
-                    : (byte) ((b2) >> 4 ^ 0xf0);
-            final byte val3 = ((b3 & SIGN) == 0)
-                    ? (byte) (b3 >> 6)
-                    : (byte) ((b3) >> 6 ^ 0xfc);
-
-            encodedData[encodedIndex] = lookUpBase64Alphabet[val1];
-            // log.debug( "val2 = " + val2 );
-            // log.debug( "k4   = " + (k<<4) );
-            // log.debug( "vak  = " + (val2 | (k<<4)) );
-            encodedData[encodedIndex + 1] = lookUpBase64Alphabet[val2
-                    | (k << 4)];
-            encodedData[encodedIndex + 2] = lookUpBase64Alphabet[(l << 2)
-                    | val3];
-            encodedData[encodedIndex + 3] = lookUpBase64Alphabet[b3 & 0x3f];
-        }
-
-        // form integral number of 6-bit groups
-        dataIndex = i * 3;
-        encodedIndex = i * 4;
-        if (fewerThan24bits == EIGHTBIT) {
-            b1 = binaryData[dataIndex];
-            k = (byte) (b1 & 0x03);
-            // log.debug("b1=" + b1);
-            // log.debug("b1<<2 = " + (b1>>2) );
-            final byte val1 = ((b1 & SIGN) == 0)
-                    ? (byte) (b1 >> 2)
-                    : (byte) ((b1) >> 2 ^ 0xc0);
-            encodedData[encodedIndex] = lookUpBase64Alphabet[val1];
-            encodedData[encodedIndex + 1] = lookUpBase64Alphabet[k << 4];
-            encodedData[encodedIndex + 2] = PAD;
-            encodedData[encodedIndex + 3] = PAD;
-        } else if (fewerThan24bits == SIXTEENBIT) {
-
-            b1 = binaryData[dataIndex];
-            b2 = binaryData[dataIndex + 1];
-            l = (byte) (b2 & 0x0f);
-            k = (byte) (b1 & 0x03);
-
-            final byte val1 = ((b1 & SIGN) == 0)
-                    ? (byte) (b1 >> 2)
-                    : (byte) ((b1) >> 2 ^ 0xc0);
-            final byte val2 = ((b2 & SIGN) == 0)
-                    ? (byte) (b2 >> 4)
-                    : (byte) ((b2) >> 4 ^ 0xf0);
-
-            encodedData[encodedIndex] = lookUpBase64Alphabet[val1];
-            encodedData[encodedIndex + 1] = lookUpBase64Alphabet[val2
-                    | (k << 4)];
-            encodedData[encodedIndex + 2] = lookUpBase64Alphabet[l << 2];
-            encodedData[encodedIndex + 3] = PAD;
-        }
-
-        return encodedData;
+        final byte[] decoded = decodeCanonical(base64Data, off, len);
+        if (decoded != null) {
+            return decoded;
+        }
+
+        // not canonical: only now copy, for the historical behavior
+        final byte[] bytes = new byte[len];
+        for (int i = 0; i < len; i++) {
+            final char c = base64Data.charAt(off + i);
+            bytes[i] = (byte) (c < 128 ? c : '?');
+        }
+        return decode(bytes);
     }
 
     /**
-     * Decodes Base64 data into octects
+     * @return The decoded bytes, or {@code null} if the chars are not canonical Base64.
+     */
+    private static byte[] decodeCanonical(final CharSequence src, final int off, final int len) {
+        if (len % FOURBYTE != 0) {
+            return null;
+        }
+        if (len == 0) {
+            return new byte[0];
+        }
+
+        final int end = off + len;
+        final int pads = (src.charAt(end - 1) != PAD ? 0 : (src.charAt(end - 2) != PAD ? 1 : 2));
+        final byte[] decoded = new byte[len / FOURBYTE * 3 - pads];
+
+        final int full = (pads == 0 ? end : end - FOURBYTE);
+        int dp = 0;
+        for (int sp = off; sp < full; sp += FOURBYTE) {
+            final int v0 = valueOf(src.charAt(sp));
+            final int v1 = valueOf(src.charAt(sp + 1));
+            final int v2 = valueOf(src.charAt(sp + 2));
+            final int v3 = valueOf(src.charAt(sp + 3));
+            if ((v0 | v1 | v2 | v3) < 0) {
+                return null;
+            }
+            final int bits = v0 << 18 | v1 << 12 | v2 << 6 | v3;
+            decoded[dp++] = (byte) (bits >> 16);
+            decoded[dp++] = (byte) (bits >> 8);
+            decoded[dp++] = (byte) bits;
+        }
+
+        if (pads > 0) {
+            final int v0 = valueOf(src.charAt(full));
+            final int v1 = valueOf(src.charAt(full + 1));
+            final int v2 = (pads == 1 ? valueOf(src.charAt(full + 2)) : 0);
+            if ((v0 | v1 | v2) < 0) {
+                return null;
+            }
+            final int bits = v0 << 18 | v1 << 12 | v2 << 6;
+            decoded[dp++] = (byte) (bits >> 16);
+            if (pads == 1) {
+                decoded[dp] = (byte) (bits >> 8);
+            }
+        }
+        return decoded;
+    }
+
+    /**
+     * Same as {@link #encode(byte[])}, but arrays of {@link #PARALLEL_THRESHOLD} bytes or more are
+     * split in slices encoded by the shared fork-join pool, straight into the output array.
+     * 
+     * @param binaryData
+     *            Array containing binary data to encode.
+     * @return Base64-encoded data.
+     */
+    public static byte[] encodeParallel(final byte[] binaryData) {
+        if (binaryData.length < PARALLEL_THRESHOLD) {
+            return encode(binaryData);
+        }
+
+        final byte[] encoded = new byte[encodedLength(binaryData.length)];
+        final int quanta = (binaryData.length + 2) / 3;
+        Workers.pool().invoke(new ParallelBase64(Base64Engine.getDefault(), true, binaryData, encoded,
+            new AtomicBoolean(), 0, quanta, binaryData.length));
+        return encoded;
+    }
+
+    /**
+     * Same as {@link #decode(byte[])}, but arrays of {@link #PARALLEL_THRESHOLD} bytes or more are
+     * split in slices decoded by the shared fork-join pool, straight into the output array. Input
+     * that is not canonical Base64 is decoded sequentially, with the results of
+     * {@link #decode(byte[])}.
      * 
      * @param base64Data
      *            Byte array containing Base64 data
      * @return Array containing decoded data.
      */
-    public static byte[] decode(final byte[] base64Data) {
+    public static byte[] decodeParallel(final byte[] base64Data) {
+        final int length = Base64Engine.decodedLength(base64Data, 0, base64Data.length);
+        if (base64Data.length < PARALLEL_THRESHOLD || length < 0) {
+            return decode(base64Data);
+        }
+
+        final byte[] decoded = new byte[length];
+        final AtomicBoolean failed = new AtomicBoolean();
+        Workers.pool().invoke(new ParallelBase64(Base64Engine.getDefault(), false, base64Data, decoded, failed, 0,
+            base64Data.length / 4, base64Data.length));
+        return (failed.get() ? decodeLegacy(base64Data) : decoded);
+    }
+
+    private static byte[] decodeLegacy(final byte[] base64Data) {
         // handle the edge case, so we don't have to worry about it later
         if (base64Data.length == 0) {
             return new byte[0];
@@ -259,4 +348,378 @@ public final class Base64 {
         return decodedData;
     }
 
+    /**
+     * Returns the length of the Base64 encoding of {@code length} bytes, padding included.
+     * 
+     * @param length
+     * @return
+     */
+    public static int encodedLength(final int length) {
+        Preconditions.checkArgument(length >= 0 && length <= MAX_ENCODABLE, "Invalid length: %s", length);
+
+        return (length + 2) / 3 * 4;
+    }
+
+    /**
+     * Encodes {@code srcLen} bytes of {@code src} into {@code dst}, padding included, without
+     * allocating. The output is the same as {@link #encode(byte[])}.
+     * 
+     * @param src
+     * @param srcOff
+     * @param srcLen
+     * @param dst
+     *            Must have room for {@link #encodedLength(int) encodedLength(srcLen)} bytes.
+     * @param dstOff
+     * @return Number of bytes written.
+     */
+    public static int encode(final byte[] src, final int srcOff, final int srcLen, final byte[] dst, final int dstOff) {
+        return Base64Engine.getDefault().encode(src, srcOff, srcLen, dst, dstOff);
+    }
+
+    /**
+     * Encodes {@code srcLen} bytes of {@code src} into {@code dst} as chars, padding included.
+     * 
+     * @param src
+     * @param srcOff
+     * @param srcLen
+     * @param dst
+     *            Must have room for {@link #encodedLength(int) encodedLength(srcLen)} chars.
+     * @param dstOff
+     * @return Number of chars written.
+     * @see #encode(byte[], int, int, byte[], int)
+     */
+    public static int encode(final byte[] src, final int srcOff, final int srcLen, final char[] dst, final int dstOff) {
+        checkRange(src.length, srcOff, srcLen);
+        checkRange(dst.length, dstOff, encodedLength(srcLen));
+
+        final int end = srcOff + srcLen - srcLen % 3;
+        int dp = dstOff;
+        for (int sp = srcOff; sp < end; sp += 3) {
+            final int bits = (src[sp] & 0xff) << 16 | (src[sp + 1] & 0xff) << 8 | (src[sp + 2] & 0xff);
+            dst[dp++] = (char) lookUpBase64Alphabet[bits >>> 18];
+            dst[dp++] = (char) lookUpBase64Alphabet[(bits >>> 12) & 0x3f];
+            dst[dp++] = (char) lookUpBase64Alphabet[(bits >>> 6) & 0x3f];
+            dst[dp++] = (char) lookUpBase64Alphabet[bits & 0x3f];
+        }
+
+        final int remaining = srcOff + srcLen - end;
+        if (remaining > 0) {
+            final int bits = (src[end] & 0xff) << 16 | (remaining == 2 ? (src[end + 1] & 0xff) << 8 : 0);
+            dst[dp++] = (char) lookUpBase64Alphabet[bits >>> 18];
+            dst[dp++] = (char) lookUpBase64Alphabet[(bits >>> 12) & 0x3f];
+            dst[dp++] = (char) (remaining == 2 ? lookUpBase64Alphabet[(bits >>> 6) & 0x3f] : PAD);
+            dst[dp++] = (char) PAD;
+        }
+        return dp - dstOff;
+    }
+
+    /**
+     * Encodes all of {@code src} into {@code dst}, padding included. Same as
+     * {@link #encode(ByteBuffer, ByteBuffer, boolean) encode(src, dst, true)}.
+     * 
+     * @param src
+     * @param dst
+     * @return
+     */
+    public static CoderResult encode(final ByteBuffer src, final ByteBuffer dst) {
+        return encode(src, dst, true);
+    }
+
+    /**
+     * Encodes as much of {@code src} as fits into {@code dst}, heap or direct buffers, without
+     * intermediate arrays. Positions move the way {@link java.nio.charset.CharsetEncoder} does:
+     * {@code src} is advanced past the bytes encoded and {@code dst} past the bytes written. Each
+     * call needs room for 4 bytes in {@code dst} to make progress.
+     * 
+     * @param src
+     * @param dst
+     * @param endOfInput
+     *            {@code true} if {@code src} holds the last bytes, so 1 or 2 bytes left over are
+     *            encoded with padding; if {@code false} they are left in {@code src}.
+     * @return {@link CoderResult#UNDERFLOW} if the input was consumed (but for leftovers, when not
+     *         at the end of input), {@link CoderResult#OVERFLOW} if {@code dst} is full.
+     */
+    public static CoderResult encode(final ByteBuffer src, final ByteBuffer dst, final boolean endOfInput) {
+        if (src.hasArray() && dst.hasArray()) {
+            return encodeArrayLoop(src, dst, endOfInput);
+        }
+        return encodeBufferLoop(src, dst, endOfInput);
+    }
+
+    /**
+     * Decodes all of {@code src} into {@code dst}. Same as
+     * {@link #decode(ByteBuffer, ByteBuffer, boolean) decode(src, dst, true)}.
+     * 
+     * @param src
+     * @param dst
+     * @return
+     */
+    public static CoderResult decode(final ByteBuffer src, final ByteBuffer dst) {
+        return decode(src, dst, true);
+    }
+
+    /**
+     * Decodes as much of {@code src} as fits into {@code dst}, heap or direct buffers, without
+     * intermediate arrays. Positions move the way {@link java.nio.charset.CharsetDecoder} does:
+     * {@code src} is advanced past the 4-char quanta decoded and {@code dst} past the bytes
+     * written. Decoding stops after a padded quantum. Line breaks are not accepted. Each call needs
+     * room for 3 bytes in {@code dst} to make progress.
+     * 
+     * @param src
+     *            Base64 text, as US-ASCII bytes.
+     * @param dst
+     * @param endOfInput
+     *            {@code true} if {@code src} holds the last chars, so an unpadded quantum of 2 or 3
+     *            chars is decoded; if {@code false} it is left in {@code src}.
+     * @return {@link CoderResult#UNDERFLOW} if the input was consumed (but for an incomplete
+     *         quantum, when not at the end of input), {@link CoderResult#OVERFLOW} if {@code dst} is
+     *         full, or a malformed-input result whose length spans from the position of
+     *         {@code src} to the invalid char, inclusive.
+     */
+    public static CoderResult decode(final ByteBuffer src, final ByteBuffer dst, final boolean endOfInput) {
+        if (src.hasArray() && dst.hasArray()) {
+            return decodeArrayLoop(src, dst, endOfInput);
+        }
+        return decodeBufferLoop(src, dst, endOfInput);
+    }
+
+    private static CoderResult encodeArrayLoop(final ByteBuffer src, final ByteBuffer dst, final boolean endOfInput) {
+        final byte[] sa = src.array();
+        final byte[] da = dst.array();
+        final int sp = src.arrayOffset() + src.position();
+        final int sl = src.arrayOffset() + src.limit();
+        final int dp = dst.arrayOffset() + dst.position();
+        final int dl = dst.arrayOffset() + dst.limit();
+
+        final int triplets = Math.min((sl - sp) / 3, (dl - dp) / 4);
+        int consumed = triplets * 3;
+        int written = encode(sa, sp, consumed, da, dp);
+
+        CoderResult result = CoderResult.UNDERFLOW;
+        final int remaining = sl - sp - consumed;
+        if (remaining >= 3) {
+            result = CoderResult.OVERFLOW;
+        } else if (remaining > 0 && endOfInput) {
+            if (dl - dp - written < 4) {
+                result = CoderResult.OVERFLOW;
+            } else {
+                written += encode(sa, sp + consumed, remaining, da, dp + written);
+                consumed += remaining;
+            }
+        }
+
+        src.position(src.position() + consumed);
+        dst.position(dst.position() + written);
+        return result;
+    }
+
+    private static CoderResult encodeBufferLoop(final ByteBuffer src, final ByteBuffer dst, final boolean endOfInput) {
+        int sp = src.position();
+        final int sl = src.limit();
+        int dp = dst.position();
+        final int dl = dst.limit();
+
+        for (int triplets = Math.min((sl - sp) / 3, (dl - dp) / 4); triplets > 0; triplets--) {
+            final int bits = (src.get(sp) & 0xff) << 16 | (src.get(sp + 1) & 0xff) << 8 | (src.get(sp + 2) & 0xff);
+            dst.put(dp, lookUpBase64Alphabet[bits >>> 18]);
+            dst.put(dp + 1, lookUpBase64Alphabet[(bits >>> 12) & 0x3f]);
+            dst.put(dp + 2, lookUpBase64Alphabet[(bits >>> 6) & 0x3f]);
+            dst.put(dp + 3, lookUpBase64Alphabet[bits & 0x3f]);
+            sp += 3;
+            dp += 4;
+        }
+
+        CoderResult result = CoderResult.UNDERFLOW;
+        final int remaining = sl - sp;
+        if (remaining >= 3) {
+            result = CoderResult.OVERFLOW;
+        } else if (remaining > 0 && endOfInput) {
+            if (dl - dp < 4) {
+                result = CoderResult.OVERFLOW;
+            } else {
+                final int bits = (src.get(sp) & 0xff) << 16 | (remaining == 2 ? (src.get(sp + 1) & 0xff) << 8 : 0);
+                dst.put(dp, lookUpBase64Alphabet[bits >>> 18]);
+                dst.put(dp + 1, lookUpBase64Alphabet[(bits >>> 12) & 0x3f]);
+                dst.put(dp + 2, (remaining == 2 ? lookUpBase64Alphabet[(bits >>> 6) & 0x3f] : PAD));
+                dst.put(dp + 3, PAD);
+                sp += remaining;
+                dp += 4;
+            }
+        }
+
+        src.position(sp);
+        dst.position(dp);
+        return result;
+    }
+
+    private static CoderResult decodeArrayLoop(final ByteBuffer src, final ByteBuffer dst, final boolean endOfInput) {
+        final byte[] sa = src.array();
+        final byte[] da = dst.array();
+        final int so = src.arrayOffset();
+        final int doff = dst.arrayOffset();
+        int sp = so + src.position();
+        final int sl = so + src.limit();
+        int dp = doff + dst.position();
+        final int dl = doff + dst.limit();
+
+        CoderResult result = CoderResult.UNDERFLOW;
+        while (sp < sl) {
+            final int remaining = sl - sp;
+            if (remaining < 4 && !endOfInput) {
+                break;
+            }
+
+            final int v0 = valueOf(sa[sp] & 0xff);
+            final int v1 = (remaining > 1 ? valueOf(sa[sp + 1] & 0xff) : -1);
+            final int c2 = (remaining > 2 ? sa[sp + 2] : PAD);
+            final int c3 = (remaining > 3 ? sa[sp + 3] : PAD);
+            final int v2 = valueOf(c2 & 0xff);
+            final int v3 = valueOf(c3 & 0xff);
+
+            if ((v0 | v1 | v2 | v3) >= 0) {
+                if (dl - dp < 3) {
+                    result = CoderResult.OVERFLOW;
+                    break;
+                }
+                final int bits = v0 << 18 | v1 << 12 | v2 << 6 | v3;
+                da[dp++] = (byte) (bits >> 16);
+                da[dp++] = (byte) (bits >> 8);
+                da[dp++] = (byte) bits;
+                sp += 4;
+                continue;
+            }
+
+            final int length = malformedLength(v0, v1, c2, v2, c3, remaining);
+            if (length > 0) {
+                result = CoderResult.malformedForLength(length);
+                break;
+            }
+
+            // padded (or, at the end of input, unpadded) last quantum
+            final int n = (v2 < 0 ? 1 : 2);
+            if (dl - dp < n) {
+                result = CoderResult.OVERFLOW;
+                break;
+            }
+            final int bits = v0 << 18 | v1 << 12 | (v2 < 0 ? 0 : v2 << 6);
+            da[dp++] = (byte) (bits >> 16);
+            if (n == 2) {
+                da[dp++] = (byte) (bits >> 8);
+            }
+            sp += Math.min(4, remaining);
+            if (sp < sl) {
+                result = CoderResult.malformedForLength(1);
+            }
+            break;
+        }
+
+        src.position(sp - so);
+        dst.position(dp - doff);
+        return result;
+    }
+
+    private static CoderResult decodeBufferLoop(final ByteBuffer src, final ByteBuffer dst, final boolean endOfInput) {
+        int sp = src.position();
+        final int sl = src.limit();
+        int dp = dst.position();
+        final int dl = dst.limit();
+
+        CoderResult result = CoderResult.UNDERFLOW;
+        while (sp < sl) {
+            final int remaining = sl - sp;
+            if (remaining < 4 && !endOfInput) {
+                break;
+            }
+
+            final int v0 = valueOf(src.get(sp) & 0xff);
+            final int v1 = (remaining > 1 ? valueOf(src.get(sp + 1) & 0xff) : -1);
+            final int c2 = (remaining > 2 ? src.get(sp + 2) : PAD);
+            final int c3 = (remaining > 3 ? src.get(sp + 3) : PAD);
+            final int v2 = valueOf(c2 & 0xff);
+            final int v3 = valueOf(c3 & 0xff);
+
+            if ((v0 | v1 | v2 | v3) >= 0) {
+                if (dl - dp < 3) {
+                    result = CoderResult.OVERFLOW;
+                    break;
+                }
+                final int bits = v0 << 18 | v1 << 12 | v2 << 6 | v3;
+                dst.put(dp, (byte) (bits >> 16));
+                dst.put(dp + 1, (byte) (bits >> 8));
+                dst.put(dp + 2, (byte) bits);
+                sp += 4;
+                dp += 3;
+                continue;
+            }
+
+            final int length = malformedLength(v0, v1, c2, v2, c3, remaining);
+            if (length > 0) {
+                result = CoderResult.malformedForLength(length);
+                break;
+            }
+
+            final int n = (v2 < 0 ? 1 : 2);
+            if (dl - dp < n) {
+                result = CoderResult.OVERFLOW;
+                break;
+            }
+            final int bits = v0 << 18 | v1 << 12 | (v2 < 0 ? 0 : v2 << 6);
+            dst.put(dp++, (byte) (bits >> 16));
+            if (n == 2) {
+                dst.put(dp++, (byte) (bits >> 8));
+            }
+            sp += Math.min(4, remaining);
+            if (sp < sl) {
+                result = CoderResult.malformedForLength(1);
+            }
+            break;
+        }
+
+        src.position(sp);
+        dst.position(dp);
+        return result;
+    }
+
+    /**
+     * Checks a quantum that is not 4 alphabet chars: valid only as {@code xx==}, {@code xxx=}, or
+     * an unpadded {@code xx}/{@code xxx} at the end of the input (there, missing chars are read as
+     * pads).
+     * 
+     * @return 0 (zero) if valid, else the number of chars up to the invalid one, inclusive.
+     */
+    private static int malformedLength(final int v0,
+                                       final int v1,
+                                       final int c2,
+                                       final int v2,
+                                       final int c3,
+                                       final int remaining) {
+        if (v0 < 0) {
+            return 1;
+        }
+        if (v1 < 0) {
+            return Math.min(2, remaining);
+        }
+        if (v2 < 0 && c2 != PAD) {
+            return 3;
+        }
+        if (c3 != PAD || (v2 < 0 && remaining == 3)) {
+            return Math.min(4, remaining);
+        }
+        return 0;
+    }
+
+    /**
+     * Returns the 6-bit value of a Base64 char, or -1 if it is not in the alphabet (the pad
+     * included).
+     */
+    static int valueOf(final int c) {
+        return (c >= 0 && c < BASELENGTH ? base64Alphabet[c] : -1);
+    }
+
+    static void checkRange(final int length, final int off, final int len) {
+        if (off < 0 || len < 0 || off > length - len) {
+            throw new IndexOutOfBoundsException("off: " + off + ", len: " + len + ", length: " + length);
+        }
+    }
+
 }
@@ -0,0 +1,215 @@
+/*
+ * JINAH Project - Java Is Not A Hammer
+ * http://obadaro.com/jinah
+ *
+ * Copyright (C) 2010-2012 Roberto Badaro
+ * and individual contributors by the @authors tag.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.obadaro.jinah.common.util.encoding;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.CoderResult;
+
+/**
+ * Resumable Base64 decoder for chunks of input as they come from a non-blocking channel. Unlike
+ * {@link Base64#decode(ByteBuffer, ByteBuffer, boolean)}, every char given is consumed: up to 3
+ * chars of an incomplete quantum are kept in the decoder until the next call. It never does I/O,
+ * so it never blocks.
+ * <p>
+ * Line breaks and spaces are skipped; the padding is optional at the end of the input, but must be
+ * complete if present. Not thread-safe: one decoder per message.
+ * </p>
+ *
+ * <pre>
+ * <code>
+ * // in the read handler of a selector loop
+ * channel.read(in);
+ * in.flip();
+ * CoderResult result = decoder.decode(in, out, endOfMessage);
+ * if (result.isError()) {
+ *     // bad input at decoder.getPosition()
+ * }
+ * in.compact();
+ * </code>
+ * </pre>
+ *
+ * @author Roberto Badaro
+ */
+public final class Base64ChannelDecoder {
+
+    private int bits;
+    private int count;
+    private int padsLeft = -1;
+    private long position;
+
+    /**
+     * Decodes as much of {@code src} as fits into {@code dst}. Positions move the way
+     * {@link java.nio.charset.CharsetDecoder} does.
+     *
+     * @param src
+     *            Base64 text, as US-ASCII bytes.
+     * @param dst
+     * @param endOfInput
+     *            {@code true} if no more input follows {@code src}, so the last quantum may be
+     *            decoded without padding.
+     * @return {@link CoderResult#UNDERFLOW} if all of {@code src} was consumed,
+     *         {@link CoderResult#OVERFLOW} if {@code dst} is full, or a malformed-input result of
+     *         length 1 (one): {@code src} is then positioned at the invalid char, or at its limit if
+     *         the input ends in the middle of a quantum or of its padding.
+     */
+    public CoderResult decode(final ByteBuffer src, final ByteBuffer dst, final boolean endOfInput) {
+
+        int sp = src.position();
+        final int sl = src.limit();
+        int dp = dst.position();
+        final int dl = dst.limit();
+        CoderResult result = CoderResult.UNDERFLOW;
+
+        while (sp < sl) {
+            if (count == 0 && padsLeft < 0) {
+                // whole quanta, while there is room
+                while (sl - sp >= 4 && dl - dp >= 3) {
+                    final int v0 = Base64.valueOf(src.get(sp) & 0xff);
+                    final int v1 = Base64.valueOf(src.get(sp + 1) & 0xff);
+                    final int v2 = Base64.valueOf(src.get(sp + 2) & 0xff);
+                    final int v3 = Base64.valueOf(src.get(sp + 3) & 0xff);
+                    if ((v0 | v1 | v2 | v3) < 0) {
+                        break;
+                    }
+                    final int b = v0 << 18 | v1 << 12 | v2 << 6 | v3;
+                    dst.put(dp++, (byte) (b >> 16));
+                    dst.put(dp++, (byte) (b >> 8));
+                    dst.put(dp++, (byte) b);
+                    sp += 4;
+                }
+                if (sp == sl) {
+                    break;
+                }
+            }
+
+            final int c = src.get(sp) & 0xff;
+            final int v = Base64.valueOf(c);
+            if (v >= 0 && padsLeft < 0) {
+                if (count == 3) {
+                    if (dl - dp < 3) {
+                        result = CoderResult.OVERFLOW;
+                        break;
+                    }
+                    final int b = bits << 6 | v;
+                    dst.put(dp++, (byte) (b >> 16));
+                    dst.put(dp++, (byte) (b >> 8));
+                    dst.put(dp++, (byte) b);
+                    bits = 0;
+                    count = 0;
+                } else {
+                    bits = bits << 6 | v;
+                    count++;
+                }
+            } else if (c == '=' && padsLeft > 0) {
+                padsLeft--;
+            } else if (c == '=' && padsLeft < 0 && count >= 2) {
+                if (dl - dp < count - 1) {
+                    result = CoderResult.OVERFLOW;
+                    break;
+                }
+                dp = flush(dst, dp);
+                padsLeft = 3 - count;
+                count = 0;
+            } else if (c != ' ' && c != '\t' && c != '\r' && c != '\n') {
+                result = CoderResult.malformedForLength(1);
+                break;
+            }
+            sp++;
+        }
+
+        if (sp == sl && endOfInput && result == CoderResult.UNDERFLOW) {
+            // padding is either absent or complete, as in "hA==" but not "hA="
+            if (count == 1 || padsLeft > 0) {
+                result = CoderResult.malformedForLength(1);
+            } else if (count > 1) {
+                if (dl - dp < count - 1) {
+                    result = CoderResult.OVERFLOW;
+                } else {
+                    dp = flush(dst, dp);
+                    count = 0;
+                    padsLeft = 0;
+                }
+            }
+        }
+
+        position += sp - src.position();
+        src.position(sp);
+        dst.position(dp);
+        return result;
+    }
+
+    /**
+     * @return Number of chars consumed since creation or {@link #reset()}; the index of the
+     *         invalid char after a malformed-input result.
+     */
+    public long getPosition() {
+
+        return position;
+    }
+
+    /**
+     * @return Number of chars of an incomplete quantum kept for the next call.
+     */
+    public int getPending() {
+
+        return count;
+    }
+
+    /**
+     * @return {@code true} if the padding, or the end of input, was seen: only whitespace may
+     *         follow.
+     */
+    public boolean isFinished() {
+
+        return padsLeft >= 0;
+    }
+
+    /**
+     * Makes the decoder ready for a new message.
+     */
+    public void reset() {
+
+        bits = 0;
+        count = 0;
+        padsLeft = -1;
+        position = 0;
+    }
+
+    /**
+     * Writes the bytes of an incomplete quantum of 2 or 3 chars.
+     */
+    private int flush(final ByteBuffer dst, int dp) {
+
+        if (count == 2) {
+            dst.put(dp++, (byte) (bits >> 4));
+        } else {
+            dst.put(dp++, (byte) (bits >> 10));
+            dst.put(dp++, (byte) (bits >> 2));
+        }
+        return dp;
+    }
+
+    @Override
+    public String toString() {
+
+        return "Base64ChannelDecoder[position=" + position + ", pending=" + count + "]";
+    }
+
+}
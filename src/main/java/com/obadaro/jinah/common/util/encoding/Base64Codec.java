@@ -0,0 +1,436 @@
+/*
+ * JINAH Project - Java Is Not A Hammer
+ * http://obadaro.com/jinah
+ *
+ * Copyright (C) 2010-2012 Roberto Badaro
+ * and individual contributors by the @authors tag.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.obadaro.jinah.common.util.encoding;
+
+import java.util.Arrays;
+
+import com.obadaro.jinah.common.util.Preconditions;
+
+/**
+ * Immutable Base64 variant: alphabet, padding, and line length and separator. Encoding writes the
+ * final output in a single pass - URL-safe chars, line separators and all - with no replacing or
+ * copying afterwards.
+ * <p>
+ * Decoding is strict about the alphabet and the padding: a padded codec requires the padding, an
+ * unpadded one refuses it. When lines are on, {@code '\r'}, {@code '\n'} and the chars of the
+ * separator are skipped anywhere. A {@link #lenient()} codec also skips spaces and tabs, and takes
+ * the padding as optional.
+ * </p>
+ *
+ * <pre>
+ * <code>
+ * String token = new String(Base64Codec.URL_SAFE_NO_PADDING.encode(bytes), "US-ASCII");
+ * byte[] mail = Base64Codec.MIME.encode(attachment);
+ * </code>
+ * </pre>
+ *
+ * @author Roberto Badaro
+ */
+public final class Base64Codec extends AbstractCodec {
+
+    /**
+     * RFC 4648 alphabet, padded, no lines. Same output as {@link Base64#encode(byte[])}.
+     */
+    public static final Base64Codec RFC4648 = new Base64Codec(Base64Engine.STANDARD_ALPHABET, true, 0, "", false);
+
+    /**
+     * RFC 4648 "URL and filename safe" alphabet ({@code '-'} and {@code '_'}), padded.
+     */
+    public static final Base64Codec URL_SAFE = new Base64Codec(Base64Engine.alphabet('-', '_'), true, 0, "", false);
+
+    /**
+     * URL-safe alphabet without padding, as in JSON Web Tokens.
+     */
+    public static final Base64Codec URL_SAFE_NO_PADDING = URL_SAFE.withoutPadding();
+
+    /**
+     * RFC 2045 alphabet, padded, in lines of 76 chars separated by CRLF. No separator after the
+     * last line.
+     */
+    public static final Base64Codec MIME = RFC4648.withLines(76, "\r\n");
+
+    private final byte[] alphabet;
+    private final byte[] values;
+    private final Base64Engine engine;
+    private final boolean padding;
+    private final int lineLength;
+    private final String lineSeparator;
+    private final byte[] separator;
+    private final boolean lenient;
+    private final boolean[] skipped;
+
+    private Base64Codec(final byte[] alphabet,
+                        final boolean padding,
+                        final int lineLength,
+                        final String lineSeparator,
+                        final boolean lenient) {
+
+        super("Base64", 3, 4);
+
+        this.alphabet = alphabet;
+        this.values = Base64Engine.values(alphabet);
+        // the standard alphabet goes to the default engine, picked at each call
+        this.engine = (Arrays.equals(alphabet, Base64Engine.STANDARD_ALPHABET) ? null : new SwarBase64Engine(alphabet));
+        this.padding = padding;
+        this.lineLength = lineLength;
+        this.lineSeparator = lineSeparator;
+        this.lenient = lenient;
+
+        this.separator = new byte[lineSeparator.length()];
+        this.skipped = new boolean[256];
+        for (int i = 0; i < separator.length; i++) {
+            final char c = lineSeparator.charAt(i);
+            Preconditions.checkArgument(c < 128 && c != '=' && values[c] < 0, "Invalid line separator: %s",
+                lineSeparator);
+            separator[i] = (byte) c;
+            skipped[c] = true;
+        }
+        if (lineLength > 0 || lenient) {
+            skipped['\r'] = true;
+            skipped['\n'] = true;
+        }
+        if (lenient) {
+            skipped[' '] = true;
+            skipped['\t'] = true;
+        }
+    }
+
+    /**
+     * Creates a padded codec, without lines, of a custom alphabet.
+     *
+     * @param alphabet
+     *            64 distinct ASCII chars, {@code '='} not included. The char at index {@code i}
+     *            encodes the value {@code i}.
+     * @return
+     */
+    public static Base64Codec of(final String alphabet) {
+
+        Preconditions.checkArgument(alphabet != null && alphabet.length() == 64, "alphabet must have 64 chars.");
+
+        final byte[] bytes = new byte[64];
+        final boolean[] seen = new boolean[128];
+        for (int i = 0; i < 64; i++) {
+            final char c = alphabet.charAt(i);
+            Preconditions.checkArgument(c < 128 && c != '=' && c > ' ' && !seen[c], "Invalid alphabet: %s", alphabet);
+            seen[c] = true;
+            bytes[i] = (byte) c;
+        }
+        return new Base64Codec(bytes, true, 0, "", false);
+    }
+
+    /**
+     * @return A copy of this codec that neither writes nor accepts padding.
+     */
+    public Base64Codec withoutPadding() {
+
+        return new Base64Codec(alphabet, false, lineLength, lineSeparator, lenient);
+    }
+
+    /**
+     * @return A copy of this codec that writes and requires padding.
+     */
+    public Base64Codec withPadding() {
+
+        return new Base64Codec(alphabet, true, lineLength, lineSeparator, lenient);
+    }
+
+    /**
+     * Returns a copy of this codec that decodes leniently: {@code ' '}, {@code '\t'}, {@code '\r'}
+     * and {@code '\n'} are skipped anywhere, and the padding is optional - but complete, and last,
+     * if present. Encoding is not affected. {@link Base64InputStream} decodes with
+     * {@code RFC4648.lenient()}.
+     *
+     * @return
+     */
+    public Base64Codec lenient() {
+
+        return new Base64Codec(alphabet, padding, lineLength, lineSeparator, true);
+    }
+
+    /**
+     * Returns a copy of this codec that breaks the output in lines.
+     *
+     * @param lineLength
+     *            Chars per line, rounded down to a multiple of 4. 0 (zero) for no lines.
+     * @param lineSeparator
+     *            ASCII chars written between lines, not in the alphabet.
+     * @return
+     */
+    public Base64Codec withLines(final int lineLength, final String lineSeparator) {
+
+        Preconditions.checkArgument(lineLength == 0 || lineLength >= 4, "lineLength must be 0 or >= 4.");
+        Preconditions.checkArgument(lineSeparator != null, "lineSeparator can't be null.");
+        Preconditions.checkArgument(lineLength == 0 || lineSeparator.length() > 0, "lineSeparator can't be empty.");
+
+        return new Base64Codec(alphabet, padding, lineLength / 4 * 4, (lineLength > 0 ? lineSeparator : ""), lenient);
+    }
+
+    public boolean isPadding() {
+
+        return padding;
+    }
+
+    /**
+     * @return Chars per line; 0 (zero) if the output is not broken in lines.
+     */
+    public int getLineLength() {
+
+        return lineLength;
+    }
+
+    public String getLineSeparator() {
+
+        return lineSeparator;
+    }
+
+    public boolean isLenient() {
+
+        return lenient;
+    }
+
+    /**
+     * Returns the length of the encoding of {@code length} bytes, padding and line separators
+     * included.
+     *
+     * @param length
+     * @return
+     */
+    @Override
+    public int encodedLength(final int length) {
+
+        Preconditions.checkArgument(length >= 0, "Invalid length: %s", length);
+
+        final long chars = (padding ? (length + 2L) / 3 * 4 : (length * 4L + 2) / 3);
+        final long total = chars + (lineLength > 0 && chars > 0 ? (chars - 1) / lineLength * separator.length : 0);
+        Preconditions.checkArgument(total <= Integer.MAX_VALUE, "Invalid length: %s", length);
+        return (int) total;
+    }
+
+    /**
+     * Returns an upper bound of the number of bytes {@code length} chars decode to.
+     *
+     * @param length
+     * @return
+     */
+    @Override
+    public int maxDecodedLength(final int length) {
+
+        Preconditions.checkArgument(length >= 0, "Invalid length: %s", length);
+
+        return (int) (length * 3L / 4);
+    }
+
+    /**
+     * Encodes {@code srcLen} bytes of {@code src} into {@code dst}, without allocating.
+     *
+     * @param src
+     * @param srcOff
+     * @param srcLen
+     * @param dst
+     *            Must have room for {@link #encodedLength(int) encodedLength(srcLen)} bytes.
+     * @param dstOff
+     * @return Number of bytes written.
+     */
+    @Override
+    public int encode(final byte[] src, final int srcOff, final int srcLen, final byte[] dst, final int dstOff) {
+
+        Base64.checkRange(src.length, srcOff, srcLen);
+        Base64.checkRange(dst.length, dstOff, encodedLength(srcLen));
+
+        final Base64Engine e = engine();
+        final int end = srcOff + srcLen;
+        int sp = srcOff;
+        int dp = dstOff;
+
+        if (lineLength > 0) {
+            final int lineBytes = lineLength / 4 * 3;
+            while (end - sp > lineBytes) {
+                dp += e.encode(src, sp, lineBytes, dst, dp);
+                System.arraycopy(separator, 0, dst, dp, separator.length);
+                dp += separator.length;
+                sp += lineBytes;
+            }
+        }
+
+        final int full = (end - sp) / 3 * 3;
+        dp += e.encode(src, sp, full, dst, dp);
+        sp += full;
+
+        if (padding) {
+            dp += ScalarBase64Engine.encodeTail(alphabet, src, sp, end - sp, dst, dp);
+        } else if (sp < end) {
+            final int bits = (src[sp] & 0xff) << 16 | (end - sp == 2 ? (src[sp + 1] & 0xff) << 8 : 0);
+            dst[dp++] = alphabet[bits >>> 18];
+            dst[dp++] = alphabet[(bits >>> 12) & 0x3f];
+            if (end - sp == 2) {
+                dst[dp++] = alphabet[(bits >>> 6) & 0x3f];
+            }
+        }
+        return dp - dstOff;
+    }
+
+    /**
+     * Decodes {@code srcLen} chars of {@code src} into {@code dst}, without allocating.
+     *
+     * @param src
+     * @param srcOff
+     * @param srcLen
+     * @param dst
+     *            Must have room for {@link #maxDecodedLength(int) maxDecodedLength(srcLen)} bytes.
+     * @param dstOff
+     * @return Number of bytes written, or -1 (minus one) if {@code src} is not valid for this codec.
+     *         In that case the contents of {@code dst} are undefined.
+     */
+    @Override
+    public int decode(final byte[] src, final int srcOff, final int srcLen, final byte[] dst, final int dstOff) {
+
+        Base64.checkRange(src.length, srcOff, srcLen);
+        Base64.checkRange(dst.length, dstOff, maxDecodedLength(srcLen));
+
+        final Base64Engine e = engine();
+        if (lineLength == 0 && (padding || lenient)) {
+            final int n = e.decode(src, srcOff, srcLen, dst, dstOff);
+            if (n >= 0 || !lenient) {
+                return n;
+            }
+        }
+
+        final int end = srcOff + srcLen;
+        int sp = srcOff;
+        int dp = dstOff;
+
+        if (lineLength > 0) {
+            // whole lines go to the engine; the last one, or anything unexpected, to the loop below
+            final int lineBytes = lineLength / 4 * 3;
+            while (end - sp > lineLength && skipped[src[sp + lineLength] & 0xff]
+                    && e.decode(src, sp, lineLength, dst, dp) == lineBytes) {
+                dp += lineBytes;
+                sp += lineLength;
+                while (sp < end && skipped[src[sp] & 0xff]) {
+                    sp++;
+                }
+            }
+        } else if (!lenient) {
+            // unpadded: the engine takes the whole quanta, padding refused
+            final int full = srcLen / 4 * 4;
+            if (e.decode(src, sp, full, dst, dp) != full / 4 * 3) {
+                return -1;
+            }
+            sp += full;
+            dp += full / 4 * 3;
+        }
+
+        final int dpEnd = decodeSlow(src, sp, end, dst, dp);
+        return (dpEnd < 0 ? -1 : dpEnd - dstOff);
+    }
+
+    /**
+     * Decodes one char at a time.
+     *
+     * @return End of the output or, if the input is invalid, the complement ({@code ~}) of the
+     *         index of the first invalid char; {@code ~end} if the input is cut short.
+     */
+    private int decodeSlow(final byte[] src, final int from, final int end, final byte[] dst, int dp) {
+
+        int bits = 0;
+        int count = 0;
+        int pads = 0;
+        for (int sp = from; sp < end; sp++) {
+            final int c = src[sp] & 0xff;
+            final int v = values[c];
+            if (v >= 0 && pads == 0) {
+                bits = bits << 6 | v;
+                if (++count == 4) {
+                    dst[dp++] = (byte) (bits >> 16);
+                    dst[dp++] = (byte) (bits >> 8);
+                    dst[dp++] = (byte) bits;
+                    bits = 0;
+                    count = 0;
+                }
+            } else if (c == '=' && (padding || lenient) && count + pads >= 2 && count + pads < 4) {
+                pads++;
+            } else if (!skipped[c]) {
+                return ~sp;
+            }
+        }
+
+        if (count == 0) {
+            return dp;
+        }
+        if (count == 1 || ((padding && !lenient || pads > 0) && count + pads != 4)) {
+            return ~end;
+        }
+        bits <<= 6 * (4 - count);
+        dst[dp++] = (byte) (bits >> 16);
+        if (count == 3) {
+            dst[dp++] = (byte) (bits >> 8);
+        }
+        return dp;
+    }
+
+    /**
+     * Rescans the chunk one char at a time, for the exact index of the error.
+     */
+    @Override
+    int errorIndex(final byte[] chunk, final int take, final boolean end, final byte[] scratch) {
+
+        final int dp = decodeSlow(chunk, 0, take, scratch, 0);
+        // valid, but not whole quanta before the end: the padding came early
+        return (dp < 0 ? ~dp : take);
+    }
+
+    @Override
+    int encodeUnit() {
+
+        return (lineLength > 0 ? lineLength / 4 * 3 : 3);
+    }
+
+    @Override
+    int separate(final byte[] dst, final int dp) {
+
+        System.arraycopy(separator, 0, dst, dp, separator.length);
+        return separator.length;
+    }
+
+    @Override
+    int separatorLength() {
+
+        return separator.length;
+    }
+
+    @Override
+    boolean isSkipped(final int c) {
+
+        return skipped[c];
+    }
+
+    private Base64Engine engine() {
+
+        return (engine != null ? engine : Base64Engine.getDefault());
+    }
+
+    @Override
+    public String toString() {
+
+        return "Base64Codec[" + new String(alphabet, 62, 2) + (padding ? ", padded" : "")
+                + (lineLength > 0 ? ", lines of " + lineLength : "") + (lenient ? ", lenient" : "") + "]";
+    }
+
+}
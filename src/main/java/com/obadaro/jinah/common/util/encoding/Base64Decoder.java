@@ -0,0 +1,290 @@
+/*
+ * JINAH Project - Java Is Not A Hammer
+ * http://obadaro.com/jinah
+ *
+ * Copyright (C) 2010-2012 Roberto Badaro
+ * and individual contributors by the @authors tag.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.obadaro.jinah.common.util.encoding;
+
+import java.util.Arrays;
+
+import com.obadaro.jinah.common.util.Preconditions;
+
+/**
+ * Base64 decoder that validates while decoding, in a single pass, replacing
+ * {@link Base64#isArrayByteBase64(byte[])} followed by {@link Base64#decode(byte[])}.
+ * <p>
+ * Invalid input is not an exception: {@link #decode(byte[], int, int, byte[], int)} returns -1
+ * (minus one), and the decoder keeps the {@link Error kind} and the index of the first error, the
+ * way {@link java.text.ParsePosition} does. Instances are cheap and not thread-safe.
+ * </p>
+ * <p>
+ * A {@link #strict()} decoder accepts canonical RFC 4648 input only: padded, without whitespace,
+ * and with the unused bits of the last quantum set to zero. A {@link #lenient()} one also skips
+ * spaces, tabs, line feeds and carriage returns anywhere.
+ * </p>
+ *
+ * <pre>
+ * <code>
+ * Base64Decoder decoder = Base64Decoder.strict();
+ * int n = decoder.decode(src, 0, src.length, buffer, 0);
+ * if (n &lt; 0) {
+ *     log.warn("Bad Base64: %s at %s", decoder.getError(), decoder.getErrorIndex());
+ * }
+ * </code>
+ * </pre>
+ *
+ * @author Roberto Badaro
+ */
+public final class Base64Decoder {
+
+    public enum Error {
+
+        /**
+         * A char that is neither in the alphabet nor padding (nor whitespace, when lenient).
+         */
+        INVALID_CHAR,
+
+        /**
+         * Padding where a quantum can't end, or data after the padding.
+         */
+        INVALID_PADDING,
+
+        /**
+         * The input ends in the middle of a quantum.
+         */
+        TRUNCATED,
+
+        /**
+         * Strict only: the last char before the padding has bits set that no byte uses.
+         */
+        TRAILING_BITS
+    }
+
+    private static final byte INVALID = -1;
+    private static final byte WHITESPACE = -2;
+    private static final byte PAD = -3;
+
+    /**
+     * Value of each byte in the alphabet, or a negative class.
+     */
+    private static final byte[] STRICT_CLASSES = classes(false);
+    private static final byte[] LENIENT_CLASSES = classes(true);
+
+    private final boolean lenient;
+    private final byte[] classes;
+    private Error error;
+    private int errorIndex = -1;
+
+    private Base64Decoder(final boolean lenient) {
+
+        this.lenient = lenient;
+        this.classes = (lenient ? LENIENT_CLASSES : STRICT_CLASSES);
+    }
+
+    /**
+     * @return A decoder of canonical RFC 4648 input.
+     */
+    public static Base64Decoder strict() {
+
+        return new Base64Decoder(false);
+    }
+
+    /**
+     * @return A decoder that skips whitespace.
+     */
+    public static Base64Decoder lenient() {
+
+        return new Base64Decoder(true);
+    }
+
+    public boolean isLenient() {
+
+        return lenient;
+    }
+
+    /**
+     * @return The first error of the last decoding; {@code null} if it succeeded.
+     */
+    public Error getError() {
+
+        return error;
+    }
+
+    /**
+     * @return Index in the input of the first error of the last decoding - the end of the input
+     *         for {@link Error#TRUNCATED} - or -1 (minus one) if it succeeded.
+     */
+    public int getErrorIndex() {
+
+        return errorIndex;
+    }
+
+    /**
+     * Returns the room {@link #decode(byte[], int, int, byte[], int)} needs in {@code dst} for
+     * {@code length} chars.
+     *
+     * @param length
+     * @return
+     */
+    public static int maxDecodedLength(final int length) {
+
+        Preconditions.checkArgument(length >= 0, "Invalid length: %s", length);
+
+        return length / 4 * 3;
+    }
+
+    /**
+     * Decodes {@code src} into a new array.
+     *
+     * @param src
+     * @return
+     * @throws IllegalArgumentException
+     *             If {@code src} is invalid.
+     */
+    public byte[] decode(final byte[] src) {
+
+        final byte[] dst = new byte[maxDecodedLength(src.length)];
+        final int n = decode(src, 0, src.length, dst, 0);
+        Preconditions.checkArgument(n >= 0, "Invalid Base64 input: %s at index %s", error, errorIndex);
+        return (n == dst.length ? dst : Arrays.copyOf(dst, n));
+    }
+
+    /**
+     * Validates and decodes {@code srcLen} chars of {@code src} into {@code dst}, without
+     * allocating or throwing on invalid input.
+     *
+     * @param src
+     * @param srcOff
+     * @param srcLen
+     * @param dst
+     *            Must have room for {@link #maxDecodedLength(int) maxDecodedLength(srcLen)} bytes.
+     * @param dstOff
+     * @return Number of bytes written, or -1 (minus one) if {@code src} is invalid. In that case
+     *         see {@link #getError()} and {@link #getErrorIndex()}; the contents of {@code dst} are
+     *         undefined.
+     */
+    public int decode(final byte[] src, final int srcOff, final int srcLen, final byte[] dst, final int dstOff) {
+
+        Base64.checkRange(src.length, srcOff, srcLen);
+        Base64.checkRange(dst.length, dstOff, maxDecodedLength(srcLen));
+
+        error = null;
+        errorIndex = -1;
+
+        final byte[] classes = this.classes;
+        final int end = srcOff + srcLen;
+        int sp = srcOff;
+        int dp = dstOff;
+        int bits = 0;
+        int count = 0;
+        int pads = 0;
+
+        while (sp < end) {
+            if (count == 0) {
+                // whole quanta, until anything else shows up
+                while (end - sp >= 4) {
+                    final int v0 = classes[src[sp] & 0xff];
+                    final int v1 = classes[src[sp + 1] & 0xff];
+                    final int v2 = classes[src[sp + 2] & 0xff];
+                    final int v3 = classes[src[sp + 3] & 0xff];
+                    if ((v0 | v1 | v2 | v3) < 0) {
+                        break;
+                    }
+                    final int b = v0 << 18 | v1 << 12 | v2 << 6 | v3;
+                    dst[dp++] = (byte) (b >> 16);
+                    dst[dp++] = (byte) (b >> 8);
+                    dst[dp++] = (byte) b;
+                    sp += 4;
+                }
+                if (sp == end) {
+                    break;
+                }
+            }
+
+            final int v = classes[src[sp] & 0xff];
+            if (v >= 0) {
+                if (pads > 0) {
+                    return fail(Error.INVALID_PADDING, sp);
+                }
+                bits = bits << 6 | v;
+                if (++count == 4) {
+                    dst[dp++] = (byte) (bits >> 16);
+                    dst[dp++] = (byte) (bits >> 8);
+                    dst[dp++] = (byte) bits;
+                    bits = 0;
+                    count = 0;
+                }
+            } else if (v == PAD) {
+                if (count < 2 || count + pads == 4) {
+                    return fail(Error.INVALID_PADDING, sp);
+                }
+                if (pads == 0 && !lenient && (bits & (count == 2 ? 0xf : 0x3)) != 0) {
+                    return fail(Error.TRAILING_BITS, sp - 1);
+                }
+                pads++;
+            } else if (v == INVALID) {
+                return fail(Error.INVALID_CHAR, sp);
+            }
+            sp++;
+        }
+
+        if (count + pads != 4 && count + pads != 0) {
+            return fail(Error.TRUNCATED, end);
+        }
+        if (pads > 0) {
+            if (count == 2) {
+                dst[dp++] = (byte) (bits >> 4);
+            } else {
+                dst[dp++] = (byte) (bits >> 10);
+                dst[dp++] = (byte) (bits >> 2);
+            }
+        }
+        return dp - dstOff;
+    }
+
+    private int fail(final Error error, final int index) {
+
+        this.error = error;
+        this.errorIndex = index;
+        return -1;
+    }
+
+    private static byte[] classes(final boolean lenient) {
+
+        final byte[] classes = new byte[256];
+        Arrays.fill(classes, INVALID);
+        final byte[] alphabet = Base64Engine.STANDARD_ALPHABET;
+        for (int i = 0; i < alphabet.length; i++) {
+            classes[alphabet[i]] = (byte) i;
+        }
+        classes['='] = PAD;
+        if (lenient) {
+            classes[' '] = WHITESPACE;
+            classes['\t'] = WHITESPACE;
+            classes['\r'] = WHITESPACE;
+            classes['\n'] = WHITESPACE;
+        }
+        return classes;
+    }
+
+    @Override
+    public String toString() {
+
+        return "Base64Decoder[" + (lenient ? "lenient" : "strict") + "]";
+    }
+
+}
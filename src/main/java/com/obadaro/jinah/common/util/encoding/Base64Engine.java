@@ -0,0 +1,273 @@
+/*
+ * JINAH Project - Java Is Not A Hammer
+ * http://obadaro.com/jinah
+ *
+ * Copyright (C) 2010-2012 Roberto Badaro
+ * and individual contributors by the @authors tag.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.obadaro.jinah.common.util.encoding;
+
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.ServiceConfigurationError;
+import java.util.ServiceLoader;
+
+import com.obadaro.jinah.common.internals.Logger;
+
+/**
+ * Implementation of the Base64 array primitives behind {@link Base64}. Engines differ only in
+ * speed: for the same input they produce the same bytes.
+ * <p>
+ * More engines can be plugged in with {@link ServiceLoader}, listing them in
+ * {@code META-INF/services/com.obadaro.jinah.common.util.encoding.Base64Engine}. That is how the
+ * {@code vector} engine, built on {@code jdk.incubator.vector} by the {@code vector} profile on JDK
+ * 17 or later, is added. Such an engine checks in {@link #isAvailable()} that its optional module
+ * is present, so the library still runs on JVMs without it - or too old to load it.
+ * </p>
+ * <p>
+ * The default engine is the first available plugged in engine, else {@link #swar()}. The system
+ * property {@value #ENGINE_PROPERTY} selects an engine by name, and
+ * {@link #setDefault(Base64Engine)} replaces it at runtime.
+ * </p>
+ *
+ * @author Roberto Badaro
+ */
+public abstract class Base64Engine {
+
+    /**
+     * System property naming the default engine: {@code scalar}, {@code swar}, or the
+     * {@link #getName() name} of a plugged in engine.
+     */
+    public static final String ENGINE_PROPERTY = "com.obadaro.jinah.base64.engine";
+
+    /**
+     * The RFC 2045 alphabet.
+     */
+    static final byte[] STANDARD_ALPHABET = alphabet('+', '/');
+
+    private static final Logger LOG = Logger.getLogger(Base64Engine.class.getName());
+
+    private static final Base64Engine SCALAR = new ScalarBase64Engine(STANDARD_ALPHABET);
+    private static final Base64Engine SWAR = new SwarBase64Engine(STANDARD_ALPHABET);
+
+    private static volatile Base64Engine defaultEngine = byName(System.getProperty(ENGINE_PROPERTY));
+
+    /**
+     * @return Engine that encodes one 3-byte group and decodes one 4-char quantum at a time.
+     */
+    public static Base64Engine scalar() {
+
+        return SCALAR;
+    }
+
+    /**
+     * @return Engine that encodes 6 bytes per step through a 12-bit pair table, and decodes 8 chars
+     *         per step into a {@code long}, validating them all with a single test.
+     */
+    public static Base64Engine swar() {
+
+        return SWAR;
+    }
+
+    /**
+     * @return The engine used by {@link Base64}.
+     */
+    public static Base64Engine getDefault() {
+
+        return defaultEngine;
+    }
+
+    /**
+     * Replaces the engine used by {@link Base64}.
+     *
+     * @param engine
+     *            {@code null} restores the engine selected by {@value #ENGINE_PROPERTY}.
+     */
+    public static void setDefault(final Base64Engine engine) {
+
+        defaultEngine = (engine != null ? engine : byName(System.getProperty(ENGINE_PROPERTY)));
+    }
+
+    private static Base64Engine byName(final String name) {
+
+        if ("scalar".equalsIgnoreCase(name)) {
+            return SCALAR;
+        }
+        if ("swar".equalsIgnoreCase(name)) {
+            return SWAR;
+        }
+        final Base64Engine plugged = plugged(name);
+        if (plugged == null && name != null) {
+            LOG.warn("Base64 engine {0} not available, using swar", name);
+        }
+        return (plugged != null ? plugged : SWAR);
+    }
+
+    /**
+     * Returns the first available engine plugged in with {@link ServiceLoader}, named {@code name}
+     * if not {@code null}.
+     */
+    private static Base64Engine plugged(final String name) {
+
+        final Iterator<Base64Engine> it = ServiceLoader.load(Base64Engine.class, Base64Engine.class.getClassLoader())
+            .iterator();
+        while (hasNext(it)) {
+            try {
+                final Base64Engine engine = it.next();
+                if ((name == null || name.equalsIgnoreCase(engine.getName())) && engine.isAvailable()) {
+                    return engine;
+                }
+            } catch (final ServiceConfigurationError e) {
+                if (e.getCause() instanceof LinkageError) {
+                    // compiled for a newer JVM
+                    LOG.debug(e, "Ignoring Base64 engine");
+                } else {
+                    LOG.warn(e, "Ignoring Base64 engine");
+                }
+            } catch (final LinkageError e) {
+                // compiled against a module this JVM doesn't have
+                LOG.debug(e, "Ignoring Base64 engine");
+            }
+        }
+        return null;
+    }
+
+    private static boolean hasNext(final Iterator<Base64Engine> it) {
+
+        try {
+            return it.hasNext();
+        } catch (final ServiceConfigurationError e) {
+            LOG.warn(e, "Can't list Base64 engines");
+            return false;
+        }
+    }
+
+    /**
+     * Tells if the engine can run on this JVM. Plugged in engines that depend on optional modules
+     * return {@code false} when the module is missing, and are skipped.
+     *
+     * @return
+     */
+    public boolean isAvailable() {
+
+        return true;
+    }
+
+    /**
+     * @return Name of the engine, for diagnostics.
+     */
+    public abstract String getName();
+
+    /**
+     * Encodes {@code srcLen} bytes of {@code src} into {@code dst}, padding included.
+     *
+     * @param src
+     * @param srcOff
+     * @param srcLen
+     * @param dst
+     *            Must have room for {@link Base64#encodedLength(int) encodedLength(srcLen)} bytes.
+     * @param dstOff
+     * @return Number of bytes written.
+     */
+    public abstract int encode(byte[] src, int srcOff, int srcLen, byte[] dst, int dstOff);
+
+    /**
+     * Decodes {@code srcLen} chars of {@code src}, held as bytes, into {@code dst}. Only canonical
+     * input is accepted: a multiple of 4 chars of the alphabet, with padding only at the end.
+     *
+     * @param src
+     * @param srcOff
+     * @param srcLen
+     * @param dst
+     *            Must have room for {@link #decodedLength(byte[], int, int)} bytes.
+     * @param dstOff
+     * @return Number of bytes written, or -1 (minus one) if the input is not canonical Base64. In
+     *         that case the contents of {@code dst} are undefined.
+     */
+    public abstract int decode(byte[] src, int srcOff, int srcLen, byte[] dst, int dstOff);
+
+    /**
+     * Encodes {@code src} into a new array.
+     *
+     * @param src
+     * @return
+     */
+    public byte[] encode(final byte[] src) {
+
+        final byte[] dst = new byte[Base64.encodedLength(src.length)];
+        encode(src, 0, src.length, dst, 0);
+        return dst;
+    }
+
+    /**
+     * Returns the number of bytes of canonical Base64 input decodes to, or -1 (minus one) if its
+     * length is not a multiple of 4.
+     *
+     * @param src
+     * @param srcOff
+     * @param srcLen
+     * @return
+     */
+    public static int decodedLength(final byte[] src, final int srcOff, final int srcLen) {
+
+        if (srcLen % 4 != 0) {
+            return -1;
+        }
+        if (srcLen == 0) {
+            return 0;
+        }
+        final int end = srcOff + srcLen;
+        final int pads = (src[end - 1] != '=' ? 0 : (src[end - 2] != '=' ? 1 : 2));
+        return srcLen / 4 * 3 - pads;
+    }
+
+    @Override
+    public String toString() {
+
+        return "Base64Engine[" + getName() + "]";
+    }
+
+    /**
+     * Returns the 64 chars of an alphabet ending in {@code c62} and {@code c63}.
+     */
+    static byte[] alphabet(final char c62, final char c63) {
+
+        final byte[] alphabet = new byte[64];
+        for (int i = 0; i < 26; i++) {
+            alphabet[i] = (byte) ('A' + i);
+            alphabet[i + 26] = (byte) ('a' + i);
+        }
+        for (int i = 0; i < 10; i++) {
+            alphabet[i + 52] = (byte) ('0' + i);
+        }
+        alphabet[62] = (byte) c62;
+        alphabet[63] = (byte) c63;
+        return alphabet;
+    }
+
+    /**
+     * Returns the reverse of {@code alphabet}: the 6-bit value of each byte, -1 if not in it.
+     */
+    static byte[] values(final byte[] alphabet) {
+
+        final byte[] values = new byte[256];
+        Arrays.fill(values, (byte) -1);
+        for (int i = 0; i < alphabet.length; i++) {
+            values[alphabet[i] & 0xff] = (byte) i;
+        }
+        return values;
+    }
+
+}
@@ -0,0 +1,273 @@
+/*
+ * JINAH Project - Java Is Not A Hammer
+ * http://obadaro.com/jinah
+ *
+ * Copyright (C) 2010-2012 Roberto Badaro
+ * and individual contributors by the @authors tag.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.obadaro.jinah.common.util.encoding;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.CoderResult;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicReference;
+
+import com.obadaro.jinah.common.internals.Workers;
+import com.obadaro.jinah.common.util.Preconditions;
+
+/**
+ * File to file Base64 transcoding over memory-mapped windows of both files, for files of any size.
+ * <p>
+ * Each window is transcoded straight from one mapped region into the other, by
+ * {@link Base64#encode(ByteBuffer, ByteBuffer, boolean)} and
+ * {@link Base64#decode(ByteBuffer, ByteBuffer, boolean)}: the payload never lands on the Java
+ * heap. In parallel mode
+ * the windows are spread over the shared fork-join pool; each one starts at a quantum boundary and
+ * writes its own region of the output, so the result is the same.
+ * </p>
+ * <p>
+ * The output file is created, or truncated, to the exact length of the result. Decoding accepts
+ * canonical Base64 only - padded, without line breaks - as written by {@link #encode(File, File)}.
+ * </p>
+ *
+ * @author Roberto Badaro
+ */
+public final class Base64Files {
+
+    /**
+     * Quanta mapped at a time: 12 MB of bytes, 16 MB of chars.
+     */
+    static final int WINDOW_QUANTA = 1 << 22;
+
+    private Base64Files() {
+
+        // no instances
+    }
+
+    /**
+     * Encodes {@code in} into {@code out}, by the calling thread.
+     *
+     * @param in
+     * @param out
+     *            Receives the Base64 text, as US-ASCII bytes.
+     * @return Length of {@code out}.
+     * @throws IOException
+     */
+    public static long encode(final File in, final File out) throws IOException {
+
+        return encode(in, out, false);
+    }
+
+    /**
+     * Encodes {@code in} into {@code out}.
+     *
+     * @param in
+     * @param out
+     *            Receives the Base64 text, as US-ASCII bytes.
+     * @param parallel
+     *            {@code true} to encode the windows on the shared fork-join pool.
+     * @return Length of {@code out}.
+     * @throws IOException
+     */
+    public static long encode(final File in, final File out, final boolean parallel) throws IOException {
+
+        return transcode(in, out, true, parallel);
+    }
+
+    /**
+     * Decodes {@code in} into {@code out}, by the calling thread.
+     *
+     * @param in
+     *            Canonical Base64 text, as US-ASCII bytes.
+     * @param out
+     * @return Length of {@code out}.
+     * @throws IOException
+     *             Also if {@code in} is not canonical Base64. The contents of {@code out} are then
+     *             undefined.
+     */
+    public static long decode(final File in, final File out) throws IOException {
+
+        return decode(in, out, false);
+    }
+
+    /**
+     * Decodes {@code in} into {@code out}.
+     *
+     * @param in
+     *            Canonical Base64 text, as US-ASCII bytes.
+     * @param out
+     * @param parallel
+     *            {@code true} to decode the windows on the shared fork-join pool.
+     * @return Length of {@code out}.
+     * @throws IOException
+     *             Also if {@code in} is not canonical Base64. The contents of {@code out} are then
+     *             undefined.
+     */
+    public static long decode(final File in, final File out, final boolean parallel) throws IOException {
+
+        return transcode(in, out, false, parallel);
+    }
+
+    private static long transcode(final File in, final File out, final boolean encoding, final boolean parallel)
+            throws IOException {
+
+        Preconditions.checkArgument(in != null, "in can't be null.");
+        Preconditions.checkArgument(out != null, "out can't be null.");
+
+        final RandomAccessFile src = new RandomAccessFile(in, "r");
+        try {
+            final RandomAccessFile dst = new RandomAccessFile(out, "rw");
+            try {
+                final Job job = new Job(src.getChannel(), dst.getChannel(), encoding);
+                dst.setLength(job.dstLength);
+
+                final int windows = (int) ((job.quanta + WINDOW_QUANTA - 1) / WINDOW_QUANTA);
+                if (parallel && windows > 1) {
+                    Workers.pool().invoke(new Windows(job, 0, windows));
+                    final IOException failure = job.failure.get();
+                    if (failure != null) {
+                        throw new IOException(failure.getMessage(), failure);
+                    }
+                } else {
+                    for (int w = 0; w < windows; w++) {
+                        job.transcode(w);
+                    }
+                }
+                return job.dstLength;
+            } finally {
+                dst.close();
+            }
+        } finally {
+            src.close();
+        }
+    }
+
+    /**
+     * One transcoding: the files, their lengths, and the first failure of a parallel run.
+     */
+    private static final class Job {
+
+        final FileChannel src;
+        final FileChannel dst;
+        final boolean encoding;
+        final long srcLength;
+        final long dstLength;
+        final long quanta;
+        final AtomicReference<IOException> failure = new AtomicReference<IOException>();
+
+        Job(final FileChannel src, final FileChannel dst, final boolean encoding) throws IOException {
+
+            this.src = src;
+            this.dst = dst;
+            this.encoding = encoding;
+            this.srcLength = src.size();
+
+            if (encoding) {
+                quanta = (srcLength + 2) / 3;
+                dstLength = quanta * 4;
+            } else {
+                if (srcLength % 4 != 0) {
+                    throw new IOException("Not canonical Base64: length " + srcLength + " is not a multiple of 4");
+                }
+                quanta = srcLength / 4;
+                dstLength = quanta * 3 - pads();
+            }
+        }
+
+        private int pads() throws IOException {
+
+            if (srcLength == 0) {
+                return 0;
+            }
+            final ByteBuffer last = ByteBuffer.allocate(2);
+            while (last.hasRemaining()) {
+                if (src.read(last, srcLength - 2 + last.position()) < 0) {
+                    throw new IOException("Unexpected end of file");
+                }
+            }
+            return (last.get(1) != '=' ? 0 : (last.get(0) != '=' ? 1 : 2));
+        }
+
+        /**
+         * Transcodes the {@code w}-th window.
+         */
+        void transcode(final int w) throws IOException {
+
+            final int srcQuantum = (encoding ? 3 : 4);
+            final int dstQuantum = (encoding ? 4 : 3);
+            final long first = (long) w * WINDOW_QUANTA;
+            final long last = Math.min(quanta, first + WINDOW_QUANTA);
+
+            final long srcPos = first * srcQuantum;
+            final long dstPos = first * dstQuantum;
+            final MappedByteBuffer in =
+                src.map(FileChannel.MapMode.READ_ONLY, srcPos, Math.min(srcLength, last * srcQuantum) - srcPos);
+            final MappedByteBuffer out =
+                dst.map(FileChannel.MapMode.READ_WRITE, dstPos, Math.min(dstLength, last * dstQuantum) - dstPos);
+
+            final boolean endOfInput = (last == quanta);
+            final CoderResult result =
+                (encoding ? Base64.encode(in, out, endOfInput) : Base64.decode(in, out, endOfInput));
+            // padding before the end of the file decodes short, leaving room in out
+            if (result.isError() || in.hasRemaining() || out.hasRemaining()) {
+                throw new IOException("Invalid Base64 input near offset " + (srcPos + in.position()));
+            }
+        }
+    }
+
+    /**
+     * Transcodes the windows {@code [from, to)}, splitting in halves.
+     */
+    private static final class Windows extends RecursiveAction {
+
+        private static final long serialVersionUID = 1L;
+
+        private final Job job;
+        private final int from;
+        private final int to;
+
+        Windows(final Job job, final int from, final int to) {
+
+            this.job = job;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+
+            if (to - from > 1) {
+                final int middle = (from + to) >>> 1;
+                invokeAll(new Windows(job, from, middle), new Windows(job, middle, to));
+                return;
+            }
+
+            if (job.failure.get() != null) {
+                return;
+            }
+            try {
+                job.transcode(from);
+            } catch (final IOException e) {
+                job.failure.compareAndSet(null, e);
+            }
+        }
+    }
+
+}
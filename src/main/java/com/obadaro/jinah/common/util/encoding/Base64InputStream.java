@@ -0,0 +1,54 @@
+/*
+ * JINAH Project - Java Is Not A Hammer
+ * http://obadaro.com/jinah
+ *
+ * Copyright (C) 2010-2012 Roberto Badaro
+ * and individual contributors by the @authors tag.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.obadaro.jinah.common.util.encoding;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Input stream that decodes the Base64 text read from the underlying stream. Line breaks and
+ * spaces are skipped, the padding is optional, and a quantum split across reads is carried to the
+ * next one. Invalid input throws an {@link IOException} with its offset.
+ * <p>
+ * The decoding stream of {@code Base64Codec.RFC4648.lenient()}: the same chunks as every
+ * {@link Codec}. Use {@link Base64Codec#decodingStream(InputStream)} for other variants, or to
+ * refuse what this stream tolerates.
+ * </p>
+ * <p>
+ * Not thread-safe. Mark and reset are not supported.
+ * </p>
+ *
+ * @author Roberto Badaro
+ * @see Base64OutputStream
+ */
+public class Base64InputStream extends CodecInputStream {
+
+    private static final Base64Codec CODEC = Base64Codec.RFC4648.lenient();
+
+    /**
+     * @param in
+     *            Provides the Base64 text, as US-ASCII bytes.
+     */
+    public Base64InputStream(final InputStream in) {
+
+        super(CODEC, in);
+    }
+
+}
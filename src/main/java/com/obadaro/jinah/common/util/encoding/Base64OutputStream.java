@@ -0,0 +1,52 @@
+/*
+ * JINAH Project - Java Is Not A Hammer
+ * http://obadaro.com/jinah
+ *
+ * Copyright (C) 2010-2012 Roberto Badaro
+ * and individual contributors by the @authors tag.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.obadaro.jinah.common.util.encoding;
+
+import java.io.OutputStream;
+
+/**
+ * Output stream that encodes the bytes written to it as Base64, into the underlying stream. The
+ * input is buffered in a small fixed buffer; the padding is written on {@link #finish()} or
+ * {@link #close()}, so the output is the same as {@link Base64#encode(byte[])} of all bytes
+ * written, however they are split across calls. {@link #flush()} writes the complete 3-byte groups
+ * buffered so far.
+ * <p>
+ * The encoding stream of {@link Base64Codec#RFC4648}: the same chunks as every {@link Codec}. Use
+ * {@link Base64Codec#encodingStream(OutputStream)} for other variants.
+ * </p>
+ * <p>
+ * Not thread-safe.
+ * </p>
+ *
+ * @author Roberto Badaro
+ * @see Base64InputStream
+ */
+public class Base64OutputStream extends CodecOutputStream {
+
+    /**
+     * @param out
+     *            Receives the Base64 text, as US-ASCII bytes.
+     */
+    public Base64OutputStream(final OutputStream out) {
+
+        super(Base64Codec.RFC4648, out);
+    }
+
+}
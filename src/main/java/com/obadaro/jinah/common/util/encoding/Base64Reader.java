@@ -0,0 +1,116 @@
+/*
+ * JINAH Project - Java Is Not A Hammer
+ * http://obadaro.com/jinah
+ *
+ * Copyright (C) 2010-2012 Roberto Badaro
+ * and individual contributors by the @authors tag.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.obadaro.jinah.common.util.encoding;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Reader;
+
+/**
+ * Reader of the Base64 encoding of the bytes of an input stream: the streaming version of
+ * {@link Base64#encode(byte[])}, for APIs that take a {@link Reader}. Bytes are read in small
+ * chunks; those that don't complete a 3-byte group are carried to the next read.
+ * <p>
+ * Not thread-safe.
+ * </p>
+ *
+ * @author Roberto Badaro
+ * @see Base64Writer
+ */
+public class Base64Reader extends Reader {
+
+    /**
+     * Bytes read at a time. A multiple of 3, so every full chunk encodes without padding.
+     */
+    private static final int CHUNK = 3 * 1024;
+
+    private final InputStream in;
+    private final byte[] raw = new byte[CHUNK];
+    private final char[] chars = new char[CHUNK / 3 * 4];
+    private int rawCount;
+    private int position;
+    private int limit;
+    private boolean eof;
+
+    /**
+     * @param in
+     *            Bytes to encode.
+     */
+    public Base64Reader(final InputStream in) {
+
+        if (in == null) {
+            throw new NullPointerException("in is null");
+        }
+        this.in = in;
+    }
+
+    @Override
+    public int read(final char[] cbuf, final int off, final int len) throws IOException {
+
+        Base64.checkRange(cbuf.length, off, len);
+        if (len == 0) {
+            return 0;
+        }
+        if (position == limit && !fill()) {
+            return -1;
+        }
+
+        final int n = Math.min(len, limit - position);
+        System.arraycopy(chars, position, cbuf, off, n);
+        position += n;
+        return n;
+    }
+
+    @Override
+    public boolean ready() throws IOException {
+
+        return position < limit;
+    }
+
+    @Override
+    public void close() throws IOException {
+
+        in.close();
+    }
+
+    private boolean fill() throws IOException {
+
+        while (!eof) {
+            final int n = in.read(raw, rawCount, raw.length - rawCount);
+            if (n < 0) {
+                eof = true;
+                limit = Base64.encode(raw, 0, rawCount, chars, 0);
+                rawCount = 0;
+            } else {
+                rawCount += n;
+                final int full = rawCount - rawCount % 3;
+                limit = Base64.encode(raw, 0, full, chars, 0);
+                System.arraycopy(raw, full, raw, 0, rawCount - full);
+                rawCount -= full;
+            }
+            position = 0;
+            if (limit > 0) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+}
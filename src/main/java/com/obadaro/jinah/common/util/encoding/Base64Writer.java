@@ -0,0 +1,105 @@
+/*
+ * JINAH Project - Java Is Not A Hammer
+ * http://obadaro.com/jinah
+ *
+ * Copyright (C) 2010-2012 Roberto Badaro
+ * and individual contributors by the @authors tag.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.obadaro.jinah.common.util.encoding;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.Writer;
+
+/**
+ * Writer that decodes the Base64 text written to it into an output stream: the streaming version
+ * of {@link Base64#decode(byte[])}, for APIs that write to a {@link Writer}. Line breaks and spaces
+ * are skipped, and a quantum split across writes is carried to the next one. Invalid input throws
+ * an {@link IOException} with its offset.
+ * <p>
+ * Not thread-safe.
+ * </p>
+ *
+ * @author Roberto Badaro
+ * @see Base64Reader
+ */
+public class Base64Writer extends Writer {
+
+    private static final int CHUNK = AbstractCodec.CHUNK_SIZE;
+
+    private final OutputStream out;
+    private final byte[] decoded = new byte[DecodeState.maxDecodedLength(CHUNK)];
+    private final DecodeState state = new DecodeState();
+    private boolean finished;
+
+    /**
+     * @param out
+     *            Receives the decoded bytes.
+     */
+    public Base64Writer(final OutputStream out) {
+
+        if (out == null) {
+            throw new NullPointerException("out is null");
+        }
+        this.out = out;
+    }
+
+    @Override
+    public void write(final char[] cbuf, int off, int len) throws IOException {
+
+        Base64.checkRange(cbuf.length, off, len);
+        if (finished) {
+            throw new IOException("Writer finished");
+        }
+
+        while (len > 0) {
+            final int n = Math.min(len, CHUNK);
+            out.write(decoded, 0, state.decode(cbuf, off, n, decoded, 0));
+            off += n;
+            len -= n;
+        }
+    }
+
+    @Override
+    public void flush() throws IOException {
+
+        out.flush();
+    }
+
+    /**
+     * Ends the input, without closing the underlying stream.
+     *
+     * @throws IOException
+     *             If the input ends in the middle of a quantum.
+     */
+    public void finish() throws IOException {
+
+        if (!finished) {
+            finished = true;
+            out.write(decoded, 0, state.finish(decoded, 0));
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+
+        try {
+            finish();
+        } finally {
+            out.close();
+        }
+    }
+
+}
@@ -0,0 +1,149 @@
+/*
+ * JINAH Project - Java Is Not A Hammer
+ * http://obadaro.com/jinah
+ *
+ * Copyright (C) 2010-2012 Roberto Badaro
+ * and individual contributors by the @authors tag.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.obadaro.jinah.common.util.encoding;
+
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+
+/**
+ * Binary-to-text codec: {@link Base16}, {@link Base32}, {@link Base64Codec} and {@link Ascii85}.
+ * Text is handled as US-ASCII bytes. Implementations are immutable and thread-safe.
+ * <p>
+ * Array methods don't allocate, and report invalid input by returning -1 (minus one). The
+ * convenience methods taking a single array allocate the result and throw
+ * {@link IllegalArgumentException} on invalid input.
+ * </p>
+ *
+ * @author Roberto Badaro
+ * @see AbstractCodec
+ */
+public interface Codec {
+
+    /**
+     * @return Name of the encoding, as "Base32".
+     */
+    String getName();
+
+    /**
+     * @param length
+     * @return The exact length of the encoding of {@code length} bytes.
+     */
+    int encodedLength(int length);
+
+    /**
+     * @param length
+     * @return An upper bound of the number of bytes {@code length} chars decode to.
+     */
+    int maxDecodedLength(int length);
+
+    /**
+     * Encodes {@code src} into a new array.
+     *
+     * @param src
+     * @return
+     */
+    byte[] encode(byte[] src);
+
+    /**
+     * Encodes {@code srcLen} bytes of {@code src} into {@code dst}.
+     *
+     * @param src
+     * @param srcOff
+     * @param srcLen
+     * @param dst
+     *            Must have room for {@link #encodedLength(int) encodedLength(srcLen)} bytes.
+     * @param dstOff
+     * @return Number of bytes written.
+     */
+    int encode(byte[] src, int srcOff, int srcLen, byte[] dst, int dstOff);
+
+    /**
+     * Encodes the remaining bytes of {@code src} into {@code dst}, heap or direct buffers. Both
+     * positions are advanced.
+     *
+     * @param src
+     * @param dst
+     *            Must have room for {@link #encodedLength(int) encodedLength(src.remaining())}
+     *            bytes.
+     * @return Number of bytes written.
+     * @throws java.nio.BufferOverflowException
+     *             If {@code dst} has not enough room. Nothing is written.
+     */
+    int encode(ByteBuffer src, ByteBuffer dst);
+
+    /**
+     * Decodes {@code src} into a new array.
+     *
+     * @param src
+     * @return
+     * @throws IllegalArgumentException
+     *             If {@code src} is invalid.
+     */
+    byte[] decode(byte[] src);
+
+    /**
+     * Decodes {@code srcLen} chars of {@code src} into {@code dst}.
+     *
+     * @param src
+     * @param srcOff
+     * @param srcLen
+     * @param dst
+     *            Must have room for {@link #maxDecodedLength(int) maxDecodedLength(srcLen)} bytes.
+     * @param dstOff
+     * @return Number of bytes written, or -1 (minus one) if {@code src} is invalid. In that case
+     *         the contents of {@code dst} are undefined.
+     */
+    int decode(byte[] src, int srcOff, int srcLen, byte[] dst, int dstOff);
+
+    /**
+     * Decodes the remaining chars of {@code src} into {@code dst}, heap or direct buffers. Both
+     * positions are advanced, unless the input is invalid.
+     *
+     * @param src
+     * @param dst
+     *            Must have room for {@link #maxDecodedLength(int)
+     *            maxDecodedLength(src.remaining())} bytes.
+     * @return Number of bytes written, or -1 (minus one) if {@code src} is invalid. In that case
+     *         the contents of {@code dst} past its position are undefined.
+     * @throws java.nio.BufferOverflowException
+     *             If {@code dst} has not enough room. Nothing is written.
+     */
+    int decode(ByteBuffer src, ByteBuffer dst);
+
+    /**
+     * Returns a stream that encodes the bytes written to it into {@code out}.
+     *
+     * @param out
+     *            Receives the text, as US-ASCII bytes.
+     * @return
+     */
+    CodecOutputStream encodingStream(OutputStream out);
+
+    /**
+     * Returns a stream that decodes the text read from {@code in}.
+     *
+     * @param in
+     *            Provides the text, as US-ASCII bytes.
+     * @return
+     */
+    InputStream decodingStream(InputStream in);
+
+}
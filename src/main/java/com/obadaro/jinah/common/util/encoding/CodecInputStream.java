@@ -0,0 +1,218 @@
+/*
+ * JINAH Project - Java Is Not A Hammer
+ * http://obadaro.com/jinah
+ *
+ * Copyright (C) 2010-2012 Roberto Badaro
+ * and individual contributors by the @authors tag.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.obadaro.jinah.common.util.encoding;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
+
+/**
+ * Input stream that decodes, with a {@link Codec}, the text read from the underlying stream.
+ * Blocks split across reads are carried to the next one. Invalid input throws an
+ * {@link IOException} with the offset of the first invalid char, skipped chars counted.
+ * <p>
+ * Not thread-safe. Mark and reset are not supported.
+ * </p>
+ *
+ * @author Roberto Badaro
+ * @see Codec#decodingStream(InputStream)
+ */
+public class CodecInputStream extends FilterInputStream {
+
+    private final AbstractCodec codec;
+    private final byte[] chunk;
+    private final byte[] decoded;
+    private int count;
+    /** Chars read before {@code chunk[0]}, skipped chars included. */
+    private long offset;
+    /** Runs of skipped chars: {@code runLength[i]} chars were skipped before {@code chunk[runAt[i]]}. */
+    private int[] runAt = new int[16];
+    private int[] runLength = new int[16];
+    private int runs;
+    private int position;
+    private int limit;
+    private boolean eof;
+
+    CodecInputStream(final AbstractCodec codec, final InputStream in) {
+
+        super(in);
+        this.codec = codec;
+        this.chunk = new byte[codec.decodeChunkChars()];
+        this.decoded = new byte[codec.maxDecodedLength(chunk.length)];
+    }
+
+    @Override
+    public int read() throws IOException {
+
+        if (position == limit && !fill()) {
+            return -1;
+        }
+        return decoded[position++] & 0xff;
+    }
+
+    @Override
+    public int read(final byte[] b, final int off, final int len) throws IOException {
+
+        Base64.checkRange(b.length, off, len);
+        if (len == 0) {
+            return 0;
+        }
+        if (position == limit && !fill()) {
+            return -1;
+        }
+
+        final int n = Math.min(len, limit - position);
+        System.arraycopy(decoded, position, b, off, n);
+        position += n;
+        return n;
+    }
+
+    @Override
+    public long skip(final long n) throws IOException {
+
+        long skipped = 0;
+        while (skipped < n && (position < limit || fill())) {
+            final int step = (int) Math.min(n - skipped, limit - position);
+            position += step;
+            skipped += step;
+        }
+        return skipped;
+    }
+
+    /**
+     * @return Number of decoded bytes buffered.
+     */
+    @Override
+    public int available() throws IOException {
+
+        return limit - position;
+    }
+
+    @Override
+    public boolean markSupported() {
+
+        return false;
+    }
+
+    @Override
+    public synchronized void mark(final int readlimit) {
+
+        // not supported
+    }
+
+    @Override
+    public synchronized void reset() throws IOException {
+
+        throw new IOException("mark/reset not supported");
+    }
+
+    /**
+     * Reads and decodes chunks until some bytes come out.
+     */
+    private boolean fill() throws IOException {
+
+        while (!eof) {
+            final int n = in.read(chunk, count, chunk.length - count);
+            if (n < 0) {
+                eof = true;
+            } else {
+                count = compact(count, count + n);
+            }
+
+            final int take = codec.decodeTake(count, eof);
+            limit = codec.decodeChunk(chunk, take, eof, decoded);
+            if (limit < 0) {
+                limit = 0;
+                throw error(codec.errorIndex(chunk, take, eof, decoded));
+            }
+            System.arraycopy(chunk, take, chunk, 0, count - take);
+            count -= take;
+            advance(take);
+            position = 0;
+            if (limit > 0) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Removes the skipped chars of {@code chunk[from, to)}, keeping track of where they were.
+     *
+     * @return The new end of the chunk.
+     */
+    private int compact(final int from, final int to) {
+
+        int dp = from;
+        for (int i = from; i < to; i++) {
+            final byte c = chunk[i];
+            if (!codec.isSkipped(c & 0xff)) {
+                chunk[dp++] = c;
+            } else if (runs > 0 && runAt[runs - 1] == dp) {
+                runLength[runs - 1]++;
+            } else {
+                if (runs == runAt.length) {
+                    runAt = Arrays.copyOf(runAt, runs * 2);
+                    runLength = Arrays.copyOf(runLength, runs * 2);
+                }
+                runAt[runs] = dp;
+                runLength[runs++] = 1;
+            }
+        }
+        return dp;
+    }
+
+    /**
+     * Moves the start of the chunk {@code take} chars ahead, past the skipped chars before them.
+     */
+    private void advance(final int take) {
+
+        int i = 0;
+        for (; i < runs && runAt[i] < take; i++) {
+            offset += runLength[i];
+        }
+        offset += take;
+        for (int j = i; j < runs; j++) {
+            runAt[j - i] = runAt[j] - take;
+            runLength[j - i] = runLength[j];
+        }
+        runs -= i;
+    }
+
+    /**
+     * @param index
+     *            Index of the first invalid char of the chunk; {@code count} if the input is cut
+     *            short.
+     */
+    private IOException error(final int index) {
+
+        long at = offset + index;
+        for (int i = 0; i < runs && runAt[i] <= index; i++) {
+            at += runLength[i];
+        }
+        if (index < count) {
+            return new IOException(String.format("Invalid %s input at offset %d (0x%02x)", codec.getName(), at,
+                chunk[index] & 0xff));
+        }
+        return new IOException(String.format("Truncated %s input at offset %d", codec.getName(), at));
+    }
+
+}
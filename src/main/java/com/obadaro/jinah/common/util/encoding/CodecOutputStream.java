@@ -0,0 +1,158 @@
+/*
+ * JINAH Project - Java Is Not A Hammer
+ * http://obadaro.com/jinah
+ *
+ * Copyright (C) 2010-2012 Roberto Badaro
+ * and individual contributors by the @authors tag.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.obadaro.jinah.common.util.encoding;
+
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * Output stream that encodes the bytes written to it with a {@link Codec}, into the underlying
+ * stream. The input is buffered in a small chunk of whole blocks, and large writes are encoded
+ * straight from the caller's array; the last block is written on {@link #finish()} or
+ * {@link #close()}, so the output is the same as {@link Codec#encode(byte[])} of all bytes written,
+ * however they are split across calls.
+ * <p>
+ * Not thread-safe.
+ * </p>
+ *
+ * @author Roberto Badaro
+ * @see Codec#encodingStream(OutputStream)
+ */
+public class CodecOutputStream extends FilterOutputStream {
+
+    private final AbstractCodec codec;
+    private final byte[] buffer;
+    private final byte[] encoded;
+    private int count;
+    private boolean started;
+    private boolean finished;
+
+    CodecOutputStream(final AbstractCodec codec, final OutputStream out) {
+
+        super(out);
+        this.codec = codec;
+        this.buffer = new byte[codec.encodeChunkBytes()];
+        this.encoded = new byte[codec.encodedChunkLength()];
+    }
+
+    @Override
+    public void write(final int b) throws IOException {
+
+        ensureOpen();
+        if (count == buffer.length) {
+            encodeBuffer();
+        }
+        buffer[count++] = (byte) b;
+    }
+
+    @Override
+    public void write(final byte[] b, int off, int len) throws IOException {
+
+        Base64.checkRange(b.length, off, len);
+        ensureOpen();
+
+        while (len > 0) {
+            if (count == buffer.length) {
+                encodeBuffer();
+            }
+            if (count == 0 && len >= buffer.length) {
+                encode(b, off, buffer.length);
+                off += buffer.length;
+                len -= buffer.length;
+                continue;
+            }
+            final int n = Math.min(len, buffer.length - count);
+            System.arraycopy(b, off, buffer, count, n);
+            count += n;
+            off += n;
+            len -= n;
+        }
+    }
+
+    /**
+     * Writes the bytes buffered so far that the output can end with before the input does - whole
+     * blocks, or whole lines - and flushes the underlying stream. The rest stays buffered, as the
+     * last block can't be encoded before the input ends.
+     */
+    @Override
+    public void flush() throws IOException {
+
+        if (!finished) {
+            final int full = count - count % codec.encodeUnit();
+            if (full > 0) {
+                encode(buffer, 0, full);
+                System.arraycopy(buffer, full, buffer, 0, count - full);
+                count -= full;
+            }
+        }
+        out.flush();
+    }
+
+    /**
+     * Writes the buffered bytes and the last block, without closing the underlying stream. Nothing
+     * can be written after this call.
+     *
+     * @throws IOException
+     */
+    public void finish() throws IOException {
+
+        if (!finished) {
+            if (count > 0) {
+                encodeBuffer();
+            }
+            finished = true;
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+
+        try {
+            finish();
+        } finally {
+            super.close();
+        }
+    }
+
+    private void encodeBuffer() throws IOException {
+
+        encode(buffer, 0, count);
+        count = 0;
+    }
+
+    /**
+     * Writes the encoding of up to a chunk, after the separator from the previous one.
+     */
+    private void encode(final byte[] b, final int off, final int len) throws IOException {
+
+        final int m = (started ? codec.separate(encoded, 0) : 0);
+        out.write(encoded, 0, m + codec.encode(b, off, len, encoded, m));
+        started = true;
+    }
+
+    private void ensureOpen() throws IOException {
+
+        if (finished) {
+            throw new IOException("Stream finished");
+        }
+    }
+
+}
@@ -0,0 +1,147 @@
+/*
+ * JINAH Project - Java Is Not A Hammer
+ * http://obadaro.com/jinah
+ *
+ * Copyright (C) 2010-2012 Roberto Badaro
+ * and individual contributors by the @authors tag.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.obadaro.jinah.common.util.encoding;
+
+import java.io.IOException;
+
+/**
+ * Base64 decoding state carried between chunks of input: the bits of up to 3 chars of an
+ * incomplete quantum, and the padding seen. Line breaks and spaces are skipped. Used by the
+ * streaming classes; not thread-safe.
+ *
+ * @author Roberto Badaro
+ */
+final class DecodeState {
+
+    private int bits;
+    private int count;
+    private boolean padded;
+    private int padsLeft;
+    private long position;
+
+    /**
+     * Returns the room {@link #decode(byte[], int, int, byte[], int)} needs in {@code dst} for
+     * {@code length} chars.
+     */
+    static int maxDecodedLength(final int length) {
+
+        return length / 4 * 3 + 3;
+    }
+
+    /**
+     * Decodes Base64 chars held as bytes.
+     *
+     * @return Number of bytes written to {@code dst}.
+     */
+    int decode(final byte[] src, final int off, final int len, final byte[] dst, final int dstOff) throws IOException {
+
+        int dp = dstOff;
+        for (int i = off, end = off + len; i < end; i++) {
+            dp = decode(src[i] & 0xff, dst, dp);
+        }
+        return dp - dstOff;
+    }
+
+    /**
+     * Decodes Base64 chars.
+     *
+     * @return Number of bytes written to {@code dst}.
+     */
+    int decode(final char[] src, final int off, final int len, final byte[] dst, final int dstOff) throws IOException {
+
+        int dp = dstOff;
+        for (int i = off, end = off + len; i < end; i++) {
+            dp = decode(src[i], dst, dp);
+        }
+        return dp - dstOff;
+    }
+
+    private int decode(final int c, final byte[] dst, int dp) throws IOException {
+
+        final int v = Base64.valueOf(c);
+        if (v >= 0 && !padded) {
+            bits = bits << 6 | v;
+            if (++count == 4) {
+                dst[dp++] = (byte) (bits >> 16);
+                dst[dp++] = (byte) (bits >> 8);
+                dst[dp++] = (byte) bits;
+                count = 0;
+            }
+        } else if (c == '=') {
+            if (padded) {
+                if (padsLeft == 0) {
+                    throw error(c, "unexpected padding");
+                }
+                padsLeft--;
+            } else {
+                if (count < 2) {
+                    throw error(c, "unexpected padding");
+                }
+                dp = flush(dst, dp);
+                padded = true;
+                padsLeft = 4 - count - 1;
+                count = 0;
+            }
+        } else if (c == ' ' || c == '\t' || c == '\r' || c == '\n') {
+            // skipped
+        } else {
+            throw error(c, (v >= 0 ? "data after padding" : "invalid Base64 char"));
+        }
+        position++;
+        return dp;
+    }
+
+    /**
+     * Ends the input, writing the bytes of a last quantum without padding.
+     *
+     * @return Number of bytes written to {@code dst}, up to 2.
+     * @throws IOException
+     *             If the input ends in the middle of a quantum that can't be completed.
+     */
+    int finish(final byte[] dst, final int dstOff) throws IOException {
+
+        if (count == 1 || padsLeft > 0) {
+            throw new IOException("Truncated Base64 input at offset " + position);
+        }
+        final int n = (count == 0 ? 0 : flush(dst, dstOff) - dstOff);
+        count = 0;
+        return n;
+    }
+
+    /**
+     * Writes the bytes of an incomplete quantum of 2 or 3 chars.
+     */
+    private int flush(final byte[] dst, int dp) {
+
+        if (count == 2) {
+            dst[dp++] = (byte) (bits >> 4);
+        } else {
+            dst[dp++] = (byte) (bits >> 10);
+            dst[dp++] = (byte) (bits >> 2);
+        }
+        return dp;
+    }
+
+    private IOException error(final int c, final String message) {
+
+        return new IOException(String.format("Base64 error at offset %d: %s (0x%02x)", position, message, c));
+    }
+
+}
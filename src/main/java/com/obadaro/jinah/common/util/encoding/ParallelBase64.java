@@ -0,0 +1,112 @@
+/*
+ * JINAH Project - Java Is Not A Hammer
+ * http://obadaro.com/jinah
+ *
+ * Copyright (C) 2010-2012 Roberto Badaro
+ * and individual contributors by the @authors tag.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.obadaro.jinah.common.util.encoding;
+
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Encodes or decodes a slice of an array on the shared fork-join pool. Splits are aligned to
+ * quanta - 3 bytes when encoding, 4 chars when decoding - so each task writes its own range of the
+ * output, at the position the sequential code would.
+ *
+ * @author Roberto Badaro
+ */
+final class ParallelBase64 extends RecursiveAction {
+
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * Slices of up to this many quanta are processed by a single task.
+     */
+    static final int SLICE_QUANTA = 64 * 1024;
+
+    private final Base64Engine engine;
+    private final boolean encoding;
+    private final byte[] src;
+    private final byte[] dst;
+    private final AtomicBoolean failed;
+    private final int from;
+    private final int to;
+    private final int srcEnd;
+
+    /**
+     * @param from
+     *            First quantum of the slice.
+     * @param to
+     *            Last quantum of the slice, exclusive.
+     * @param srcEnd
+     *            End of the input. The last quantum may be incomplete when encoding.
+     */
+    ParallelBase64(final Base64Engine engine,
+                   final boolean encoding,
+                   final byte[] src,
+                   final byte[] dst,
+                   final AtomicBoolean failed,
+                   final int from,
+                   final int to,
+                   final int srcEnd) {
+
+        this.engine = engine;
+        this.encoding = encoding;
+        this.src = src;
+        this.dst = dst;
+        this.failed = failed;
+        this.from = from;
+        this.to = to;
+        this.srcEnd = srcEnd;
+    }
+
+    @Override
+    protected void compute() {
+
+        if (to - from <= SLICE_QUANTA || failed.get()) {
+            process();
+            return;
+        }
+
+        final int middle = from + (to - from) / 2;
+        invokeAll(new ParallelBase64(engine, encoding, src, dst, failed, from, middle, srcEnd),
+            new ParallelBase64(engine, encoding, src, dst, failed, middle, to, srcEnd));
+    }
+
+    private void process() {
+
+        if (failed.get()) {
+            return;
+        }
+
+        if (encoding) {
+            final int srcOff = from * 3;
+            final int srcLen = Math.min(srcEnd, to * 3) - srcOff;
+            engine.encode(src, srcOff, srcLen, dst, from * 4);
+            return;
+        }
+
+        final int srcOff = from * 4;
+        final int srcLen = to * 4 - srcOff;
+        final int expected = (to * 4 == srcEnd ? dst.length - from * 3 : srcLen / 4 * 3);
+        // padding before the last quantum decodes short
+        if (engine.decode(src, srcOff, srcLen, dst, from * 3) != expected) {
+            failed.set(true);
+        }
+    }
+
+}
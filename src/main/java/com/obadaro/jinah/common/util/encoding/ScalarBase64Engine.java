@@ -0,0 +1,141 @@
+/*
+ * JINAH Project - Java Is Not A Hammer
+ * http://obadaro.com/jinah
+ *
+ * Copyright (C) 2010-2012 Roberto Badaro
+ * and individual contributors by the @authors tag.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.obadaro.jinah.common.util.encoding;
+
+/**
+ * One 3-byte group, or one 4-char quantum, at a time.
+ *
+ * @author Roberto Badaro
+ */
+class ScalarBase64Engine extends Base64Engine {
+
+    private final byte[] alphabet;
+    private final byte[] values;
+
+    ScalarBase64Engine(final byte[] alphabet) {
+
+        this.alphabet = alphabet.clone();
+        this.values = values(alphabet);
+    }
+
+    @Override
+    public String getName() {
+
+        return "scalar";
+    }
+
+    @Override
+    public int encode(final byte[] src, final int srcOff, final int srcLen, final byte[] dst, final int dstOff) {
+
+        Base64.checkRange(src.length, srcOff, srcLen);
+        Base64.checkRange(dst.length, dstOff, Base64.encodedLength(srcLen));
+
+        final int end = srcOff + srcLen - srcLen % 3;
+        int dp = dstOff;
+        for (int sp = srcOff; sp < end; sp += 3) {
+            final int bits = (src[sp] & 0xff) << 16 | (src[sp + 1] & 0xff) << 8 | (src[sp + 2] & 0xff);
+            dst[dp++] = alphabet[bits >>> 18];
+            dst[dp++] = alphabet[(bits >>> 12) & 0x3f];
+            dst[dp++] = alphabet[(bits >>> 6) & 0x3f];
+            dst[dp++] = alphabet[bits & 0x3f];
+        }
+        return dp - dstOff + encodeTail(alphabet, src, end, srcOff + srcLen - end, dst, dp);
+    }
+
+    @Override
+    public int decode(final byte[] src, final int srcOff, final int srcLen, final byte[] dst, final int dstOff) {
+
+        Base64.checkRange(src.length, srcOff, srcLen);
+        final int length = decodedLength(src, srcOff, srcLen);
+        if (length < 0) {
+            return -1;
+        }
+        Base64.checkRange(dst.length, dstOff, length);
+
+        final int full = length / 3 * 4;
+        int dp = dstOff;
+        for (int sp = srcOff, end = srcOff + full; sp < end; sp += 4) {
+            final int v0 = values[src[sp] & 0xff];
+            final int v1 = values[src[sp + 1] & 0xff];
+            final int v2 = values[src[sp + 2] & 0xff];
+            final int v3 = values[src[sp + 3] & 0xff];
+            if ((v0 | v1 | v2 | v3) < 0) {
+                return -1;
+            }
+            final int bits = v0 << 18 | v1 << 12 | v2 << 6 | v3;
+            dst[dp++] = (byte) (bits >> 16);
+            dst[dp++] = (byte) (bits >> 8);
+            dst[dp++] = (byte) bits;
+        }
+
+        final int n = decodeTail(values, src, srcOff + full, length % 3, dst, dp);
+        return (n < 0 ? -1 : dp - dstOff + n);
+    }
+
+    /**
+     * Encodes the last 0 (zero), 1 or 2 bytes, with padding.
+     *
+     * @return Number of bytes written.
+     */
+    static int encodeTail(final byte[] alphabet,
+                          final byte[] src,
+                          final int sp,
+                          final int remaining,
+                          final byte[] dst,
+                          final int dp) {
+
+        if (remaining == 0) {
+            return 0;
+        }
+        final int bits = (src[sp] & 0xff) << 16 | (remaining == 2 ? (src[sp + 1] & 0xff) << 8 : 0);
+        dst[dp] = alphabet[bits >>> 18];
+        dst[dp + 1] = alphabet[(bits >>> 12) & 0x3f];
+        dst[dp + 2] = (remaining == 2 ? alphabet[(bits >>> 6) & 0x3f] : (byte) '=');
+        dst[dp + 3] = '=';
+        return 4;
+    }
+
+    /**
+     * Decodes the padded last quantum, of {@code n} (1 or 2) bytes. Checks that the quantum has
+     * exactly {@code 3 - n} pads.
+     *
+     * @return Number of bytes written, or -1 (minus one) if the quantum is invalid.
+     */
+    static int decodeTail(final byte[] values, final byte[] src, final int sp, final int n, final byte[] dst,
+                          final int dp) {
+
+        if (n == 0) {
+            return 0;
+        }
+        final int v0 = values[src[sp] & 0xff];
+        final int v1 = values[src[sp + 1] & 0xff];
+        final int v2 = (n == 2 ? values[src[sp + 2] & 0xff] : 0);
+        if ((v0 | v1 | v2) < 0 || (n == 1 && src[sp + 2] != '=')) {
+            return -1;
+        }
+        final int bits = v0 << 18 | v1 << 12 | v2 << 6;
+        dst[dp] = (byte) (bits >> 16);
+        if (n == 2) {
+            dst[dp + 1] = (byte) (bits >> 8);
+        }
+        return n;
+    }
+
+}
@@ -0,0 +1,168 @@
+/*
+ * JINAH Project - Java Is Not A Hammer
+ * http://obadaro.com/jinah
+ *
+ * Copyright (C) 2010-2012 Roberto Badaro
+ * and individual contributors by the @authors tag.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.obadaro.jinah.common.util.encoding;
+
+/**
+ * Wide-table engine. Encoding reads 6 bytes into a {@code long} and writes its four 12-bit groups
+ * through a table of char pairs. Decoding looks up 8 chars in tables of pre-shifted values, so
+ * their OR is 48 decoded bits plus an error bit: the whole step is validated by a single test.
+ *
+ * @author Roberto Badaro
+ */
+class SwarBase64Engine extends Base64Engine {
+
+    /**
+     * Set in the decode tables for bytes out of the alphabet; above the 24 bits of a quantum.
+     */
+    private static final int BAD = 1 << 24;
+
+    private final byte[] alphabet;
+    private final byte[] values;
+
+    /**
+     * {@code pairs[i]} holds the chars of the 12-bit group {@code i}, high char in the high byte.
+     */
+    private final char[] pairs = new char[4096];
+
+    /**
+     * The value of each byte, shifted to its position in a quantum.
+     */
+    private final int[] d0 = new int[256];
+    private final int[] d1 = new int[256];
+    private final int[] d2 = new int[256];
+    private final int[] d3 = new int[256];
+
+    SwarBase64Engine(final byte[] alphabet) {
+
+        this.alphabet = alphabet.clone();
+        this.values = values(alphabet);
+
+        for (int i = 0; i < pairs.length; i++) {
+            pairs[i] = (char) (alphabet[i >>> 6] << 8 | alphabet[i & 0x3f]);
+        }
+        for (int c = 0; c < 256; c++) {
+            final int v = values[c];
+            d0[c] = (v < 0 ? BAD : v << 18);
+            d1[c] = (v < 0 ? BAD : v << 12);
+            d2[c] = (v < 0 ? BAD : v << 6);
+            d3[c] = (v < 0 ? BAD : v);
+        }
+    }
+
+    @Override
+    public String getName() {
+
+        return "swar";
+    }
+
+    @Override
+    public int encode(final byte[] src, final int srcOff, final int srcLen, final byte[] dst, final int dstOff) {
+
+        Base64.checkRange(src.length, srcOff, srcLen);
+        Base64.checkRange(dst.length, dstOff, Base64.encodedLength(srcLen));
+
+        final char[] pairs = this.pairs;
+        int sp = srcOff;
+        int dp = dstOff;
+
+        for (final int end = srcOff + srcLen - 5; sp < end; sp += 6) {
+            final long bits = (src[sp] & 0xffL) << 40 | (src[sp + 1] & 0xffL) << 32 | (src[sp + 2] & 0xffL) << 24
+                    | (src[sp + 3] & 0xffL) << 16 | (src[sp + 4] & 0xffL) << 8 | (src[sp + 5] & 0xffL);
+            final int p0 = pairs[(int) (bits >>> 36)];
+            final int p1 = pairs[(int) (bits >>> 24) & 0xfff];
+            final int p2 = pairs[(int) (bits >>> 12) & 0xfff];
+            final int p3 = pairs[(int) bits & 0xfff];
+            dst[dp] = (byte) (p0 >>> 8);
+            dst[dp + 1] = (byte) p0;
+            dst[dp + 2] = (byte) (p1 >>> 8);
+            dst[dp + 3] = (byte) p1;
+            dst[dp + 4] = (byte) (p2 >>> 8);
+            dst[dp + 5] = (byte) p2;
+            dst[dp + 6] = (byte) (p3 >>> 8);
+            dst[dp + 7] = (byte) p3;
+            dp += 8;
+        }
+
+        final int remaining = srcOff + srcLen - sp;
+        if (remaining >= 3) {
+            final int bits = (src[sp] & 0xff) << 16 | (src[sp + 1] & 0xff) << 8 | (src[sp + 2] & 0xff);
+            final int p0 = pairs[bits >>> 12];
+            final int p1 = pairs[bits & 0xfff];
+            dst[dp] = (byte) (p0 >>> 8);
+            dst[dp + 1] = (byte) p0;
+            dst[dp + 2] = (byte) (p1 >>> 8);
+            dst[dp + 3] = (byte) p1;
+            sp += 3;
+            dp += 4;
+        }
+        dp += ScalarBase64Engine.encodeTail(alphabet, src, sp, srcOff + srcLen - sp, dst, dp);
+
+        return dp - dstOff;
+    }
+
+    @Override
+    public int decode(final byte[] src, final int srcOff, final int srcLen, final byte[] dst, final int dstOff) {
+
+        Base64.checkRange(src.length, srcOff, srcLen);
+        final int length = decodedLength(src, srcOff, srcLen);
+        if (length < 0) {
+            return -1;
+        }
+        Base64.checkRange(dst.length, dstOff, length);
+
+        final int[] d0 = this.d0, d1 = this.d1, d2 = this.d2, d3 = this.d3;
+        final int full = srcOff + length / 3 * 4;
+        int sp = srcOff;
+        int dp = dstOff;
+
+        for (final int end = full - 7; sp < end; sp += 8) {
+            final int a = d0[src[sp] & 0xff] | d1[src[sp + 1] & 0xff] | d2[src[sp + 2] & 0xff] | d3[src[sp + 3] & 0xff];
+            final int b = d0[src[sp + 4] & 0xff] | d1[src[sp + 5] & 0xff] | d2[src[sp + 6] & 0xff]
+                    | d3[src[sp + 7] & 0xff];
+            if (((a | b) & BAD) != 0) {
+                return -1;
+            }
+            final long bits = (long) a << 24 | b;
+            dst[dp] = (byte) (bits >>> 40);
+            dst[dp + 1] = (byte) (bits >>> 32);
+            dst[dp + 2] = (byte) (bits >>> 24);
+            dst[dp + 3] = (byte) (bits >>> 16);
+            dst[dp + 4] = (byte) (bits >>> 8);
+            dst[dp + 5] = (byte) bits;
+            dp += 6;
+        }
+
+        if (sp < full) {
+            final int a = d0[src[sp] & 0xff] | d1[src[sp + 1] & 0xff] | d2[src[sp + 2] & 0xff] | d3[src[sp + 3] & 0xff];
+            if ((a & BAD) != 0) {
+                return -1;
+            }
+            dst[dp] = (byte) (a >>> 16);
+            dst[dp + 1] = (byte) (a >>> 8);
+            dst[dp + 2] = (byte) a;
+            sp += 4;
+            dp += 3;
+        }
+
+        final int n = ScalarBase64Engine.decodeTail(values, src, sp, length % 3, dst, dp);
+        return (n < 0 ? -1 : dp - dstOff + n);
+    }
+
+}
@@ -0,0 +1,320 @@
+/*
+ * JINAH Project - Java Is Not A Hammer
+ * http://obadaro.com/jinah
+ *
+ * Copyright (C) 2010-2012 Roberto Badaro
+ * and individual contributors by the @authors tag.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.obadaro.jinah.common.util.time;
+
+import java.util.Date;
+import java.util.TimeZone;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+import com.obadaro.jinah.common.util.Dates;
+import com.obadaro.jinah.common.util.Preconditions;
+
+/**
+ * Source of the current instant, replacing {@code Dates.calendar()} and {@code new Date()} for
+ * "now" and "today" lookups. Except for {@link #now()}, the accessors don't allocate.
+ * <p>
+ * Code should get the clock from {@link #getDefault()}, so tests can plug a {@link Fake} one.
+ * </p>
+ *
+ * <pre>
+ * <code>
+ * // at startup: read the time once per second, and keep today of Sao Paulo at hand
+ * Clock.setDefault(Clock.cached(1000, TimeZone.getTimeZone("America/Sao_Paulo")));
+ *
+ * // in a request filter
+ * int today = Clock.getDefault().today();
+ * </code>
+ * </pre>
+ *
+ * @author Roberto Badaro
+ */
+public abstract class Clock {
+
+    private static final Clock SYSTEM = new Clock() {
+
+        @Override
+        public long millis() {
+
+            return System.currentTimeMillis();
+        }
+    };
+
+    /**
+     * Default time zone when the class was loaded, as in {@link Dates}.
+     */
+    private static final ZoneOffsets DEFAULT_ZONE = ZoneOffsets.of(TimeZone.getDefault());
+
+    private static volatile Clock defaultClock = SYSTEM;
+
+    /**
+     * @return The clock of {@link System#currentTimeMillis()}.
+     */
+    public static Clock system() {
+
+        return SYSTEM;
+    }
+
+    /**
+     * @return The clock set by {@link #setDefault(Clock)}; {@link #system()} if none.
+     */
+    public static Clock getDefault() {
+
+        return defaultClock;
+    }
+
+    /**
+     * Replaces the default clock.
+     *
+     * @param clock
+     *            {@code null} restores {@link #system()}.
+     */
+    public static void setDefault(final Clock clock) {
+
+        defaultClock = (clock != null ? clock : SYSTEM);
+    }
+
+    /**
+     * Creates a clock that reads the system time every {@code granularity} milliseconds, in a
+     * daemon thread, and caches today of each of {@code timeZones}.
+     *
+     * @param granularity
+     *            In milliseconds.
+     * @param timeZones
+     *            Zones of the {@link #today(ZoneOffsets)} calls to cache. The default time zone
+     *            is always cached.
+     * @return A started clock. {@link Cached#stop()} it when done.
+     */
+    public static Cached cached(final long granularity, final TimeZone... timeZones) {
+
+        return new Cached(granularity, timeZones);
+    }
+
+    /**
+     * Creates a clock that only moves when told to.
+     *
+     * @param millis
+     *            Initial epoch millis.
+     * @return
+     */
+    public static Fake fake(final long millis) {
+
+        return new Fake(millis);
+    }
+
+    /**
+     * @return Epoch millis.
+     */
+    public abstract long millis();
+
+    /**
+     * @return The current instant, as a new {@link Date}.
+     */
+    public Date now() {
+
+        return new Date(millis());
+    }
+
+    /**
+     * @return The epoch day of today, in the default time zone.
+     */
+    public int today() {
+
+        return today(DEFAULT_ZONE);
+    }
+
+    /**
+     * @param zone
+     * @return The epoch day of today, in {@code zone}.
+     */
+    public int today(final ZoneOffsets zone) {
+
+        return zone.epochDay(millis());
+    }
+
+    /**
+     * Same as {@code Dates.calendar(true).getTimeInMillis()}.
+     *
+     * @return The instant today started, in the default time zone.
+     */
+    public long startOfToday() {
+
+        return startOfToday(DEFAULT_ZONE);
+    }
+
+    /**
+     * @param zone
+     * @return The instant today started, in {@code zone}.
+     */
+    public long startOfToday(final ZoneOffsets zone) {
+
+        return zone.startOfDay(today(zone));
+    }
+
+    /**
+     * Clock refreshed by a background thread. {@link #today(ZoneOffsets)} of the zones given at
+     * creation is a comparison against the bounds of the cached day.
+     */
+    public static class Cached extends Clock implements Runnable {
+
+        private final long granularity;
+        private final ZoneOffsets[] zones;
+        private final AtomicReferenceArray<Day> days;
+        private final Thread thread;
+        private volatile long millis;
+        private volatile boolean running = true;
+
+        Cached(final long granularity, final TimeZone... timeZones) {
+
+            Preconditions.checkArgument(granularity > 0, "granularity must be > 0.");
+
+            this.granularity = granularity;
+            this.zones = new ZoneOffsets[timeZones.length + 1];
+            this.zones[0] = DEFAULT_ZONE;
+            for (int i = 0; i < timeZones.length; i++) {
+                zones[i + 1] = ZoneOffsets.of(timeZones[i]);
+            }
+            this.days = new AtomicReferenceArray<Day>(zones.length);
+            this.millis = System.currentTimeMillis();
+
+            thread = new Thread(this, "jinah-clock");
+            thread.setDaemon(true);
+            thread.start();
+        }
+
+        @Override
+        public void run() {
+
+            while (running) {
+                millis = System.currentTimeMillis();
+                try {
+                    Thread.sleep(granularity);
+                } catch (final InterruptedException e) {
+                    break;
+                }
+            }
+        }
+
+        /**
+         * Stops the refreshing thread. The clock keeps answering the last instant read.
+         */
+        public void stop() {
+
+            running = false;
+            thread.interrupt();
+        }
+
+        /**
+         * @return Refresh interval, in milliseconds.
+         */
+        public long getGranularity() {
+
+            return granularity;
+        }
+
+        @Override
+        public long millis() {
+
+            return millis;
+        }
+
+        @Override
+        public int today(final ZoneOffsets zone) {
+
+            final long now = millis;
+            for (int i = 0; i < zones.length; i++) {
+                if (zones[i] == zone) {
+                    Day day = days.get(i);
+                    if (day == null || now < day.start || now >= day.end) {
+                        // once a day per zone
+                        final int epochDay = zone.epochDay(now);
+                        day = new Day(epochDay, zone.startOfDay(epochDay), zone.startOfDay(epochDay + 1));
+                        days.set(i, day);
+                    }
+                    return day.epochDay;
+                }
+            }
+            return zone.epochDay(now);
+        }
+    }
+
+    /**
+     * Clock for tests, set by hand.
+     */
+    public static class Fake extends Clock {
+
+        private volatile long millis;
+
+        Fake(final long millis) {
+
+            this.millis = millis;
+        }
+
+        @Override
+        public long millis() {
+
+            return millis;
+        }
+
+        /**
+         * @param millis
+         *            Epoch millis.
+         */
+        public synchronized void set(final long millis) {
+
+            this.millis = millis;
+        }
+
+        public void set(final Date date) {
+
+            Preconditions.checkArgument(date != null, "date can't be null.");
+
+            set(date.getTime());
+        }
+
+        /**
+         * Moves the clock.
+         *
+         * @param millis
+         *            May be negative.
+         */
+        public synchronized void advance(final long millis) {
+
+            this.millis += millis;
+        }
+    }
+
+    /**
+     * Epoch day and its bounds in epoch millis, {@code [start, end)}.
+     */
+    private static class Day {
+
+        final int epochDay;
+        final long start;
+        final long end;
+
+        Day(final int epochDay, final long start, final long end) {
+
+            this.epochDay = epochDay;
+            this.start = start;
+            this.end = end;
+        }
+    }
+
+}
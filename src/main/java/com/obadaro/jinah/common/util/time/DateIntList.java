@@ -0,0 +1,276 @@
+/*
+ * JINAH Project - Java Is Not A Hammer
+ * http://obadaro.com/jinah
+ *
+ * Copyright (C) 2010-2012 Roberto Badaro
+ * and individual contributors by the @authors tag.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.obadaro.jinah.common.util.time;
+
+import java.util.Arrays;
+import java.util.Date;
+
+import com.obadaro.jinah.common.util.Preconditions;
+
+/**
+ * Growable list of dates packed as epoch days (see {@link EpochDays}), backed by an {@code int[]}.
+ * <p>
+ * The list knows when it is sorted - appending in date order keeps it sorted - and then
+ * {@link #binarySearch(int)} and {@link #countInRange(int, int)} run in logarithmic time.
+ * Not thread-safe.
+ * </p>
+ *
+ * @author Roberto Badaro
+ */
+public class DateIntList {
+
+    private static final int DEFAULT_CAPACITY = 16;
+
+    private int[] days;
+    private int size;
+    private boolean sorted = true;
+
+    public DateIntList() {
+
+        this(DEFAULT_CAPACITY);
+    }
+
+    /**
+     * @param capacity
+     *            Initial capacity.
+     */
+    public DateIntList(final int capacity) {
+
+        Preconditions.checkArgument(capacity >= 0, "capacity must be >= 0.");
+
+        days = new int[capacity];
+    }
+
+    /**
+     * Appends an epoch day.
+     *
+     * @param epochDay
+     */
+    public void add(final int epochDay) {
+
+        if (size == days.length) {
+            days = Arrays.copyOf(days, Math.max(DEFAULT_CAPACITY, size + (size >> 1)));
+        }
+        if (size > 0 && days[size - 1] > epochDay) {
+            sorted = false;
+        }
+        days[size++] = epochDay;
+    }
+
+    /**
+     * Appends the epoch day of {@code date}, in the default time zone.
+     *
+     * @param date
+     */
+    public void add(final Date date) {
+
+        add(EpochDays.ofDate(date));
+    }
+
+    /**
+     * Appends epoch days.
+     *
+     * @param epochDays
+     */
+    public void addAll(final int[] epochDays) {
+
+        Preconditions.checkArgument(epochDays != null, "epochDays can't be null.");
+
+        if (size + epochDays.length > days.length) {
+            days = Arrays.copyOf(days, Math.max(size + epochDays.length, size + (size >> 1)));
+        }
+        for (final int epochDay : epochDays) {
+            add(epochDay);
+        }
+    }
+
+    /**
+     * @param index
+     * @return The epoch day at {@code index}.
+     */
+    public int get(final int index) {
+
+        checkIndex(index);
+        return days[index];
+    }
+
+    /**
+     * Replaces the epoch day at {@code index}.
+     *
+     * @param index
+     * @param epochDay
+     */
+    public void set(final int index, final int epochDay) {
+
+        checkIndex(index);
+        days[index] = epochDay;
+        if (sorted && ((index > 0 && days[index - 1] > epochDay) || (index < size - 1 && days[index + 1] < epochDay))) {
+            sorted = false;
+        }
+    }
+
+    /**
+     * @param index
+     * @return The date at {@code index}, at the start of the day in the default time zone.
+     */
+    public Date getDate(final int index) {
+
+        return EpochDays.toDate(get(index));
+    }
+
+    public int size() {
+
+        return size;
+    }
+
+    public boolean isEmpty() {
+
+        return size == 0;
+    }
+
+    public void clear() {
+
+        size = 0;
+        sorted = true;
+    }
+
+    /**
+     * @return {@code true} if the days are in ascending order.
+     */
+    public boolean isSorted() {
+
+        return sorted;
+    }
+
+    /**
+     * Sorts the days in ascending order.
+     */
+    public void sort() {
+
+        if (!sorted) {
+            Arrays.sort(days, 0, size);
+            sorted = true;
+        }
+    }
+
+    /**
+     * Searches an epoch day. The list must be sorted.
+     *
+     * @param epochDay
+     * @return Index of the day, if it is in the list; otherwise, {@code (-(insertion point) - 1)}.
+     * @throws IllegalStateException
+     *             If the list is not sorted.
+     * @see Arrays#binarySearch(int[], int, int, int)
+     */
+    public int binarySearch(final int epochDay) {
+
+        Preconditions.checkState(sorted, "list is not sorted");
+
+        return Arrays.binarySearch(days, 0, size, epochDay);
+    }
+
+    /**
+     * Counts the days between {@code from} and {@code to}, inclusive. Logarithmic time if the list
+     * is sorted, linear if not.
+     *
+     * @param from
+     *            Epoch day.
+     * @param to
+     *            Epoch day.
+     * @return
+     */
+    public int countInRange(final int from, final int to) {
+
+        if (from > to) {
+            return 0;
+        }
+        if (sorted) {
+            return lowerBound(to + 1L) - lowerBound(from);
+        }
+
+        int count = 0;
+        for (int i = 0; i < size; i++) {
+            if (days[i] >= from && days[i] <= to) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Index of the first day {@code >= epochDay}.
+     */
+    private int lowerBound(final long epochDay) {
+
+        int lo = 0;
+        int hi = size;
+        while (lo < hi) {
+            final int mid = (lo + hi) >>> 1;
+            if (days[mid] < epochDay) {
+                lo = mid + 1;
+            } else {
+                hi = mid;
+            }
+        }
+        return lo;
+    }
+
+    /**
+     * @return A copy of the days.
+     */
+    public int[] toArray() {
+
+        return Arrays.copyOf(days, size);
+    }
+
+    /**
+     * Formats the day at {@code index}.
+     *
+     * @param index
+     * @param pattern
+     * @return
+     * @see EpochDays#format(int, FixedDatePattern)
+     */
+    public String format(final int index, final FixedDatePattern pattern) {
+
+        return EpochDays.format(get(index), pattern);
+    }
+
+    private void checkIndex(final int index) {
+
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+        }
+    }
+
+    @Override
+    public String toString() {
+
+        final StringBuilder sb = new StringBuilder("DateIntList[");
+        for (int i = 0; i < size; i++) {
+            if (i > 0) {
+                sb.append(", ");
+            }
+            sb.append(EpochDays.toYyyymmdd(days[i]));
+        }
+        return sb.append(']').toString();
+    }
+
+}
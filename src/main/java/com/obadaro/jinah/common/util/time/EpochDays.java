@@ -0,0 +1,324 @@
+/*
+ * JINAH Project - Java Is Not A Hammer
+ * http://obadaro.com/jinah
+ *
+ * Copyright (C) 2010-2012 Roberto Badaro
+ * and individual contributors by the @authors tag.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.obadaro.jinah.common.util.time;
+
+import java.util.Date;
+import java.util.TimeZone;
+
+import com.obadaro.jinah.common.util.Dates;
+import com.obadaro.jinah.common.util.Preconditions;
+
+/**
+ * Integer arithmetic over epoch days - the number of days since 1970-01-01 - using the proleptic
+ * Gregorian calendar. Nothing here allocates, except the conversions to {@link Date} and
+ * {@link String}.
+ * <p>
+ * An epoch day is a packed date: a plain {@code int}, 4 bytes against the 24 of a {@link Date}
+ * (plus its reference), that sorts in date order and supports day arithmetic with {@code +} and
+ * {@code -}. See {@link DateIntList} for a collection of them. When a readable number is preferred,
+ * {@link #toYyyymmdd(int)} and {@link #fromYyyymmdd(int)} convert to and from {@code yyyymmdd}.
+ * </p>
+ * <p>
+ * Months are 1-based (January is 1), unlike {@link java.util.Calendar}.
+ * </p>
+ *
+ * @author Roberto Badaro
+ */
+public class EpochDays {
+
+    public static final int MONDAY = 1;
+    public static final int TUESDAY = 2;
+    public static final int WEDNESDAY = 3;
+    public static final int THURSDAY = 4;
+    public static final int FRIDAY = 5;
+    public static final int SATURDAY = 6;
+    public static final int SUNDAY = 7;
+
+    /**
+     * Days from 0000-03-01 to 1970-01-01.
+     */
+    private static final int DAYS_0000_TO_1970 = 719468;
+    private static final int DAYS_PER_400_YEARS = 146097;
+
+    /**
+     * Returns the epoch day of the date.
+     *
+     * @param year
+     * @param month
+     *            1 to 12.
+     * @param dayOfMonth
+     * @return
+     */
+    public static int of(int year, final int month, final int dayOfMonth) {
+
+        if (month <= 2) {
+            year--;
+        }
+        final int era = (year >= 0 ? year : year - 399) / 400;
+        final int yearOfEra = year - era * 400;
+        final int dayOfYear = (153 * (month > 2 ? month - 3 : month + 9) + 2) / 5 + dayOfMonth - 1;
+        final int dayOfEra = yearOfEra * 365 + yearOfEra / 4 - yearOfEra / 100 + dayOfYear;
+
+        return era * DAYS_PER_400_YEARS + dayOfEra - DAYS_0000_TO_1970;
+    }
+
+    /**
+     * Returns the date as the {@code int} {@code yyyymmdd}. Only meaningful for years 0 to 9999.
+     *
+     * <pre>
+     * <code>
+     * toYyyymmdd(of(2012, 1, 31)) returns 20120131
+     * </code>
+     * </pre>
+     *
+     * @param epochDay
+     * @return
+     */
+    public static int toYyyymmdd(final int epochDay) {
+
+        final int z = epochDay + DAYS_0000_TO_1970;
+        final int era = (z >= 0 ? z : z - DAYS_PER_400_YEARS + 1) / DAYS_PER_400_YEARS;
+        final int dayOfEra = z - era * DAYS_PER_400_YEARS;
+        final int yearOfEra = (dayOfEra - dayOfEra / 1460 + dayOfEra / 36524 - dayOfEra / 146096) / 365;
+        final int dayOfYear = dayOfEra - (365 * yearOfEra + yearOfEra / 4 - yearOfEra / 100);
+        final int mp = (5 * dayOfYear + 2) / 153;
+        final int day = dayOfYear - (153 * mp + 2) / 5 + 1;
+        final int month = (mp < 10 ? mp + 3 : mp - 9);
+        final int year = yearOfEra + era * 400 + (month <= 2 ? 1 : 0);
+
+        return year * 10000 + month * 100 + day;
+    }
+
+    /**
+     * Returns the epoch day of an {@code int} {@code yyyymmdd}.
+     *
+     * @param yyyymmdd
+     * @return
+     * @throws IllegalArgumentException
+     *             If {@code yyyymmdd} is not a valid date.
+     */
+    public static int fromYyyymmdd(final int yyyymmdd) {
+
+        final int year = yyyymmdd / 10000;
+        final int month = yyyymmdd / 100 % 100;
+        final int day = yyyymmdd % 100;
+        Preconditions.checkArgument(yyyymmdd >= 0 && month >= 1 && month <= 12 && day >= 1
+                && day <= lengthOfMonth(year, month), "Invalid date: %s", yyyymmdd);
+
+        return of(year, month, day);
+    }
+
+    /**
+     * @param epochDay
+     * @return The year of the epoch day.
+     */
+    public static int year(final int epochDay) {
+
+        return toYyyymmdd(epochDay) / 10000;
+    }
+
+    /**
+     * @param epochDay
+     * @return The month of the epoch day, 1 to 12.
+     */
+    public static int month(final int epochDay) {
+
+        return toYyyymmdd(epochDay) / 100 % 100;
+    }
+
+    /**
+     * @param epochDay
+     * @return The day of month of the epoch day.
+     */
+    public static int dayOfMonth(final int epochDay) {
+
+        return toYyyymmdd(epochDay) % 100;
+    }
+
+    /**
+     * @param epochDay
+     * @return The day of week of the epoch day, from {@link #MONDAY} (1) to {@link #SUNDAY} (7).
+     */
+    public static int dayOfWeek(final int epochDay) {
+
+        // 1970-01-01 was a thursday
+        return (int) floorMod(epochDay + 3L, 7) + 1;
+    }
+
+    /**
+     * @param year
+     * @return {@code true} if {@code year} is a leap year.
+     */
+    public static boolean isLeapYear(final int year) {
+
+        return (year & 3) == 0 && (year % 100 != 0 || year % 400 == 0);
+    }
+
+    /**
+     * @param year
+     * @param month
+     *            1 to 12.
+     * @return Number of days of the month.
+     */
+    public static int lengthOfMonth(final int year, final int month) {
+
+        if (month == 2) {
+            return (isLeapYear(year) ? 29 : 28);
+        }
+        return (month == 4 || month == 6 || month == 9 || month == 11 ? 30 : 31);
+    }
+
+    /**
+     * Adds months to the epoch day, the way {@link java.util.Calendar#add(int, int)} does: the day
+     * of month is kept, or pinned to the last day of a shorter month ({@code 01-31} plus one month
+     * is {@code 02-28} or {@code 02-29}). Only meaningful for years 0 to 9999.
+     *
+     * @param epochDay
+     * @param months
+     *            May be negative.
+     * @return Epoch day.
+     */
+    public static int plusMonths(final int epochDay, final int months) {
+
+        final int ymd = toYyyymmdd(epochDay);
+        final long monthCount = (ymd / 10000) * 12L + (ymd / 100 % 100 - 1) + months;
+        final int year = (int) floorDiv(monthCount, 12);
+        final int month = (int) floorMod(monthCount, 12) + 1;
+
+        return of(year, month, Math.min(ymd % 100, lengthOfMonth(year, month)));
+    }
+
+    /**
+     * Returns the epoch day of a local time, expressed as milliseconds from 1970-01-01T00:00 of
+     * the same local time line.
+     *
+     * @param localMillis
+     * @return
+     */
+    public static int ofLocalMillis(final long localMillis) {
+
+        return (int) floorDiv(localMillis, Dates.ONE_DAY_MILLIS);
+    }
+
+    /**
+     * Returns the epoch day of an instant, as seen in {@code timeZone}.
+     *
+     * @param millis
+     *            Epoch millis.
+     * @param timeZone
+     * @return
+     */
+    public static int ofInstant(final long millis, final TimeZone timeZone) {
+
+        return ZoneOffsets.of(timeZone).epochDay(millis);
+    }
+
+    /**
+     * Returns the epoch day of {@code date} in the default time zone.
+     *
+     * @param date
+     * @return
+     */
+    public static int ofDate(final Date date) {
+
+        return ofDate(date, TimeZone.getDefault());
+    }
+
+    /**
+     * Returns the epoch day of {@code date} in {@code timeZone}.
+     *
+     * @param date
+     * @param timeZone
+     * @return
+     */
+    public static int ofDate(final Date date, final TimeZone timeZone) {
+
+        Preconditions.checkArgument(date != null, "date can't be null.");
+        Preconditions.checkArgument(timeZone != null, "timeZone is null");
+
+        return ofInstant(date.getTime(), timeZone);
+    }
+
+    /**
+     * Returns the start of the epoch day in the default time zone, the same instant as
+     * {@code Dates.calendar(date, true)}.
+     *
+     * @param epochDay
+     * @return
+     */
+    public static Date toDate(final int epochDay) {
+
+        return toDate(epochDay, TimeZone.getDefault());
+    }
+
+    /**
+     * Returns the start of the epoch day in {@code timeZone}.
+     *
+     * @param epochDay
+     * @param timeZone
+     * @return
+     */
+    public static Date toDate(final int epochDay, final TimeZone timeZone) {
+
+        return new Date(ZoneOffsets.of(timeZone).startOfDay(epochDay));
+    }
+
+    /**
+     * Formats the epoch day with a fixed width pattern, like {@link Dates#dd_MM_yyyy}. Time fields
+     * of the pattern are formatted as 0 (zero).
+     *
+     * @param epochDay
+     * @param pattern
+     * @return
+     */
+    public static String format(final int epochDay, final FixedDatePattern pattern) {
+
+        final char[] buf = new char[pattern.length()];
+        pattern.formatLocal(epochDay * Dates.ONE_DAY_MILLIS, buf, 0);
+        return new String(buf);
+    }
+
+    /**
+     * Formats the epoch day with a fixed width pattern into {@code dst}.
+     *
+     * @param epochDay
+     * @param pattern
+     * @param dst
+     * @param offset
+     *            Position of {@code dst} to write the first char.
+     * @return Number of chars written, always {@code pattern.length()}.
+     */
+    public static int format(final int epochDay, final FixedDatePattern pattern, final char[] dst, final int offset) {
+
+        return pattern.formatLocal(epochDay * Dates.ONE_DAY_MILLIS, dst, offset);
+    }
+
+    static long floorDiv(final long a, final long b) {
+
+        final long q = a / b;
+        return ((a % b) != 0 && ((a ^ b) < 0) ? q - 1 : q);
+    }
+
+    static long floorMod(final long a, final long b) {
+
+        return a - floorDiv(a, b) * b;
+    }
+
+}
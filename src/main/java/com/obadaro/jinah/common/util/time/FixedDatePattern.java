@@ -0,0 +1,392 @@
+/*
+ * JINAH Project - Java Is Not A Hammer
+ * http://obadaro.com/jinah
+ *
+ * Copyright (C) 2010-2012 Roberto Badaro
+ * and individual contributors by the @authors tag.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.obadaro.jinah.common.util.time;
+
+import java.text.SimpleDateFormat;
+import java.util.TimeZone;
+
+import com.obadaro.jinah.common.util.Dates;
+import com.obadaro.jinah.common.util.Preconditions;
+
+/**
+ * Parser and formatter for fixed width, all numeric, {@link SimpleDateFormat} patterns, like
+ * {@link Dates#dd_MM_yyyy} or {@link Dates#dd_MM_yyyy_HH_mm_ss}. Supported fields are {@code yyyy},
+ * {@code MM}, {@code dd}, {@code HH}, {@code mm}, {@code ss} and {@code SSS}; any other character
+ * that is not a letter is a literal.
+ * <p>
+ * Instances are immutable, thread-safe and do not allocate while parsing. The parser is a fast
+ * path, not a replacement: it only accepts input that a non lenient {@link SimpleDateFormat} would
+ * parse to the same instant, and returns {@link #INVALID} for anything else - including years
+ * before 1583 (Julian calendar) and local times inside a daylight saving gap or overlap.
+ * </p>
+ *
+ * @author Roberto Badaro
+ */
+public class FixedDatePattern {
+
+    /**
+     * Returned by {@link #parse(CharSequence, TimeZone)} when the fast path can't parse the text.
+     */
+    public static final long INVALID = Long.MIN_VALUE;
+
+    private static final byte LITERAL = 0;
+    private static final byte YEAR = 1;
+    private static final byte MONTH = 2;
+    private static final byte DAY = 3;
+    private static final byte HOUR = 4;
+    private static final byte MINUTE = 5;
+    private static final byte SECOND = 6;
+    private static final byte MILLI = 7;
+
+    private static final int FIRST_GREGORIAN_YEAR = 1583;
+
+    private final String pattern;
+    private final char[] literals;
+    private final byte[] fields;
+    private final boolean hasYear;
+
+    private FixedDatePattern(final String pattern, final char[] literals, final byte[] fields) {
+
+        this.pattern = pattern;
+        this.literals = literals;
+        this.fields = fields;
+
+        boolean year = false;
+        for (final byte f : fields) {
+            year |= (f == YEAR);
+        }
+        this.hasYear = year;
+    }
+
+    /**
+     * Compiles {@code pattern}.
+     *
+     * @param pattern
+     *            A {@link SimpleDateFormat} pattern.
+     * @return The compiled pattern, or {@code null} if {@code pattern} is not fixed width and all
+     *         numeric.
+     */
+    public static FixedDatePattern compile(final String pattern) {
+
+        Preconditions.checkArgument(pattern != null, "pattern can't be null.");
+
+        final int len = pattern.length();
+        final char[] literals = new char[len];
+        final byte[] fields = new byte[len];
+        int seen = 0;
+
+        for (int i = 0; i < len;) {
+            final char c = pattern.charAt(i);
+            if (c == '\'') {
+                return null;
+            }
+            if (!isAsciiLetter(c)) {
+                literals[i] = c;
+                fields[i++] = LITERAL;
+                continue;
+            }
+
+            int run = 1;
+            while (i + run < len && pattern.charAt(i + run) == c) {
+                run++;
+            }
+
+            final byte field = field(c, run);
+            if (field == LITERAL || (seen & (1 << field)) != 0) {
+                return null;
+            }
+            seen |= (1 << field);
+            for (int k = 0; k < run; k++) {
+                fields[i++] = field;
+            }
+        }
+
+        return new FixedDatePattern(pattern, literals, fields);
+    }
+
+    private static byte field(final char c, final int run) {
+
+        switch (c) {
+        case 'y':
+            return (run == 4 ? YEAR : LITERAL);
+        case 'M':
+            return (run == 2 ? MONTH : LITERAL);
+        case 'd':
+            return (run == 2 ? DAY : LITERAL);
+        case 'H':
+            return (run == 2 ? HOUR : LITERAL);
+        case 'm':
+            return (run == 2 ? MINUTE : LITERAL);
+        case 's':
+            return (run == 2 ? SECOND : LITERAL);
+        case 'S':
+            return (run == 3 ? MILLI : LITERAL);
+        default:
+            return LITERAL;
+        }
+    }
+
+    private static boolean isAsciiLetter(final char c) {
+
+        return (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z');
+    }
+
+    /**
+     * @return The source pattern.
+     */
+    public String getPattern() {
+
+        return pattern;
+    }
+
+    /**
+     * @return The length of every text this pattern parses or formats.
+     */
+    public int length() {
+
+        return fields.length;
+    }
+
+    /**
+     * Parses {@code text} as a local time of {@code timeZone}.
+     *
+     * @param text
+     * @param timeZone
+     * @return The instant in epoch millis, or {@link #INVALID}.
+     */
+    public long parse(final CharSequence text, final TimeZone timeZone) {
+
+        return parse(text, ZoneOffsets.of(timeZone));
+    }
+
+    /**
+     * Parses {@code text} as a local time of {@code zone}. Resolve the zone once and use this
+     * method when parsing many texts.
+     *
+     * @param text
+     * @param zone
+     * @return The instant in epoch millis, or {@link #INVALID}.
+     */
+    public long parse(final CharSequence text, final ZoneOffsets zone) {
+
+        final long local = parseLocal(text);
+        if (local == INVALID) {
+            return INVALID;
+        }
+
+        // local times skipped or repeated by a transition: SimpleDateFormat has rules of its own
+        final long millis = zone.toUtcStrict(local);
+        return (millis == ZoneOffsets.AMBIGUOUS ? INVALID : millis);
+    }
+
+    /**
+     * Parses {@code text} to milliseconds from 1970-01-01T00:00 of the local time line, without
+     * time zone conversion.
+     *
+     * @param text
+     * @return The local millis, or {@link #INVALID}.
+     */
+    public long parseLocal(final CharSequence text) {
+
+        final int len = fields.length;
+        if (text == null || text.length() != len) {
+            return INVALID;
+        }
+
+        int year = 1970, month = 0, day = 0, hour = 0, minute = 0, second = 0, milli = 0;
+        boolean hasMonth = false, hasDay = false;
+
+        for (int i = 0; i < len; i++) {
+            final char c = text.charAt(i);
+            final byte field = fields[i];
+            if (field == LITERAL) {
+                if (c != literals[i]) {
+                    return INVALID;
+                }
+                continue;
+            }
+
+            final int digit = c - '0';
+            if (digit < 0 || digit > 9) {
+                return INVALID;
+            }
+            switch (field) {
+            case YEAR:
+                year = (i > 0 && fields[i - 1] == YEAR ? year * 10 + digit : digit);
+                break;
+            case MONTH:
+                month = month * 10 + digit;
+                hasMonth = true;
+                break;
+            case DAY:
+                day = day * 10 + digit;
+                hasDay = true;
+                break;
+            case HOUR:
+                hour = hour * 10 + digit;
+                break;
+            case MINUTE:
+                minute = minute * 10 + digit;
+                break;
+            case SECOND:
+                second = second * 10 + digit;
+                break;
+            default:
+                milli = milli * 10 + digit;
+                break;
+            }
+        }
+
+        if (!hasMonth) {
+            month = 1;
+        }
+        if (!hasDay) {
+            day = 1;
+        }
+        if ((hasYear && year < FIRST_GREGORIAN_YEAR) || month < 1 || month > 12 || day < 1
+                || day > EpochDays.lengthOfMonth(year, month) || hour > 23 || minute > 59 || second > 59) {
+            return INVALID;
+        }
+
+        final long epochDay = EpochDays.of(year, month, day);
+        return epochDay * Dates.ONE_DAY_MILLIS + hour * Dates.ONE_HOUR + minute * Dates.ONE_MINUTE
+                + second * 1000L + milli;
+    }
+
+    /**
+     * Formats {@code millis} as a local time of {@code timeZone}.
+     *
+     * @param millis
+     * @param timeZone
+     * @return
+     */
+    public String format(final long millis, final TimeZone timeZone) {
+
+        final char[] buf = new char[fields.length];
+        format(millis, timeZone, buf, 0);
+        return new String(buf);
+    }
+
+    /**
+     * Formats {@code millis} as a local time of {@code timeZone} into {@code dst}.
+     *
+     * @param millis
+     * @param timeZone
+     * @param dst
+     * @param offset
+     *            Position of {@code dst} to write the first char.
+     * @return Number of chars written, always {@link #length()}.
+     */
+    public int format(final long millis, final TimeZone timeZone, final char[] dst, final int offset) {
+
+        return format(millis, ZoneOffsets.of(timeZone), dst, offset);
+    }
+
+    /**
+     * Formats {@code millis} as a local time of {@code zone} into {@code dst}.
+     *
+     * @param millis
+     * @param zone
+     * @param dst
+     * @param offset
+     *            Position of {@code dst} to write the first char.
+     * @return Number of chars written, always {@link #length()}.
+     */
+    public int format(final long millis, final ZoneOffsets zone, final char[] dst, final int offset) {
+
+        Preconditions.checkArgument(zone != null, "zone is null");
+
+        return formatLocal(zone.toLocal(millis), dst, offset);
+    }
+
+    /**
+     * Formats milliseconds from 1970-01-01T00:00 of the local time line into {@code dst}.
+     *
+     * @param localMillis
+     * @param dst
+     * @param offset
+     *            Position of {@code dst} to write the first char.
+     * @return Number of chars written, always {@link #length()}.
+     */
+    public int formatLocal(final long localMillis, final char[] dst, final int offset) {
+
+        final int len = fields.length;
+        Preconditions.checkArgument(dst.length - offset >= len, "dst is too small");
+
+        final int epochDay = EpochDays.ofLocalMillis(localMillis);
+        final int timeOfDay = (int) (localMillis - (long) epochDay * Dates.ONE_DAY_MILLIS);
+        final int ymd = EpochDays.toYyyymmdd(epochDay);
+        Preconditions.checkArgument(ymd >= 0 && ymd <= 99991231, "year out of range: %s", ymd / 10000);
+
+        // fills every field from its last char backwards
+        int year = ymd / 10000, month = ymd / 100 % 100, day = ymd % 100;
+        int hour = (int) (timeOfDay / Dates.ONE_HOUR);
+        int minute = (int) (timeOfDay / Dates.ONE_MINUTE % 60);
+        int second = timeOfDay / 1000 % 60;
+        int milli = timeOfDay % 1000;
+
+        for (int i = len - 1; i >= 0; i--) {
+            int v;
+            switch (fields[i]) {
+            case LITERAL:
+                dst[offset + i] = literals[i];
+                continue;
+            case YEAR:
+                v = year;
+                year /= 10;
+                break;
+            case MONTH:
+                v = month;
+                month /= 10;
+                break;
+            case DAY:
+                v = day;
+                day /= 10;
+                break;
+            case HOUR:
+                v = hour;
+                hour /= 10;
+                break;
+            case MINUTE:
+                v = minute;
+                minute /= 10;
+                break;
+            case SECOND:
+                v = second;
+                second /= 10;
+                break;
+            default:
+                v = milli;
+                milli /= 10;
+                break;
+            }
+            dst[offset + i] = (char) ('0' + v % 10);
+        }
+
+        return len;
+    }
+
+    @Override
+    public String toString() {
+
+        return "FixedDatePattern[" + pattern + "]";
+    }
+
+}
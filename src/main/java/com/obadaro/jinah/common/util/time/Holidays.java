@@ -0,0 +1,331 @@
+/*
+ * JINAH Project - Java Is Not A Hammer
+ * http://obadaro.com/jinah
+ *
+ * Copyright (C) 2010-2012 Roberto Badaro
+ * and individual contributors by the @authors tag.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.obadaro.jinah.common.util.time;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringReader;
+import java.util.Arrays;
+
+import com.obadaro.jinah.common.JinahException;
+import com.obadaro.jinah.common.util.Preconditions;
+import com.obadaro.jinah.common.util.Strings;
+
+/**
+ * A set of holiday rules, loaded from a simple text format - one rule per line:
+ *
+ * <pre>
+ * # comments start with '#'
+ * 12-25              fixed day (MM-dd), every year
+ * easter-48          moveable feast, days from Easter sunday
+ * 2012-06-20         one-off date (yyyy-MM-dd)
+ * 11-20  2024-       optional year range: "from-", "-to" or "from-to", inclusive
+ * </pre>
+ *
+ * Moveable feasts are computed once per year, when {@link #of(int)} is called.
+ *
+ * @author Roberto Badaro
+ */
+public class Holidays {
+
+    /**
+     * Brazilian national holidays, including Carnival (monday and tuesday) and Corpus Christi, as
+     * used by the ANBIMA settlement calendar.
+     */
+    public static final Holidays BRAZIL = parse(""
+        + "01-01           # Confraternizacao Universal\n"
+        + "easter-48       # Carnaval (segunda-feira)\n"
+        + "easter-47       # Carnaval (terca-feira)\n"
+        + "easter-2        # Sexta-feira da Paixao\n"
+        + "04-21           # Tiradentes\n"
+        + "05-01           # Dia do Trabalho\n"
+        + "easter+60       # Corpus Christi\n"
+        + "09-07           # Independencia do Brasil\n"
+        + "10-12           # Nossa Senhora Aparecida\n"
+        + "11-02           # Finados\n"
+        + "11-15           # Proclamacao da Republica\n"
+        + "11-20  2024-    # Dia Nacional de Zumbi e da Consciencia Negra\n"
+        + "12-25           # Natal\n");
+
+    /**
+     * B3 (Brazilian exchange) trading holidays: {@link #BRAZIL} plus the Sao Paulo holidays the
+     * exchange observed until 2021, christmas eve and new year's eve. Exchange calendars change
+     * every year; load the official file when exact dates matter.
+     */
+    public static final Holidays B3 = BRAZIL.union(parse(""
+        + "01-25  -2021    # Aniversario de Sao Paulo\n"
+        + "07-09  -2021    # Revolucao Constitucionalista\n"
+        + "11-20  -2021    # Consciencia Negra (Sao Paulo)\n"
+        + "12-24           # Vespera de Natal\n"
+        + "12-31           # Ultimo dia do ano\n"));
+
+    private static final int FIXED = 0;
+    private static final int EASTER = 1;
+    private static final int DATE = 2;
+
+    private final int[] kinds;
+    private final int[] values;
+    private final int[] fromYears;
+    private final int[] toYears;
+
+    private Holidays(final int[] kinds, final int[] values, final int[] fromYears, final int[] toYears) {
+
+        this.kinds = kinds;
+        this.values = values;
+        this.fromYears = fromYears;
+        this.toYears = toYears;
+    }
+
+    /**
+     * Parses holiday rules.
+     *
+     * @param rules
+     * @return
+     * @throws IllegalArgumentException
+     *             If a line is not a valid rule.
+     */
+    public static Holidays parse(final String rules) {
+
+        Preconditions.checkArgument(rules != null, "rules can't be null.");
+
+        try {
+            return parse(new StringReader(rules));
+        } catch (final IOException e) {
+            throw new JinahException(e);
+        }
+    }
+
+    /**
+     * Parses holiday rules, like the contents of a file.
+     *
+     * @param reader
+     * @return
+     * @throws IOException
+     * @throws IllegalArgumentException
+     *             If a line is not a valid rule.
+     */
+    public static Holidays parse(final Reader reader) throws IOException {
+
+        Preconditions.checkArgument(reader != null, "reader can't be null.");
+
+        final BufferedReader in = new BufferedReader(reader);
+        int[] kinds = new int[16];
+        int[] values = new int[16];
+        int[] fromYears = new int[16];
+        int[] toYears = new int[16];
+        int count = 0;
+        int lineNumber = 0;
+
+        String line;
+        while ((line = in.readLine()) != null) {
+            lineNumber++;
+            final int comment = line.indexOf('#');
+            if (comment != -1) {
+                line = line.substring(0, comment);
+            }
+            if (Strings.isBlank(line)) {
+                continue;
+            }
+
+            final String[] tokens = line.trim().split("\\s+");
+            Preconditions.checkArgument(tokens.length <= 2, "Invalid holiday rule at line %s: %s", lineNumber, line);
+
+            if (count == kinds.length) {
+                kinds = Arrays.copyOf(kinds, count * 2);
+                values = Arrays.copyOf(values, count * 2);
+                fromYears = Arrays.copyOf(fromYears, count * 2);
+                toYears = Arrays.copyOf(toYears, count * 2);
+            }
+
+            parseRule(tokens[0], lineNumber, count, kinds, values);
+            fromYears[count] = Integer.MIN_VALUE;
+            toYears[count] = Integer.MAX_VALUE;
+            if (tokens.length == 2) {
+                parseYears(tokens[1], lineNumber, count, fromYears, toYears);
+            }
+            count++;
+        }
+
+        return new Holidays(Arrays.copyOf(kinds, count), Arrays.copyOf(values, count),
+            Arrays.copyOf(fromYears, count), Arrays.copyOf(toYears, count));
+    }
+
+    private static void parseRule(final String rule,
+                                  final int lineNumber,
+                                  final int index,
+                                  final int[] kinds,
+                                  final int[] values) {
+
+        try {
+            if (rule.startsWith("easter")) {
+                final String offset = rule.substring("easter".length());
+                kinds[index] = EASTER;
+                values[index] = (offset.isEmpty() ? 0 : Integer.parseInt(offset.startsWith("+")
+                        ? offset.substring(1)
+                        : offset));
+                return;
+            }
+
+            final String[] parts = rule.split("-");
+            if (parts.length == 2) {
+                final int month = Integer.parseInt(parts[0]);
+                final int day = Integer.parseInt(parts[1]);
+                Preconditions.checkArgument(month >= 1 && month <= 12 && day >= 1
+                        && day <= EpochDays.lengthOfMonth(2000, month), "Invalid holiday rule at line %s: %s",
+                    lineNumber, rule);
+                kinds[index] = FIXED;
+                values[index] = month * 100 + day;
+                return;
+            }
+            if (parts.length == 3) {
+                final int year = Integer.parseInt(parts[0]);
+                final int month = Integer.parseInt(parts[1]);
+                final int day = Integer.parseInt(parts[2]);
+                Preconditions.checkArgument(month >= 1 && month <= 12 && day >= 1
+                        && day <= EpochDays.lengthOfMonth(year, month), "Invalid holiday rule at line %s: %s",
+                    lineNumber, rule);
+                kinds[index] = DATE;
+                values[index] = EpochDays.of(year, month, day);
+                return;
+            }
+        } catch (final NumberFormatException e) {
+            // reported below
+        }
+        throw new IllegalArgumentException(String.format("Invalid holiday rule at line %s: %s", lineNumber, rule));
+    }
+
+    private static void parseYears(final String range,
+                                   final int lineNumber,
+                                   final int index,
+                                   final int[] fromYears,
+                                   final int[] toYears) {
+
+        final int dash = range.indexOf('-');
+        try {
+            if (dash == -1) {
+                fromYears[index] = toYears[index] = Integer.parseInt(range);
+                return;
+            }
+            if (dash > 0) {
+                fromYears[index] = Integer.parseInt(range.substring(0, dash));
+            }
+            if (dash < range.length() - 1) {
+                toYears[index] = Integer.parseInt(range.substring(dash + 1));
+            }
+        } catch (final NumberFormatException e) {
+            throw new IllegalArgumentException(String.format("Invalid year range at line %s: %s", lineNumber,
+                range));
+        }
+    }
+
+    /**
+     * Returns the date of Easter sunday (Gregorian computus).
+     *
+     * @param year
+     * @return The epoch day of Easter sunday.
+     */
+    public static int easter(final int year) {
+
+        final int a = year % 19;
+        final int b = year / 100;
+        final int c = year % 100;
+        final int d = b / 4;
+        final int e = b % 4;
+        final int f = (b + 8) / 25;
+        final int g = (b - f + 1) / 3;
+        final int h = (19 * a + b - d - g + 15) % 30;
+        final int i = c / 4;
+        final int k = c % 4;
+        final int l = (32 + 2 * e + 2 * i - h - k) % 7;
+        final int m = (a + 11 * h + 22 * l) / 451;
+        final int month = (h + l - 7 * m + 114) / 31;
+        final int day = (h + l - 7 * m + 114) % 31 + 1;
+
+        return EpochDays.of(year, month, day);
+    }
+
+    /**
+     * Returns a new set with the rules of both sets.
+     *
+     * @param other
+     * @return
+     */
+    public Holidays union(final Holidays other) {
+
+        Preconditions.checkArgument(other != null, "other can't be null.");
+
+        return new Holidays(concat(kinds, other.kinds), concat(values, other.values), concat(fromYears,
+            other.fromYears), concat(toYears, other.toYears));
+    }
+
+    private static int[] concat(final int[] a, final int[] b) {
+
+        final int[] ret = Arrays.copyOf(a, a.length + b.length);
+        System.arraycopy(b, 0, ret, a.length, b.length);
+        return ret;
+    }
+
+    /**
+     * Returns the holidays of {@code year}.
+     *
+     * @param year
+     * @return Sorted epoch days, without duplicates.
+     */
+    public int[] of(final int year) {
+
+        final int easter = easter(year);
+        final int[] days = new int[kinds.length];
+        int count = 0;
+
+        for (int i = 0; i < kinds.length; i++) {
+            if (year < fromYears[i] || year > toYears[i]) {
+                continue;
+            }
+            switch (kinds[i]) {
+            case FIXED:
+                final int month = values[i] / 100;
+                final int day = values[i] % 100;
+                if (day <= EpochDays.lengthOfMonth(year, month)) {
+                    days[count++] = EpochDays.of(year, month, day);
+                }
+                break;
+            case EASTER:
+                days[count++] = easter + values[i];
+                break;
+            default:
+                if (EpochDays.year(values[i]) == year) {
+                    days[count++] = values[i];
+                }
+                break;
+            }
+        }
+
+        Arrays.sort(days, 0, count);
+        int distinct = 0;
+        for (int i = 0; i < count; i++) {
+            if (distinct == 0 || days[distinct - 1] != days[i]) {
+                days[distinct++] = days[i];
+            }
+        }
+        return Arrays.copyOf(days, distinct);
+    }
+
+}
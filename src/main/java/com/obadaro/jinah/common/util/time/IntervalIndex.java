@@ -0,0 +1,369 @@
+/*
+ * JINAH Project - Java Is Not A Hammer
+ * http://obadaro.com/jinah
+ *
+ * Copyright (C) 2010-2012 Roberto Badaro
+ * and individual contributors by the @authors tag.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.obadaro.jinah.common.util.time;
+
+import java.util.Date;
+import java.util.TimeZone;
+
+import com.obadaro.jinah.common.util.Dates;
+import com.obadaro.jinah.common.util.Preconditions;
+
+/**
+ * Immutable index of closed intervals of epoch millis, answering which intervals contain an
+ * instant (stabbing query) or overlap a range - the bulk version of
+ * {@link Dates#isBetween(Date, Date, Date)}.
+ * <p>
+ * Intervals are kept sorted by start, as the in-order layout of an implicit balanced tree where
+ * each node also stores the greatest end of its subtree. A query costs {@code O(log n + k)} for
+ * {@code k} results, and the index takes 28 bytes per interval.
+ * </p>
+ * <p>
+ * Queries report intervals by id: their position in the arrays the index was built from.
+ * </p>
+ *
+ * @author Roberto Badaro
+ */
+public class IntervalIndex {
+
+    /**
+     * Subtrees up to this level are scanned instead of walked.
+     */
+    private static final int SCAN_LEVEL = 3;
+
+    private static final int[] EMPTY = new int[0];
+
+    private final long[] starts;
+    private final long[] ends;
+    private final long[] maxEnds;
+    private final int[] ids;
+    private final int maxLevel;
+
+    private IntervalIndex(final long[] starts, final long[] ends, final int[] ids) {
+
+        this.starts = starts;
+        this.ends = ends;
+        this.ids = ids;
+        this.maxEnds = new long[starts.length];
+        this.maxLevel = prepare();
+    }
+
+    /**
+     * Builds an index of the intervals {@code [starts[i], ends[i]]}, inclusive. An interval whose
+     * end is before its start contains nothing: it is left out of the index, so no query reports
+     * it.
+     *
+     * @param starts
+     *            Epoch millis.
+     * @param ends
+     *            Epoch millis.
+     * @return
+     */
+    public static IntervalIndex of(final long[] starts, final long[] ends) {
+
+        Preconditions.checkArgument(starts != null && ends != null, "starts and ends can't be null.");
+        Preconditions.checkArgument(starts.length == ends.length, "starts and ends must have the same length.");
+
+        int n = 0;
+        for (int i = 0; i < starts.length; i++) {
+            if (starts[i] <= ends[i]) {
+                n++;
+            }
+        }
+        final int[] order = new int[n];
+        for (int i = 0, j = 0; j < n; i++) {
+            if (starts[i] <= ends[i]) {
+                order[j++] = i;
+            }
+        }
+        sort(order, new int[n], 0, n, starts);
+
+        final long[] s = new long[n];
+        final long[] e = new long[n];
+        for (int i = 0; i < n; i++) {
+            s[i] = starts[order[i]];
+            e[i] = ends[order[i]];
+        }
+
+        return new IntervalIndex(s, e, order);
+    }
+
+    /**
+     * Builds an index of the intervals {@code [starts[i], ends[i]]}, inclusive.
+     *
+     * @param starts
+     * @param ends
+     * @return
+     */
+    public static IntervalIndex of(final Date[] starts, final Date[] ends) {
+
+        Preconditions.checkArgument(starts != null && ends != null, "starts and ends can't be null.");
+        Preconditions.checkArgument(starts.length == ends.length, "starts and ends must have the same length.");
+
+        final long[] s = new long[starts.length];
+        final long[] e = new long[ends.length];
+        for (int i = 0; i < s.length; i++) {
+            s[i] = starts[i].getTime();
+            e[i] = ends[i].getTime();
+        }
+
+        return of(s, e);
+    }
+
+    /**
+     * Builds an index that ignores the time portion of the dates, in the default time zone: an
+     * interval contains {@code date} when {@code Dates.isBetween(start, end, date, true)} does.
+     *
+     * @param starts
+     * @param ends
+     * @return
+     * @see Dates#isBetween(Date, Date, Date, boolean)
+     */
+    public static IntervalIndex ofDays(final Date[] starts, final Date[] ends) {
+
+        return ofDays(starts, ends, TimeZone.getDefault());
+    }
+
+    /**
+     * Builds an index that ignores the time portion of the dates, in {@code timeZone}. Each
+     * interval is widened from the start of its first day to the end of its last day.
+     *
+     * @param starts
+     * @param ends
+     * @param timeZone
+     * @return
+     */
+    public static IntervalIndex ofDays(final Date[] starts, final Date[] ends, final TimeZone timeZone) {
+
+        Preconditions.checkArgument(starts != null && ends != null, "starts and ends can't be null.");
+        Preconditions.checkArgument(starts.length == ends.length, "starts and ends must have the same length.");
+
+        final ZoneOffsets zone = ZoneOffsets.of(timeZone);
+        final long[] s = new long[starts.length];
+        final long[] e = new long[ends.length];
+        for (int i = 0; i < s.length; i++) {
+            s[i] = zone.startOfDay(zone.epochDay(starts[i].getTime()));
+            e[i] = zone.startOfDay(zone.epochDay(ends[i].getTime()) + 1) - 1;
+        }
+
+        return of(s, e);
+    }
+
+    /**
+     * @return Number of intervals, but for those left out because their end is before their start.
+     */
+    public int size() {
+
+        return starts.length;
+    }
+
+    /**
+     * Returns the intervals containing {@code millis}.
+     *
+     * @param millis
+     * @return Ids of the intervals, in ascending start order.
+     */
+    public int[] stab(final long millis) {
+
+        return overlapping(millis, millis);
+    }
+
+    /**
+     * Returns the intervals containing {@code date}.
+     *
+     * @param date
+     * @return Ids of the intervals, in ascending start order.
+     */
+    public int[] stab(final Date date) {
+
+        Preconditions.checkArgument(date != null, "date can't be null.");
+
+        return stab(date.getTime());
+    }
+
+    /**
+     * Returns the number of intervals containing {@code millis}.
+     *
+     * @param millis
+     * @return
+     */
+    public int count(final long millis) {
+
+        return overlapping(millis, millis, null);
+    }
+
+    /**
+     * Fills {@code out} with the ids of the intervals containing {@code millis}, without
+     * allocating.
+     *
+     * @param millis
+     * @param out
+     * @return Total number of intervals containing {@code millis}. Only the first
+     *         {@code out.length} are written, in ascending start order.
+     */
+    public int stab(final long millis, final int[] out) {
+
+        return overlapping(millis, millis, out);
+    }
+
+    /**
+     * Returns the intervals overlapping the range {@code [from, to]}, inclusive.
+     *
+     * @param from
+     * @param to
+     * @return Ids of the intervals, in ascending start order.
+     */
+    public int[] overlapping(final long from, final long to) {
+
+        final int count = overlapping(from, to, null);
+        if (count == 0) {
+            return EMPTY;
+        }
+
+        final int[] ret = new int[count];
+        overlapping(from, to, ret);
+        return ret;
+    }
+
+    /**
+     * Fills {@code out} with the ids of the intervals overlapping {@code [from, to]}, without
+     * allocating.
+     *
+     * @param from
+     * @param to
+     * @param out
+     *            May be {@code null}, to just count.
+     * @return Total number of intervals overlapping the range. Only the first {@code out.length}
+     *         are written, in ascending start order.
+     */
+    public int overlapping(final long from, final long to, final int[] out) {
+
+        if (starts.length == 0 || from > to) {
+            return 0;
+        }
+        return query(maxLevel, (1 << maxLevel) - 1, from, to, out, 0);
+    }
+
+    /**
+     * Walks the implicit tree in order. Node {@code x} at level {@code k} has {@code k} trailing 1
+     * bits and children {@code x - 2^(k-1)} and {@code x + 2^(k-1)}; positions past the end are
+     * virtual nodes, whose left subtree is always visited.
+     */
+    private int query(final int k, final int x, final long from, final long to, final int[] out, int count) {
+
+        final int n = starts.length;
+
+        if (k <= SCAN_LEVEL) {
+            final int first = x >> k << k;
+            final int end = Math.min(n, first + (1 << (k + 1)) - 1);
+            for (int i = first; i < end && starts[i] <= to; i++) {
+                if (from <= ends[i]) {
+                    count = report(i, out, count);
+                }
+            }
+            return count;
+        }
+
+        final int half = 1 << (k - 1);
+        final int left = x - half;
+        if (left >= n || maxEnds[left] >= from) {
+            count = query(k - 1, left, from, to, out, count);
+        }
+        if (x < n && starts[x] <= to) {
+            if (from <= ends[x]) {
+                count = report(x, out, count);
+            }
+            count = query(k - 1, x + half, from, to, out, count);
+        }
+        return count;
+    }
+
+    private int report(final int position, final int[] out, final int count) {
+
+        if (out != null && count < out.length) {
+            out[count] = ids[position];
+        }
+        return count + 1;
+    }
+
+    /**
+     * Fills {@link #maxEnds}, bottom up.
+     *
+     * @return Level of the root.
+     */
+    private int prepare() {
+
+        final int n = starts.length;
+        if (n == 0) {
+            return 0;
+        }
+
+        int lastIndex = 0;
+        long last = 0;
+        for (int i = 0; i < n; i += 2) {
+            lastIndex = i;
+            last = maxEnds[i] = ends[i];
+        }
+
+        int k = 1;
+        for (; 1L << k <= n; k++) {
+            final int x = 1 << (k - 1);
+            final int step = x << 2;
+            for (int i = (x << 1) - 1; i < n; i += step) {
+                final long left = maxEnds[i - x];
+                final long right = (i + x < n ? maxEnds[i + x] : last);
+                maxEnds[i] = Math.max(ends[i], Math.max(left, right));
+            }
+            // the ancestor of the last node, one level up
+            lastIndex = ((lastIndex >> k & 1) != 0 ? lastIndex - x : lastIndex + x);
+            if (lastIndex < n && maxEnds[lastIndex] > last) {
+                last = maxEnds[lastIndex];
+            }
+        }
+        return k - 1;
+    }
+
+    /**
+     * Stable merge sort of {@code order} by {@code keys[order[i]]}.
+     */
+    private static void sort(final int[] order, final int[] tmp, final int from, final int to, final long[] keys) {
+
+        if (to - from < 2) {
+            return;
+        }
+        final int middle = (from + to) >>> 1;
+        sort(order, tmp, from, middle, keys);
+        sort(order, tmp, middle, to, keys);
+        if (keys[order[middle - 1]] <= keys[order[middle]]) {
+            return;
+        }
+
+        System.arraycopy(order, from, tmp, from, to - from);
+        int i = from;
+        int j = middle;
+        for (int k = from; k < to; k++) {
+            if (j >= to || (i < middle && keys[tmp[i]] <= keys[tmp[j]])) {
+                order[k] = tmp[i++];
+            } else {
+                order[k] = tmp[j++];
+            }
+        }
+    }
+
+}
@@ -0,0 +1,416 @@
+/*
+ * JINAH Project - Java Is Not A Hammer
+ * http://obadaro.com/jinah
+ *
+ * Copyright (C) 2010-2012 Roberto Badaro
+ * and individual contributors by the @authors tag.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.obadaro.jinah.common.util.time;
+
+import java.util.Date;
+import java.util.NoSuchElementException;
+
+import com.obadaro.jinah.common.util.Preconditions;
+
+/**
+ * Immutable description of a recurring schedule - a payment schedule, for instance - whose
+ * occurrences are epoch days (see {@link EpochDays}) computed on demand.
+ * <p>
+ * Every occurrence is computed from the start date, never from the previous occurrence, so
+ * {@link #occurrence(int)} runs in constant time and monthly schedules don't drift: starting on
+ * January 31th, the occurrences are February 28th (or 29th), March 31th, April 30th and so on.
+ * </p>
+ *
+ * <pre>
+ * <code>
+ * BusinessCalendar anbima = new BusinessCalendar(Holidays.BRAZIL, 2000, 2060);
+ * Schedule installments = Schedule.monthly(EpochDays.of(2012, 1, 31), 360)
+ *     .endOfMonth()
+ *     .adjusted(anbima, Schedule.Adjustment.MODIFIED_FOLLOWING);
+ *
+ * int tenth = installments.occurrence(9);
+ * for (Schedule.Occurrences it = installments.iterator(); it.hasNext();) {
+ *     int day = it.next();
+ *     ...
+ * }
+ * </code>
+ * </pre>
+ *
+ * @author Roberto Badaro
+ */
+public class Schedule {
+
+    public enum Frequency {
+
+        DAILY,
+
+        WEEKLY,
+
+        MONTHLY,
+
+        YEARLY
+    }
+
+    /**
+     * What to do with occurrences that fall on a day that is not a business day.
+     */
+    public enum Adjustment {
+
+        /**
+         * Keep the day.
+         */
+        NONE,
+
+        /**
+         * Move to the next business day.
+         */
+        FOLLOWING,
+
+        /**
+         * Move to the next business day, unless it is in the next month: then move to the previous
+         * business day.
+         */
+        MODIFIED_FOLLOWING,
+
+        /**
+         * Move to the previous business day.
+         */
+        PRECEDING,
+
+        /**
+         * Move to the previous business day, unless it is in the previous month: then move to the
+         * next business day.
+         */
+        MODIFIED_PRECEDING
+    }
+
+    private static final int LAST_DAY = EpochDays.of(9999, 12, 31);
+
+    private final int start;
+    private final Frequency frequency;
+    private final int interval;
+    private final int count;
+    private final boolean endOfMonth;
+    private final BusinessCalendar calendar;
+    private final Adjustment adjustment;
+
+    /**
+     * Creates an unadjusted schedule.
+     *
+     * @param start
+     *            Epoch day of the first occurrence.
+     * @param frequency
+     * @param interval
+     *            Number of days, weeks, months or years between occurrences. Must be positive.
+     * @param count
+     *            Number of occurrences.
+     */
+    public Schedule(final int start, final Frequency frequency, final int interval, final int count) {
+
+        this(start, frequency, interval, count, false, null, Adjustment.NONE);
+    }
+
+    private Schedule(final int start,
+                     final Frequency frequency,
+                     final int interval,
+                     final int count,
+                     final boolean endOfMonth,
+                     final BusinessCalendar calendar,
+                     final Adjustment adjustment) {
+
+        Preconditions.checkArgument(frequency != null, "frequency can't be null.");
+        Preconditions.checkArgument(interval > 0, "interval must be > 0.");
+        Preconditions.checkArgument(count >= 0, "count must be >= 0.");
+        Preconditions.checkArgument(start >= EpochDays.of(0, 1, 1) && start <= LAST_DAY,
+            "start out of range: %s", start);
+
+        this.start = start;
+        this.frequency = frequency;
+        this.interval = interval;
+        this.count = count;
+        this.endOfMonth = endOfMonth;
+        this.calendar = calendar;
+        this.adjustment = adjustment;
+
+        Preconditions.checkArgument(count == 0 || unadjusted(count - 1) <= LAST_DAY,
+            "Schedule goes beyond year 9999");
+    }
+
+    /**
+     * @param start
+     *            Epoch day of the first occurrence.
+     * @param count
+     *            Number of occurrences.
+     * @return A schedule of {@code count} consecutive days.
+     */
+    public static Schedule daily(final int start, final int count) {
+
+        return new Schedule(start, Frequency.DAILY, 1, count);
+    }
+
+    /**
+     * @param start
+     *            Epoch day of the first occurrence.
+     * @param count
+     *            Number of occurrences.
+     * @return A weekly schedule.
+     */
+    public static Schedule weekly(final int start, final int count) {
+
+        return new Schedule(start, Frequency.WEEKLY, 1, count);
+    }
+
+    /**
+     * @param start
+     *            Epoch day of the first occurrence.
+     * @param count
+     *            Number of occurrences.
+     * @return A monthly schedule, on the day of month of {@code start}.
+     */
+    public static Schedule monthly(final int start, final int count) {
+
+        return new Schedule(start, Frequency.MONTHLY, 1, count);
+    }
+
+    /**
+     * @param start
+     *            Epoch day of the first occurrence.
+     * @param count
+     *            Number of occurrences.
+     * @return A yearly schedule.
+     */
+    public static Schedule yearly(final int start, final int count) {
+
+        return new Schedule(start, Frequency.YEARLY, 1, count);
+    }
+
+    /**
+     * Returns a copy of this schedule following the end of month rule: if the start is the last
+     * day of its month, monthly and yearly occurrences are the last day of their months too.
+     *
+     * @return
+     */
+    public Schedule endOfMonth() {
+
+        return new Schedule(start, frequency, interval, count, true, calendar, adjustment);
+    }
+
+    /**
+     * Returns a copy of this schedule with occurrences adjusted to business days of
+     * {@code calendar}.
+     *
+     * @param calendar
+     * @param adjustment
+     * @return
+     */
+    public Schedule adjusted(final BusinessCalendar calendar, final Adjustment adjustment) {
+
+        Preconditions.checkArgument(adjustment != null, "adjustment can't be null.");
+        Preconditions.checkArgument(calendar != null || adjustment == Adjustment.NONE, "calendar can't be null.");
+
+        return new Schedule(start, frequency, interval, count, endOfMonth, calendar, adjustment);
+    }
+
+    /**
+     * @return Number of occurrences.
+     */
+    public int size() {
+
+        return count;
+    }
+
+    /**
+     * Returns the {@code n}-th occurrence, counting from 0 (zero), in constant time.
+     *
+     * @param n
+     * @return Epoch day.
+     * @throws IndexOutOfBoundsException
+     *             If {@code n} is not in {@code [0, size())}.
+     * @throws IllegalArgumentException
+     *             If the occurrence is outside of the range of the business calendar.
+     */
+    public int occurrence(final int n) {
+
+        if (n < 0 || n >= count) {
+            throw new IndexOutOfBoundsException("Index: " + n + ", Size: " + count);
+        }
+        return adjust((int) unadjusted(n));
+    }
+
+    /**
+     * Same as {@link #occurrence(int)}, at the start of the day in the default time zone.
+     *
+     * @param n
+     * @return
+     */
+    public Date getDate(final int n) {
+
+        return EpochDays.toDate(occurrence(n));
+    }
+
+    /**
+     * Returns the index of the first occurrence on or after {@code epochDay}, in logarithmic time.
+     *
+     * @param epochDay
+     * @return Index of the occurrence, or {@link #size()} if all occurrences are before
+     *         {@code epochDay}.
+     */
+    public int indexOnOrAfter(final int epochDay) {
+
+        // occurrences never decrease, even adjusted
+        int lo = 0;
+        int hi = count;
+        while (lo < hi) {
+            final int mid = (lo + hi) >>> 1;
+            if (occurrence(mid) < epochDay) {
+                lo = mid + 1;
+            } else {
+                hi = mid;
+            }
+        }
+        return lo;
+    }
+
+    /**
+     * @return An iterator over all occurrences.
+     */
+    public Occurrences iterator() {
+
+        return iterator(0, count);
+    }
+
+    /**
+     * @param from
+     *            Index of the first occurrence, inclusive.
+     * @param to
+     *            Index of the last occurrence, exclusive.
+     * @return An iterator over the occurrences {@code from} to {@code to}.
+     */
+    public Occurrences iterator(final int from, final int to) {
+
+        Preconditions.checkArgument(from >= 0 && from <= to && to <= count, "Invalid range: %s, %s", from, to);
+
+        return new Occurrences(from, to);
+    }
+
+    /**
+     * Copies the occurrences to a list. Only for schedules that fit in memory.
+     *
+     * @return
+     */
+    public DateIntList toList() {
+
+        final DateIntList list = new DateIntList(count);
+        for (int i = 0; i < count; i++) {
+            list.add(occurrence(i));
+        }
+        return list;
+    }
+
+    private long unadjusted(final int n) {
+
+        switch (frequency) {
+        case DAILY:
+            return start + (long) n * interval;
+        case WEEKLY:
+            return start + 7L * n * interval;
+        default:
+            final long months = (long) n * interval * (frequency == Frequency.YEARLY ? 12 : 1);
+            if (months > 12L * 10000) {
+                return Long.MAX_VALUE;
+            }
+            final int day = EpochDays.plusMonths(start, (int) months);
+            if (endOfMonth && isLastDayOfMonth(start)) {
+                final int ymd = EpochDays.toYyyymmdd(day);
+                return day - ymd % 100 + EpochDays.lengthOfMonth(ymd / 10000, ymd / 100 % 100);
+            }
+            return day;
+        }
+    }
+
+    private int adjust(final int day) {
+
+        if (adjustment == Adjustment.NONE || calendar.isBusinessDay(day)) {
+            return day;
+        }
+
+        switch (adjustment) {
+        case FOLLOWING:
+            return calendar.nextBusinessDay(day);
+        case PRECEDING:
+            return calendar.previousBusinessDay(day);
+        case MODIFIED_FOLLOWING:
+            final int next = calendar.nextBusinessDay(day);
+            return (EpochDays.month(next) == EpochDays.month(day) ? next : calendar.previousBusinessDay(day));
+        default:
+            final int previous = calendar.previousBusinessDay(day);
+            return (EpochDays.month(previous) == EpochDays.month(day) ? previous : calendar.nextBusinessDay(day));
+        }
+    }
+
+    private static boolean isLastDayOfMonth(final int epochDay) {
+
+        return EpochDays.month(epochDay + 1) != EpochDays.month(epochDay);
+    }
+
+    @Override
+    public String toString() {
+
+        return "Schedule[" + frequency + "/" + interval + ", start=" + EpochDays.toYyyymmdd(start) + ", count="
+                + count + (endOfMonth ? ", endOfMonth" : "") + ", " + adjustment + "]";
+    }
+
+    /**
+     * Iterator over occurrences, as {@code int} epoch days. Not thread-safe.
+     */
+    public class Occurrences {
+
+        private int index;
+        private final int end;
+
+        Occurrences(final int from, final int to) {
+
+            this.index = from;
+            this.end = to;
+        }
+
+        public boolean hasNext() {
+
+            return index < end;
+        }
+
+        /**
+         * @return The next occurrence, as an epoch day.
+         * @throws NoSuchElementException
+         *             If there are no more occurrences.
+         */
+        public int next() {
+
+            if (index >= end) {
+                throw new NoSuchElementException();
+            }
+            return occurrence(index++);
+        }
+
+        /**
+         * @return Index of the occurrence {@link #next()} returns.
+         */
+        public int nextIndex() {
+
+            return index;
+        }
+    }
+
+}
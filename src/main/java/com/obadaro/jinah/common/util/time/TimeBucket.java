@@ -0,0 +1,183 @@
+/*
+ * JINAH Project - Java Is Not A Hammer
+ * http://obadaro.com/jinah
+ *
+ * Copyright (C) 2010-2012 Roberto Badaro
+ * and individual contributors by the @authors tag.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.obadaro.jinah.common.util.time;
+
+import java.util.TimeZone;
+
+import com.obadaro.jinah.common.util.Dates;
+import com.obadaro.jinah.common.util.Preconditions;
+
+/**
+ * Time series buckets. Maps epoch millis to the key of their bucket - the instant the bucket
+ * starts, in a time zone - without allocating.
+ *
+ * <pre>
+ * <code>
+ * ZoneOffsets zone = ZoneOffsets.of(TimeZone.getDefault());
+ * long hour = TimeBucket.HOUR.truncate(event.getTimestamp(), zone);
+ *
+ * TimeBucket.DAY.truncate(timestamps, TimeZone.getDefault(), keys);
+ * </code>
+ * </pre>
+ *
+ * {@link #DAY} keys are the same instants as {@code Dates.calendar(date, true)}. Minute and hour
+ * buckets are instant based: the hour repeated when daylight saving time ends makes two buckets.
+ *
+ * @author Roberto Badaro
+ */
+public enum TimeBucket {
+
+    MINUTE(Dates.ONE_MINUTE),
+
+    HOUR(Dates.ONE_HOUR),
+
+    DAY(0),
+
+    MONTH(0),
+
+    YEAR(0);
+
+    /**
+     * Length of the instant based buckets; 0 (zero) for the day based ones.
+     */
+    private final long length;
+
+    private TimeBucket(final long length) {
+
+        this.length = length;
+    }
+
+    /**
+     * Returns the key of the bucket of {@code millis}.
+     *
+     * @param millis
+     *            Epoch millis.
+     * @param zone
+     * @return The instant the bucket starts, in epoch millis.
+     */
+    public long truncate(final long millis, final ZoneOffsets zone) {
+
+        final long local = zone.toLocal(millis);
+        if (length != 0) {
+            return millis - EpochDays.floorMod(local, length);
+        }
+        return zone.startOfDay(firstDay(EpochDays.ofLocalMillis(local)));
+    }
+
+    /**
+     * Returns the key of the bucket of {@code millis}.
+     *
+     * @param millis
+     *            Epoch millis.
+     * @param timeZone
+     * @return The instant the bucket starts, in epoch millis.
+     */
+    public long truncate(final long millis, final TimeZone timeZone) {
+
+        return truncate(millis, ZoneOffsets.of(timeZone));
+    }
+
+    /**
+     * Maps each of {@code millis} to the key of its bucket.
+     *
+     * @param millis
+     *            Epoch millis.
+     * @param timeZone
+     * @param keys
+     *            Receives the keys. May be {@code millis} itself.
+     */
+    public void truncate(final long[] millis, final TimeZone timeZone, final long[] keys) {
+
+        truncate(millis, 0, millis.length, ZoneOffsets.of(timeZone), keys, 0);
+    }
+
+    /**
+     * Maps {@code length} epoch millis, starting at {@code offset}, to the keys of their buckets.
+     *
+     * @param millis
+     *            Epoch millis.
+     * @param offset
+     * @param length
+     * @param zone
+     * @param keys
+     *            Receives the keys. May be {@code millis} itself.
+     * @param keysOffset
+     */
+    public void truncate(final long[] millis,
+                         final int offset,
+                         final int length,
+                         final ZoneOffsets zone,
+                         final long[] keys,
+                         final int keysOffset) {
+
+        Preconditions.checkArgument(zone != null, "zone is null");
+        Preconditions.checkArgument(offset >= 0 && length >= 0 && offset + length <= millis.length,
+            "Invalid range: %s, %s", offset, length);
+        Preconditions.checkArgument(keysOffset >= 0 && keysOffset + length <= keys.length, "keys is too small");
+
+        // consecutive events usually share the day: reuse the last key while the day fits
+        int firstDay = 1;
+        int lastDay = 0;
+        long key = 0;
+
+        for (int i = 0; i < length; i++) {
+            final long t = millis[offset + i];
+            final long local = zone.toLocal(t);
+            if (this.length != 0) {
+                keys[keysOffset + i] = t - EpochDays.floorMod(local, this.length);
+                continue;
+            }
+
+            final int day = EpochDays.ofLocalMillis(local);
+            if (day < firstDay || day > lastDay) {
+                firstDay = firstDay(day);
+                lastDay = lastDay(firstDay);
+                key = zone.startOfDay(firstDay);
+            }
+            keys[keysOffset + i] = key;
+        }
+    }
+
+    private int firstDay(final int epochDay) {
+
+        switch (this) {
+        case MONTH:
+            return epochDay - EpochDays.dayOfMonth(epochDay) + 1;
+        case YEAR:
+            return EpochDays.of(EpochDays.year(epochDay), 1, 1);
+        default:
+            return epochDay;
+        }
+    }
+
+    private int lastDay(final int firstDay) {
+
+        switch (this) {
+        case MONTH:
+            final int ymd = EpochDays.toYyyymmdd(firstDay);
+            return firstDay + EpochDays.lengthOfMonth(ymd / 10000, ymd / 100 % 100) - 1;
+        case YEAR:
+            return firstDay + (EpochDays.isLeapYear(EpochDays.year(firstDay)) ? 365 : 364);
+        default:
+            return firstDay;
+        }
+    }
+
+}
@@ -0,0 +1,328 @@
+/*
+ * JINAH Project - Java Is Not A Hammer
+ * http://obadaro.com/jinah
+ *
+ * Copyright (C) 2010-2012 Roberto Badaro
+ * and individual contributors by the @authors tag.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.obadaro.jinah.common.util.time;
+
+import java.util.Arrays;
+import java.util.Calendar;
+import java.util.TimeZone;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import com.obadaro.jinah.common.util.Dates;
+import com.obadaro.jinah.common.util.Preconditions;
+
+/**
+ * Cached table of the offset transitions of a {@link TimeZone}, so local times can be derived from
+ * epoch millis (and back) with a binary search and integer math, instead of a {@link Calendar}.
+ * <p>
+ * The table grows on demand, one decade at a time, to cover the instants in use. Reads never
+ * lock; growing replaces the table under a lock.
+ * </p>
+ *
+ * @author Roberto Badaro
+ */
+public class ZoneOffsets {
+
+    private static final ConcurrentMap<String, ZoneOffsets> CACHE = new ConcurrentHashMap<String, ZoneOffsets>();
+
+    /**
+     * Offset changes are found by sampling the zone at this step. Zones don't change offsets
+     * twice in less than 6 hours.
+     */
+    private static final long PROBE_STEP = 6 * Dates.ONE_HOUR;
+
+    private static final long DECADE = 3653 * Dates.ONE_DAY_MILLIS;
+
+    /**
+     * Instants outside of [1700, 2300) are not cached.
+     */
+    private static final long MIN_CACHED = EpochDays.of(1700, 1, 1) * Dates.ONE_DAY_MILLIS;
+    private static final long MAX_CACHED = EpochDays.of(2300, 1, 1) * Dates.ONE_DAY_MILLIS;
+
+    /**
+     * Returned by {@link #toUtcStrict(long)} for skipped or repeated local times.
+     */
+    public static final long AMBIGUOUS = Long.MIN_VALUE;
+
+    private final TimeZone timeZone;
+    private volatile Table table;
+
+    private ZoneOffsets(final TimeZone timeZone) {
+
+        this.timeZone = (TimeZone) timeZone.clone();
+        this.table = build(this.timeZone, 0, DECADE);
+    }
+
+    /**
+     * Returns the cached offsets of {@code timeZone}.
+     *
+     * @param timeZone
+     * @return
+     */
+    public static ZoneOffsets of(final TimeZone timeZone) {
+
+        Preconditions.checkArgument(timeZone != null, "timeZone is null");
+
+        final ZoneOffsets cached = CACHE.get(timeZone.getID());
+        if (cached != null && (cached.timeZone == timeZone || cached.timeZone.hasSameRules(timeZone))) {
+            return cached;
+        }
+
+        final ZoneOffsets created = new ZoneOffsets(timeZone);
+        if (cached == null) {
+            final ZoneOffsets raced = CACHE.putIfAbsent(timeZone.getID(), created);
+            return (raced != null && raced.timeZone.hasSameRules(timeZone) ? raced : created);
+        }
+
+        // a custom zone using the ID of another one: not cached
+        return created;
+    }
+
+    /**
+     * @return A copy of the time zone.
+     */
+    public TimeZone getTimeZone() {
+
+        return (TimeZone) timeZone.clone();
+    }
+
+    /**
+     * Same as {@link TimeZone#getOffset(long)}.
+     *
+     * @param millis
+     *            Epoch millis.
+     * @return Offset from UTC, in millis.
+     */
+    public int getOffset(final long millis) {
+
+        Table t = table;
+        if (millis < t.start || millis >= t.end) {
+            if (millis < MIN_CACHED || millis >= MAX_CACHED) {
+                return timeZone.getOffset(millis);
+            }
+            t = grow(millis);
+        }
+
+        final long[] starts = t.starts;
+        int lo = 0;
+        int hi = starts.length - 1;
+        while (lo < hi) {
+            final int mid = (lo + hi + 1) >>> 1;
+            if (starts[mid] <= millis) {
+                lo = mid;
+            } else {
+                hi = mid - 1;
+            }
+        }
+        return t.offsets[lo];
+    }
+
+    /**
+     * Converts an instant to local millis - milliseconds from 1970-01-01T00:00 of the local time
+     * line.
+     *
+     * @param millis
+     *            Epoch millis.
+     * @return
+     */
+    public long toLocal(final long millis) {
+
+        return millis + getOffset(millis);
+    }
+
+    /**
+     * Converts local millis to an instant, the way a lenient {@link Calendar} does: local times
+     * skipped by a transition are moved forward by the size of the gap, and local times repeated
+     * by a transition resolve to the later instant (standard time).
+     *
+     * @param local
+     * @return Epoch millis.
+     */
+    public long toUtc(final long local) {
+
+        final int before = getOffset(local - Dates.ONE_DAY_MILLIS);
+        final int after = getOffset(local + Dates.ONE_DAY_MILLIS);
+        if (before == after) {
+            return local - before;
+        }
+
+        final long utcAfter = local - after;
+        if (getOffset(utcAfter) == after) {
+            return utcAfter;
+        }
+        return local - before;
+    }
+
+    /**
+     * Converts local millis to an instant, refusing the local times skipped or repeated by a
+     * transition.
+     *
+     * @param local
+     * @return Epoch millis, or {@link #AMBIGUOUS}.
+     */
+    public long toUtcStrict(final long local) {
+
+        final int before = getOffset(local - Dates.ONE_DAY_MILLIS);
+        final int after = getOffset(local + Dates.ONE_DAY_MILLIS);
+
+        final long utcBefore = local - before;
+        final boolean isBefore = (getOffset(utcBefore) == before);
+        if (before == after) {
+            return (isBefore ? utcBefore : AMBIGUOUS);
+        }
+
+        final long utcAfter = local - after;
+        final boolean isAfter = (getOffset(utcAfter) == after);
+        if (isBefore == isAfter) {
+            return AMBIGUOUS;
+        }
+        return (isBefore ? utcBefore : utcAfter);
+    }
+
+    /**
+     * Returns the epoch day of an instant in this zone.
+     *
+     * @param millis
+     *            Epoch millis.
+     * @return
+     */
+    public int epochDay(final long millis) {
+
+        return EpochDays.ofLocalMillis(toLocal(millis));
+    }
+
+    /**
+     * Returns the instant a day starts in this zone. Usually midnight, but not in zones that skip
+     * midnight when daylight saving time begins.
+     *
+     * @param epochDay
+     * @return Epoch millis.
+     */
+    public long startOfDay(final int epochDay) {
+
+        return toUtc(epochDay * Dates.ONE_DAY_MILLIS);
+    }
+
+    private synchronized Table grow(final long millis) {
+
+        Table t = table;
+        if (millis >= t.start && millis < t.end) {
+            return t;
+        }
+
+        long start = t.start;
+        long end = t.end;
+        while (millis < start) {
+            start -= DECADE;
+        }
+        while (millis >= end) {
+            end += DECADE;
+        }
+
+        final Table head = (start < t.start ? build(timeZone, start, t.start) : null);
+        final Table tail = (end > t.end ? build(timeZone, t.end, end) : null);
+        t = join(join(head, t), tail);
+        table = t;
+        return t;
+    }
+
+    private static Table build(final TimeZone timeZone, final long start, final long end) {
+
+        long[] starts = new long[16];
+        int[] offsets = new int[16];
+        int count = 1;
+
+        starts[0] = start;
+        offsets[0] = timeZone.getOffset(start);
+
+        long previous = start;
+        for (long probe = start + PROBE_STEP; previous < end - 1; probe = Math.min(probe + PROBE_STEP, end - 1)) {
+            final int offset = timeZone.getOffset(probe);
+            if (offset != offsets[count - 1]) {
+                // first millisecond with the new offset
+                long lo = previous;
+                long hi = probe;
+                while (hi - lo > 1) {
+                    final long mid = lo + (hi - lo) / 2;
+                    if (timeZone.getOffset(mid) == offset) {
+                        hi = mid;
+                    } else {
+                        lo = mid;
+                    }
+                }
+                if (count == starts.length) {
+                    starts = Arrays.copyOf(starts, count * 2);
+                    offsets = Arrays.copyOf(offsets, count * 2);
+                }
+                starts[count] = hi;
+                offsets[count++] = offset;
+            }
+            previous = probe;
+        }
+
+        return new Table(start, end, Arrays.copyOf(starts, count), Arrays.copyOf(offsets, count));
+    }
+
+    private static Table join(final Table a, final Table b) {
+
+        if (a == null) {
+            return b;
+        }
+        if (b == null) {
+            return a;
+        }
+
+        // b starts with the offset a ends with: drop the duplicate
+        final int skip = (b.offsets[0] == a.offsets[a.offsets.length - 1] ? 1 : 0);
+        final int count = a.starts.length + b.starts.length - skip;
+        final long[] starts = Arrays.copyOf(a.starts, count);
+        final int[] offsets = Arrays.copyOf(a.offsets, count);
+        System.arraycopy(b.starts, skip, starts, a.starts.length, b.starts.length - skip);
+        System.arraycopy(b.offsets, skip, offsets, a.offsets.length, b.offsets.length - skip);
+
+        return new Table(a.start, b.end, starts, offsets);
+    }
+
+    @Override
+    public String toString() {
+
+        return "ZoneOffsets[" + timeZone.getID() + "]";
+    }
+
+    /**
+     * Offsets of {@code [start, end)}: {@code offsets[i]} is in effect from {@code starts[i]}.
+     */
+    private static class Table {
+
+        final long start;
+        final long end;
+        final long[] starts;
+        final int[] offsets;
+
+        Table(final long start, final long end, final long[] starts, final int[] offsets) {
+
+            this.start = start;
+            this.end = end;
+            this.starts = starts;
+            this.offsets = offsets;
+        }
+    }
+
+}
@@ -1,8 +1,12 @@
 package com.obadaro.jinah.commons.util;
 
 import java.text.SimpleDateFormat;
+import java.util.BitSet;
 import java.util.Calendar;
 import java.util.Date;
+import java.util.Locale;
+import java.util.Random;
+import java.util.TimeZone;
 
 import org.junit.Assert;
 import org.junit.Test;
@@ -67,4 +71,108 @@ public class DatesTest {
         Assert.assertTrue("01/01/2012 12:00 AM".equals(mdaHm));
     }
 
+    @Test
+    public void tParseColumn() throws Exception {
+        final String[] in = { "01/01/2012", "1/2/2012", null, "31/02/2012", "abc", "29/02/2012" };
+        final long[] out = new long[in.length];
+        final SimpleDateFormat sdf = Dates.getFormatter(Dates.dd_MM_yyyy);
+
+        final BitSet invalid = Dates.parseColumn(in, Dates.dd_MM_yyyy, out);
+
+        Assert.assertTrue(invalid.cardinality() == 3);
+        Assert.assertTrue(invalid.get(2) && invalid.get(3) && invalid.get(4));
+        Assert.assertTrue(out[0] == sdf.parse(in[0]).getTime());
+        Assert.assertTrue(out[1] == sdf.parse(in[1]).getTime());
+        Assert.assertTrue(out[5] == sdf.parse(in[5]).getTime());
+    }
+
+    @Test
+    public void tParseColumnParallel() throws Exception {
+        final String[] in = new String[20000];
+        final SimpleDateFormat sdf = Dates.getFormatter(Dates.dd_MM_yyyy_HH_mm_ss);
+        final Calendar c = Calendar.getInstance();
+        c.set(2012, Calendar.JANUARY, 1, 0, 0, 0);
+        for (int i = 0; i < in.length; i++) {
+            in[i] = (i % 1000 == 7 ? "--" : sdf.format(c.getTime()));
+            c.add(Calendar.MINUTE, 97);
+        }
+        final long[] out = new long[in.length];
+
+        final BitSet invalid = Dates.parseColumn(in, Dates.dd_MM_yyyy_HH_mm_ss, out);
+
+        Assert.assertTrue(invalid.cardinality() == 20);
+        for (int i = 0; i < in.length; i++) {
+            if (!invalid.get(i)) {
+                Assert.assertTrue(out[i] == sdf.parse(in[i]).getTime());
+            }
+        }
+    }
+
+    @Test
+    public void tIsBetween() {
+        final Calendar c = Calendar.getInstance();
+        c.set(2012, Calendar.JANUARY, 10, 12, 0, 0);
+        final Date a = c.getTime();
+        final Date b = Dates.addDays(a, 10);
+
+        Assert.assertTrue(Dates.isBetween(a, b, Dates.addDays(a, 5)));
+        Assert.assertTrue(Dates.isBetween(a, b, a));
+        Assert.assertTrue(Dates.isBetween(a, b, b));
+        Assert.assertFalse(Dates.isBetween(a, b, Dates.addDays(b, 1)));
+        Assert.assertFalse(Dates.isBetween(a, b, new Date(a.getTime() - 1)));
+        Assert.assertTrue(Dates.isBetween(a, b, new Date(a.getTime() - 1), true));
+    }
+
+    @Test
+    public void tSameAsCalendar() {
+        final Random random = new Random(7);
+        final Locale locale = Locale.US;
+        final int[] fields = { Calendar.DAY_OF_MONTH, Calendar.MONTH, Calendar.YEAR };
+
+        for (final String id : new String[] { "America/Sao_Paulo", "America/New_York", "Europe/London",
+                "Australia/Lord_Howe", "Asia/Kolkata", "UTC" }) {
+            final TimeZone tz = TimeZone.getTimeZone(id);
+            final Calendar c = Calendar.getInstance(tz, locale);
+
+            for (int i = 0; i < 20000; i++) {
+                // 1900 to 2100, favoring round hours
+                long millis = -2208988800000L + (long) (random.nextDouble() * 6311433600000L);
+                if (i % 2 == 0) {
+                    millis -= millis % Dates.ONE_HOUR;
+                }
+                final Date date = new Date(millis);
+                final int field = fields[i % 3];
+                final int amount = random.nextInt(120) - 60;
+
+                c.setTime(date);
+                c.add(field, amount);
+                Assert.assertEquals(id + " " + millis, c.getTimeInMillis(),
+                    Dates.add(date, field, amount, tz, locale).getTime());
+
+                final Date[] edges = Dates.firstAndLastDayOfMonth(date, tz, locale);
+                c.setTime(date);
+                Dates.clearTime(c);
+                c.set(Calendar.DAY_OF_MONTH, 1);
+                Assert.assertEquals(id + " " + millis, c.getTimeInMillis(), edges[0].getTime());
+                c.set(Calendar.DAY_OF_MONTH, c.getActualMaximum(Calendar.DAY_OF_MONTH));
+                Dates.clearTime(c);
+                Assert.assertEquals(id + " " + millis, c.getTimeInMillis(), edges[1].getTime());
+            }
+        }
+    }
+
+    @Test
+    public void tDaysBetweenDaylightSaving() {
+        final TimeZone tz = TimeZone.getTimeZone("America/New_York");
+        final Calendar c = Calendar.getInstance(tz, Locale.US);
+        c.set(2012, Calendar.MARCH, 1, 0, 0, 0);
+        final Date a = c.getTime();
+        c.set(2012, Calendar.APRIL, 1, 23, 0, 0);
+        final Date b = c.getTime();
+
+        Assert.assertTrue(31 == Dates.daysBetween(a, b, tz, Locale.US));
+        Assert.assertTrue(Dates.isBetween(a, a, b, true, tz, Locale.US) == false);
+        Assert.assertTrue(Dates.isBetween(a, b, new Date(b.getTime() + Dates.ONE_HOUR / 2), true, tz, Locale.US));
+    }
+
 }
@@ -19,10 +19,13 @@
  */
 package com.obadaro.jinah.commons.util.documents.brazil;
 
+import java.util.Random;
+
 import org.junit.Assert;
 import org.junit.Test;
 
 import com.obadaro.jinah.common.util.documents.brazil.CNPJ;
+import com.obadaro.jinah.common.util.documents.brazil.ValidationResult;
 
 /**
  * 
@@ -68,4 +71,44 @@ public class CNPJTest {
         Assert.assertTrue(cnpj.validate(validCnpj));
         Assert.assertFalse(cnpj.validate(invalidCnpj));
     }
+
+    @Test
+    public void tIsValidLong() {
+        Assert.assertTrue(CNPJ.isValid(57742897000146L));
+        // leading zeros
+        Assert.assertTrue(CNPJ.isValid(12345000165L));
+        Assert.assertFalse(CNPJ.isValid(12345000156L));
+        Assert.assertFalse(CNPJ.isValid(0L));
+        Assert.assertFalse(CNPJ.isValid(-57742897000146L));
+        Assert.assertFalse(CNPJ.isValid(57742897000146L * 10));
+    }
+
+    @Test
+    public void tIsValidLongMatchesString() {
+        final Random random = new Random(14);
+        for (int i = 0; i < 100000; i++) {
+            final long doc = (random.nextLong() >>> 1) % 100000000000000L;
+            Assert.assertEquals(cnpj.validate(String.format("%014d", doc)), CNPJ.isValid(doc));
+        }
+    }
+
+    @Test
+    public void tValidateCharSequence() {
+        Assert.assertEquals(ValidationResult.VALID, cnpj.validate(new StringBuilder("57.742.897/0001-46")));
+        Assert.assertEquals(ValidationResult.VALID, cnpj.validate(new StringBuilder("00012345000165")));
+        Assert.assertEquals(ValidationResult.INVALID_CHECK_DIGIT, cnpj.validate(new StringBuilder("47.742.897/0001-46")));
+        Assert.assertEquals(ValidationResult.REPEATED_DIGITS, cnpj.validate(new StringBuilder("00.000.000/0000-00")));
+        // as long as a CNPJ, but not digits only
+        Assert.assertEquals(ValidationResult.INVALID_CHAR, cnpj.validate(new StringBuilder("998.352.292-60")));
+        Assert.assertEquals(ValidationResult.INVALID_LENGTH, cnpj.validate(new StringBuilder("5774289700014")));
+    }
+
+    @Test
+    public void tValidateBytes() throws Exception {
+        final byte[] field = "57.742.897/0001-46".getBytes("US-ASCII");
+
+        Assert.assertEquals(ValidationResult.VALID, cnpj.validate(field, 0, field.length));
+        field[3] = ' ';
+        Assert.assertEquals(ValidationResult.INVALID_CHAR, cnpj.validate(field, 0, field.length));
+    }
 }
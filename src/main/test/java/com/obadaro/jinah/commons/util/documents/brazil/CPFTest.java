@@ -19,10 +19,13 @@
  */
 package com.obadaro.jinah.commons.util.documents.brazil;
 
+import java.util.Random;
+
 import org.junit.Assert;
 import org.junit.Test;
 
 import com.obadaro.jinah.common.util.documents.brazil.CPF;
+import com.obadaro.jinah.common.util.documents.brazil.ValidationResult;
 
 /**
  * 
@@ -61,4 +64,54 @@ public class CPFTest {
         Assert.assertTrue(cpf.validate(validCpf));
         Assert.assertFalse(cpf.validate(invalidCpf));
     }
+
+    @Test
+    public void tIsValidLong() {
+        Assert.assertTrue(CPF.isValid(99835229260L));
+        // leading zeros
+        Assert.assertTrue(CPF.isValid(1234567890L));
+        Assert.assertFalse(CPF.isValid(1234567891L));
+        Assert.assertFalse(CPF.isValid(0L));
+        Assert.assertFalse(CPF.isValid(-99835229260L));
+        Assert.assertFalse(CPF.isValid(99835229260L * 10));
+    }
+
+    @Test
+    public void tIsValidLongMatchesString() {
+        final Random random = new Random(11);
+        for (int i = 0; i < 100000; i++) {
+            final long doc = (random.nextLong() >>> 1) % 100000000000L;
+            Assert.assertEquals(cpf.validate(String.format("%011d", doc)), CPF.isValid(doc));
+        }
+    }
+
+    @Test
+    public void tValidateCharSequence() {
+        Assert.assertEquals(ValidationResult.VALID, cpf.validate(new StringBuilder("998.352.292-60")));
+        Assert.assertEquals(ValidationResult.VALID, cpf.validate(new StringBuilder("99835229260")));
+        Assert.assertEquals(ValidationResult.VALID, cpf.validate(new StringBuilder("012.345.678-90")));
+        Assert.assertEquals(ValidationResult.INVALID_CHECK_DIGIT, cpf.validate(new StringBuilder("998.352.291-60")));
+        Assert.assertEquals(ValidationResult.REPEATED_DIGITS, cpf.validate(new StringBuilder("111.111.111-11")));
+        Assert.assertEquals(ValidationResult.INVALID_CHAR, cpf.validate(new StringBuilder("998.35a.292-60")));
+        Assert.assertEquals(ValidationResult.INVALID_CHAR, cpf.validate(new StringBuilder("998.352.292-6x")));
+        Assert.assertEquals(ValidationResult.INVALID_LENGTH, cpf.validate(new StringBuilder("998.352.292-6")));
+        Assert.assertEquals(ValidationResult.INVALID_LENGTH, cpf.validate((CharSequence) null));
+        Assert.assertFalse(cpf.validate((String) null));
+    }
+
+    @Test
+    public void tValidateBytes() throws Exception {
+        final byte[] line = "Fulano;998.352.292-60;99835229160\n".getBytes("US-ASCII");
+
+        Assert.assertEquals(ValidationResult.VALID, cpf.validate(line, 7, 14));
+        Assert.assertEquals(ValidationResult.INVALID_CHECK_DIGIT, cpf.validate(line, 22, 11));
+        Assert.assertEquals(ValidationResult.INVALID_CHAR, cpf.validate(line, 0, 11));
+        Assert.assertEquals(ValidationResult.INVALID_LENGTH, cpf.validate(line, 7, 13));
+        try {
+            cpf.validate(line, 30, 11);
+            Assert.fail();
+        } catch (final IllegalArgumentException e) {
+            // expected
+        }
+    }
 }
@@ -0,0 +1,119 @@
+/* 
+ * JINAH Project - Java Is Not A Hammer
+ * http://obadaro.com/jinah
+ * 
+ * Copyright (C) 2010-2012 Roberto Badaro 
+ * and individual contributors by the @authors tag.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.obadaro.jinah.commons.util.documents.brazil;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.obadaro.jinah.common.util.documents.brazil.CNPJ;
+import com.obadaro.jinah.common.util.documents.brazil.CPF;
+import com.obadaro.jinah.common.util.documents.brazil.DocumentFiles;
+import com.obadaro.jinah.common.util.documents.brazil.ValidationResult;
+
+/**
+ * 
+ * @author Roberto Badaro
+ */
+public class DocumentFilesTest {
+
+    private final CPF cpf = new CPF();
+
+    @Test
+    public void tSmall() throws Exception {
+        final File file = write("57.742.897/0001-46\r\n47.742.897/0001-46\r\n\r\n00012345000165\r\n57742897000x46");
+        try {
+            final Collector collector = new Collector();
+            Assert.assertEquals(3, DocumentFiles.validate(file, new CNPJ(), collector));
+            Assert.assertEquals("[2 INVALID_CHECK_DIGIT, 3 INVALID_LENGTH, 5 INVALID_CHAR]", collector.lines.toString());
+        } finally {
+            file.delete();
+        }
+    }
+
+    @Test
+    public void tEmpty() throws Exception {
+        final File file = write("");
+        try {
+            final Collector collector = new Collector();
+            Assert.assertEquals(0, DocumentFiles.validate(file, cpf, collector, true));
+            Assert.assertTrue(collector.lines.isEmpty());
+        } finally {
+            file.delete();
+        }
+    }
+
+    @Test
+    public void tLargeParallel() throws Exception {
+        // several windows
+        final Random random = new Random(48);
+        final StringBuilder text = new StringBuilder();
+        final List<String> expected = new ArrayList<String>();
+        for (int line = 1; line <= 700000; line++) {
+            final long doc = (random.nextLong() >>> 1) % 100000000000L;
+            text.append(line % 2 == 0 ? cpf.format(doc) : String.format("%011d", doc)).append('\n');
+            if (!cpf.validate(doc)) {
+                expected.add(line + " " + ValidationResult.INVALID_CHECK_DIGIT);
+            }
+        }
+        final File file = write(text.toString());
+        try {
+            Assert.assertTrue(file.length() > 2 * (1 << 22));
+
+            final Collector sequential = new Collector();
+            Assert.assertEquals(expected.size(), DocumentFiles.validate(file, cpf, sequential, false));
+            Assert.assertEquals(expected, sequential.lines);
+
+            final Collector parallel = new Collector();
+            Assert.assertEquals(expected.size(), DocumentFiles.validate(file, cpf, parallel, true));
+            Assert.assertEquals(expected, parallel.lines);
+        } finally {
+            file.delete();
+        }
+    }
+
+    private static File write(final String text) throws IOException {
+        final File file = File.createTempFile("documents", ".txt");
+        final BufferedWriter writer = new BufferedWriter(new FileWriter(file));
+        try {
+            writer.write(text);
+        } finally {
+            writer.close();
+        }
+        return file;
+    }
+
+    private static class Collector implements DocumentFiles.Listener {
+
+        final List<String> lines = new ArrayList<String>();
+
+        @Override
+        public void invalid(final long line, final ValidationResult result) {
+            lines.add(line + " " + result);
+        }
+    }
+}
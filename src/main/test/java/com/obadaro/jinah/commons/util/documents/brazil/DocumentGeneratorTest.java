@@ -0,0 +1,100 @@
+/* 
+ * JINAH Project - Java Is Not A Hammer
+ * http://obadaro.com/jinah
+ * 
+ * Copyright (C) 2010-2012 Roberto Badaro 
+ * and individual contributors by the @authors tag.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.obadaro.jinah.commons.util.documents.brazil;
+
+import java.util.NoSuchElementException;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.obadaro.jinah.common.util.documents.brazil.CNPJ;
+import com.obadaro.jinah.common.util.documents.brazil.CPF;
+import com.obadaro.jinah.common.util.documents.brazil.DocumentGenerator;
+
+/**
+ * 
+ * @author Roberto Badaro
+ */
+public class DocumentGeneratorTest {
+
+    @Test
+    public void tComplete() {
+        Assert.assertEquals(99835229260L, CPF.complete(998352292L));
+        Assert.assertEquals(1234567890L, CPF.complete(12345678L));
+        Assert.assertEquals(57742897000146L, CNPJ.complete(577428970001L));
+        Assert.assertEquals(12345000165L, CNPJ.complete(123450001L));
+
+        for (long base = 1; base < 1000000; base += 7) {
+            Assert.assertTrue(CPF.isValid(CPF.complete(base)));
+        }
+        for (final long base : new long[] { -1L, 1000000000L, 111111111L }) {
+            try {
+                CPF.complete(base);
+                Assert.fail(String.valueOf(base));
+            } catch (final IllegalArgumentException e) {
+                // expected
+            }
+        }
+    }
+
+    @Test
+    public void tGenerator() {
+        final DocumentGenerator generator = CPF.generator(111111100L, 111111120L);
+        int count = 0;
+        while (generator.hasNext()) {
+            final long cpf = generator.next();
+            Assert.assertTrue(CPF.isValid(cpf));
+            Assert.assertFalse(cpf == 11111111111L);
+            count++;
+        }
+        // 111111111 makes no valid CPF
+        Assert.assertEquals(19, count);
+        try {
+            generator.next();
+            Assert.fail();
+        } catch (final NoSuchElementException e) {
+            // expected
+        }
+
+        Assert.assertEquals("57.742.897/0001-46", CNPJ.generator(577428970001L, 577428970002L).nextFormatted());
+        Assert.assertEquals("000.000.001-91", CPF.generator(0, 10).nextFormatted());
+    }
+
+    @Test
+    public void tSplit() {
+        final DocumentGenerator all = CNPJ.generator(1000, 11000);
+        final DocumentGenerator second = CNPJ.generator(1000, 11000);
+        final DocumentGenerator first = second.trySplit();
+        Assert.assertEquals(5000, first.estimateSize());
+        Assert.assertEquals(5000, second.estimateSize());
+
+        final long[] batch = new long[300];
+        for (final DocumentGenerator half : new DocumentGenerator[] { first, second }) {
+            int n;
+            while ((n = half.next(batch, 0, batch.length)) > 0) {
+                for (int i = 0; i < n; i++) {
+                    Assert.assertEquals(all.next(), batch[i]);
+                }
+            }
+        }
+        Assert.assertFalse(all.hasNext());
+        Assert.assertNull(CPF.generator(5, 6).trySplit());
+    }
+}
@@ -0,0 +1,146 @@
+/* 
+ * JINAH Project - Java Is Not A Hammer
+ * http://obadaro.com/jinah
+ * 
+ * Copyright (C) 2010-2012 Roberto Badaro 
+ * and individual contributors by the @authors tag.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.obadaro.jinah.commons.util.documents.brazil;
+
+import java.io.File;
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.obadaro.jinah.common.util.documents.brazil.CNPJ;
+import com.obadaro.jinah.common.util.documents.brazil.CPF;
+import com.obadaro.jinah.common.util.documents.brazil.CnpjSet;
+import com.obadaro.jinah.common.util.documents.brazil.CpfSet;
+
+/**
+ * 
+ * @author Roberto Badaro
+ */
+public class DocumentSetTest {
+
+    @Test
+    public void tCpfSet() throws Exception {
+        final CpfSet set = new CpfSet();
+        Assert.assertTrue(set.add(99835229260L));
+        Assert.assertFalse(set.add(99835229260L));
+        Assert.assertTrue(set.add(1234567890L));
+        Assert.assertTrue(set.contains(99835229260L));
+        Assert.assertTrue(set.contains(1234567890L));
+        Assert.assertFalse(set.contains(99835229160L));
+        Assert.assertFalse(set.contains(11111111111L));
+        Assert.assertEquals(2, set.size());
+        try {
+            set.add(99835229160L);
+            Assert.fail();
+        } catch (final IllegalArgumentException e) {
+            // expected
+        }
+
+        final File file = File.createTempFile("cpfs", ".bits");
+        try {
+            set.save(file);
+            Assert.assertTrue(set.remove(1234567890L));
+            Assert.assertFalse(set.remove(1234567890L));
+            Assert.assertFalse(set.contains(1234567890L));
+
+            final CpfSet loaded = CpfSet.load(file);
+            Assert.assertEquals(2, loaded.size());
+            Assert.assertTrue(loaded.contains(1234567890L));
+
+            final CpfSet mapped = CpfSet.map(file);
+            Assert.assertEquals(2, mapped.size());
+            Assert.assertTrue(mapped.remove(99835229260L));
+            Assert.assertEquals(1, CpfSet.map(file).size());
+        } finally {
+            file.delete();
+        }
+    }
+
+    @Test
+    public void tCpfSetConcurrent() throws Exception {
+        final CpfSet set = new CpfSet();
+        final long[] cpfs = new long[20000];
+        final Random random = new Random(49);
+        for (int i = 0; i < cpfs.length; i++) {
+            cpfs[i] = complete(random.nextInt(CpfSet.BASES), true);
+        }
+
+        final Thread[] threads = new Thread[4];
+        for (int t = 0; t < threads.length; t++) {
+            threads[t] = new Thread() {
+
+                @Override
+                public void run() {
+                    for (final long cpf : cpfs) {
+                        set.add(cpf);
+                    }
+                }
+            };
+            threads[t].start();
+        }
+        final Set<Long> expected = new HashSet<Long>();
+        for (final Thread thread : threads) {
+            thread.join();
+        }
+        for (final long cpf : cpfs) {
+            expected.add(cpf);
+            Assert.assertTrue(set.contains(cpf));
+        }
+        Assert.assertEquals(expected.size(), set.size());
+    }
+
+    @Test
+    public void tCnpjSet() {
+        final CnpjSet set = new CnpjSet();
+        final Set<Long> expected = new HashSet<Long>();
+        final Random random = new Random(49);
+        for (int i = 0; i < 50000; i++) {
+            // few roots with many branches, to get bitmap containers
+            final long root = (i % 2 == 0 ? random.nextInt(100000000) : random.nextInt(8));
+            final long cnpj = complete(root * 10000 + random.nextInt(10000), false);
+            Assert.assertEquals(expected.add(cnpj), set.add(cnpj));
+        }
+        Assert.assertEquals(expected.size(), set.size());
+        for (final long cnpj : expected) {
+            Assert.assertTrue(set.contains(cnpj));
+        }
+        for (int i = 0; i < 50000; i++) {
+            final long cnpj = complete(random.nextInt(8) * 10000L + random.nextInt(10000), false);
+            Assert.assertEquals(expected.contains(cnpj), set.contains(cnpj));
+            Assert.assertEquals(expected.remove(cnpj), set.remove(cnpj));
+        }
+        Assert.assertEquals(expected.size(), set.size());
+        Assert.assertFalse(set.contains(47742897000146L));
+    }
+
+    private static long complete(final long base, final boolean cpf) {
+        for (int digits = 0; digits < 100; digits++) {
+            final long doc = base * 100 + digits;
+            if (cpf ? CPF.isValid(doc) : CNPJ.isValid(doc)) {
+                return doc;
+            }
+        }
+        // repeated digits
+        return complete(base + 1, cpf);
+    }
+}
@@ -0,0 +1,123 @@
+/* 
+ * JINAH Project - Java Is Not A Hammer
+ * http://obadaro.com/jinah
+ * 
+ * Copyright (C) 2010-2012 Roberto Badaro 
+ * and individual contributors by the @authors tag.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.obadaro.jinah.commons.util.documents.brazil;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.obadaro.jinah.common.util.documents.brazil.CNPJ;
+import com.obadaro.jinah.common.util.documents.brazil.CPF;
+import com.obadaro.jinah.common.util.documents.brazil.ValidationResult;
+
+/**
+ * 
+ * @author Roberto Badaro
+ */
+public class ValidateAllTest {
+
+    private final CPF cpf = new CPF();
+    private final CNPJ cnpj = new CNPJ();
+
+    @Test
+    public void tValidateAllLong() {
+        for (final int size : new int[] { 0, 1, 100, 100000 }) {
+            final long[] docs = cpfs(size);
+            final BitSet out = new BitSet();
+            out.set(size + 10);
+
+            final int valid = cpf.validateAll(docs, out);
+            int expected = 0;
+            for (int i = 0; i < size; i++) {
+                Assert.assertEquals(cpf.validate(docs[i]), out.get(i));
+                expected += (out.get(i) ? 1 : 0);
+            }
+            Assert.assertEquals(expected, valid);
+            Assert.assertTrue(out.get(size + 10));
+        }
+    }
+
+    @Test
+    public void tValidateAllText() {
+        final long[] numbers = cpfs(50000);
+        final List<CharSequence> docs = new ArrayList<CharSequence>();
+        for (final long n : numbers) {
+            docs.add(cpf.format(n));
+        }
+        docs.set(7, "not a cpf");
+
+        final BitSet out = new BitSet();
+        out.set(0, docs.size());
+        final int valid = cpf.validateAll(docs, out);
+        for (int i = 0; i < docs.size(); i++) {
+            Assert.assertEquals(cpf.validate(numbers[i]) && i != 7, out.get(i));
+        }
+        Assert.assertEquals(out.cardinality(), valid);
+
+        final BitSet linked = new BitSet();
+        Assert.assertEquals(valid, cpf.validateAll(new LinkedList<CharSequence>(docs), linked));
+        Assert.assertEquals(out, linked);
+    }
+
+    @Test
+    public void tCountAll() {
+        final long[] docs = { 57742897000146L, 47742897000146L, 0L, 12345000165L, -1L, 123456789012345L };
+
+        final Map<ValidationResult, Integer> counts = cnpj.countAll(docs);
+        Assert.assertEquals(Integer.valueOf(2), counts.get(ValidationResult.VALID));
+        Assert.assertEquals(Integer.valueOf(1), counts.get(ValidationResult.INVALID_CHECK_DIGIT));
+        Assert.assertEquals(Integer.valueOf(1), counts.get(ValidationResult.REPEATED_DIGITS));
+        Assert.assertEquals(Integer.valueOf(2), counts.get(ValidationResult.INVALID_LENGTH));
+        Assert.assertNull(counts.get(ValidationResult.INVALID_CHAR));
+
+        final List<String> texts = new ArrayList<String>();
+        for (int i = 0; i < 30000; i++) {
+            texts.add(i % 3 == 0 ? "57.742.897/0001-46" : "57.742.897/0001-4x");
+        }
+        final Map<ValidationResult, Integer> textCounts = cnpj.countAll(texts);
+        Assert.assertEquals(Integer.valueOf(10000), textCounts.get(ValidationResult.VALID));
+        Assert.assertEquals(Integer.valueOf(20000), textCounts.get(ValidationResult.INVALID_CHAR));
+        Assert.assertEquals(2, textCounts.size());
+    }
+
+    /**
+     * Random numbers, about one in ten a valid CPF.
+     */
+    private long[] cpfs(final int size) {
+        final Random random = new Random(size);
+        final long[] docs = new long[size];
+        for (int i = 0; i < size; i++) {
+            long doc = (random.nextLong() >>> 1) % 100000000000L;
+            if (random.nextInt(10) == 0) {
+                while (!cpf.validate(doc)) {
+                    doc = (doc + 1) % 100000000000L;
+                }
+            }
+            docs[i] = doc;
+        }
+        return docs;
+    }
+}
@@ -0,0 +1,119 @@
+/* 
+ * JINAH Project - Java Is Not A Hammer
+ * http://obadaro.com/jinah
+ * 
+ * Copyright (C) 2010-2012 Roberto Badaro 
+ * and individual contributors by the @authors tag.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.obadaro.jinah.commons.util.encoding;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.CoderResult;
+import java.util.Random;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.obadaro.jinah.common.util.encoding.Base64;
+
+/**
+ * 
+ * @author Roberto Badaro
+ */
+public class Base64BuffersTest {
+
+    private final Random random = new Random(5);
+
+    @Test
+    public void tRoundTrip() {
+        for (final boolean direct : new boolean[] { false, true }) {
+            for (int length = 0; length < 200; length += 1 + random.nextInt(7)) {
+                final byte[] data = new byte[length];
+                random.nextBytes(data);
+                final byte[] expected = Base64.encode(data);
+
+                // small output buffers: many overflows
+                final ByteBuffer src = allocate(length, direct);
+                src.put(data).flip();
+                final ByteBuffer encoded = allocate(expected.length, direct);
+                final ByteBuffer window = allocate(4 + random.nextInt(9), direct);
+                CoderResult result;
+                do {
+                    window.clear();
+                    result = Base64.encode(src, window);
+                    window.flip();
+                    encoded.put(window);
+                } while (result.isOverflow());
+                Assert.assertTrue(result.isUnderflow() && !src.hasRemaining() && !encoded.hasRemaining());
+                Assert.assertArrayEquals(expected, bytes(encoded));
+
+                encoded.flip();
+                final ByteBuffer decoded = allocate(length, direct);
+                do {
+                    window.clear();
+                    result = Base64.decode(encoded, window);
+                    window.flip();
+                    decoded.put(window);
+                } while (result.isOverflow());
+                Assert.assertTrue(result.isUnderflow() && !encoded.hasRemaining());
+                Assert.assertArrayEquals(data, bytes(decoded));
+            }
+        }
+    }
+
+    @Test
+    public void tPartialInput() {
+        final ByteBuffer dst = ByteBuffer.allocate(16);
+
+        final ByteBuffer src = ByteBuffer.wrap(new byte[] { 1, 2, 3, 4, 5 });
+        Assert.assertTrue(Base64.encode(src, dst, false).isUnderflow());
+        Assert.assertTrue(src.remaining() == 2 && dst.position() == 4);
+        Assert.assertTrue(Base64.encode(src, dst, true).isUnderflow());
+        Assert.assertEquals("AQIDBAU=", new String(bytes(dst)));
+
+        final ByteBuffer text = ByteBuffer.wrap("AQIDBAU".getBytes());
+        dst.clear();
+        Assert.assertTrue(Base64.decode(text, dst, false).isUnderflow());
+        Assert.assertTrue(text.remaining() == 3 && dst.position() == 3);
+        Assert.assertTrue(Base64.decode(text, dst, true).isUnderflow());
+        Assert.assertTrue(dst.position() == 5 && dst.get(4) == 5);
+    }
+
+    @Test
+    public void tMalformed() {
+        final ByteBuffer dst = ByteBuffer.allocateDirect(16);
+
+        final ByteBuffer src = ByteBuffer.allocateDirect(8);
+        src.put("QUJDR*hJ".getBytes()).flip();
+        final CoderResult result = Base64.decode(src, dst);
+        Assert.assertTrue(result.isMalformed() && result.length() == 2);
+        Assert.assertTrue(src.position() == 4 && dst.position() == 3);
+
+        Assert.assertTrue(Base64.decode(ByteBuffer.wrap("QQ==QQ==".getBytes()), dst).isMalformed());
+        Assert.assertTrue(Base64.decode(ByteBuffer.wrap("Q".getBytes()), dst).isMalformed());
+        Assert.assertTrue(Base64.decode(ByteBuffer.wrap(new byte[] { 'Q', 'Q', -1, -1 }), dst).isMalformed());
+    }
+
+    private static ByteBuffer allocate(final int capacity, final boolean direct) {
+        return (direct ? ByteBuffer.allocateDirect(capacity) : ByteBuffer.allocate(capacity));
+    }
+
+    private static byte[] bytes(final ByteBuffer buffer) {
+        final byte[] bytes = new byte[buffer.position()];
+        buffer.flip();
+        buffer.get(bytes);
+        return bytes;
+    }
+}
@@ -0,0 +1,135 @@
+/* 
+ * JINAH Project - Java Is Not A Hammer
+ * http://obadaro.com/jinah
+ * 
+ * Copyright (C) 2010-2012 Roberto Badaro 
+ * and individual contributors by the @authors tag.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.obadaro.jinah.commons.util.encoding;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.CoderResult;
+import java.util.Random;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.obadaro.jinah.common.util.encoding.Base64;
+import com.obadaro.jinah.common.util.encoding.Base64ChannelDecoder;
+
+/**
+ * 
+ * @author Roberto Badaro
+ */
+public class Base64ChannelDecoderTest {
+
+    private final Random random = new Random(44);
+
+    @Test
+    public void tChunks() throws Exception {
+
+        for (int length = 0; length < 200; length++) {
+            final byte[] data = new byte[length];
+            random.nextBytes(data);
+            String text = new String(Base64.encode(data), "US-ASCII");
+            if (length % 3 == 1) {
+                text = text.replace("=", "");
+            }
+            if (length % 5 == 0 && text.length() > 10) {
+                text = text.substring(0, 5) + "\r\n" + text.substring(5);
+            }
+            Assert.assertArrayEquals(data, decodeInChunks(text.getBytes("US-ASCII"), random.nextBoolean()));
+        }
+    }
+
+    @Test
+    public void tMalformed() throws Exception {
+
+        final Base64ChannelDecoder decoder = new Base64ChannelDecoder();
+        final ByteBuffer dst = ByteBuffer.allocate(16);
+
+        ByteBuffer src = ByteBuffer.wrap("Zm9v".getBytes("US-ASCII"));
+        Assert.assertEquals(CoderResult.UNDERFLOW, decoder.decode(src, dst, false));
+        src = ByteBuffer.wrap("Ym!y".getBytes("US-ASCII"));
+        final CoderResult result = decoder.decode(src, dst, false);
+        Assert.assertTrue(result.isMalformed());
+        Assert.assertEquals(2, src.position());
+        Assert.assertEquals(6, decoder.getPosition());
+        Assert.assertEquals(2, decoder.getPending());
+
+        // data after the padding
+        decoder.reset();
+        dst.clear();
+        src = ByteBuffer.wrap("Zg==Zg==".getBytes("US-ASCII"));
+        Assert.assertTrue(decoder.decode(src, dst, true).isMalformed());
+        Assert.assertEquals(4, src.position());
+        Assert.assertTrue(decoder.isFinished());
+
+        // incomplete padding
+        decoder.reset();
+        dst.clear();
+        src = ByteBuffer.wrap("hA=".getBytes("US-ASCII"));
+        Assert.assertTrue(decoder.decode(src, dst, true).isMalformed());
+        Assert.assertEquals(3, src.position());
+        decoder.reset();
+        dst.clear();
+        src = ByteBuffer.wrap("hA==".getBytes("US-ASCII"));
+        Assert.assertEquals(CoderResult.UNDERFLOW, decoder.decode(src, dst, true));
+        Assert.assertEquals(1, dst.position());
+
+        // truncated
+        decoder.reset();
+        src = ByteBuffer.wrap("Zm9vY".getBytes("US-ASCII"));
+        Assert.assertTrue(decoder.decode(src, dst, true).isMalformed());
+    }
+
+    /**
+     * Feeds {@code text} in random chunks, draining a small output buffer.
+     */
+    private byte[] decodeInChunks(final byte[] text, final boolean direct) {
+
+        final Base64ChannelDecoder decoder = new Base64ChannelDecoder();
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        final ByteBuffer dst = (direct ? ByteBuffer.allocateDirect(3 + random.nextInt(8)) : ByteBuffer
+            .allocate(3 + random.nextInt(8)));
+
+        int offset = 0;
+        while (true) {
+            final int n = Math.min(text.length - offset, random.nextInt(7));
+            final ByteBuffer src = ByteBuffer.wrap(text, offset, n);
+            final boolean end = (offset + n == text.length);
+
+            CoderResult result;
+            do {
+                result = decoder.decode(src, dst, end);
+                Assert.assertFalse(result.isError());
+                dst.flip();
+                while (dst.hasRemaining()) {
+                    out.write(dst.get());
+                }
+                dst.clear();
+            } while (result.isOverflow());
+
+            Assert.assertFalse(src.hasRemaining());
+            Assert.assertTrue(decoder.getPending() <= 3);
+            offset += n;
+            if (end) {
+                return out.toByteArray();
+            }
+        }
+    }
+
+}
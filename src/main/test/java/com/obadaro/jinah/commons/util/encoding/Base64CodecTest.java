@@ -0,0 +1,148 @@
+/* 
+ * JINAH Project - Java Is Not A Hammer
+ * http://obadaro.com/jinah
+ * 
+ * Copyright (C) 2010-2012 Roberto Badaro 
+ * and individual contributors by the @authors tag.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.obadaro.jinah.commons.util.encoding;
+
+import java.util.Random;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.obadaro.jinah.common.util.encoding.Base64;
+import com.obadaro.jinah.common.util.encoding.Base64Codec;
+
+/**
+ * 
+ * @author Roberto Badaro
+ */
+public class Base64CodecTest {
+
+    private final Random random = new Random(39);
+
+    @Test
+    public void tVectors() throws Exception {
+
+        final byte[] data = new byte[] { (byte) 0xfb, (byte) 0xff, (byte) 0xbf, 'a' };
+
+        Assert.assertEquals("+/+/YQ==", ascii(Base64Codec.RFC4648.encode(data)));
+        Assert.assertEquals("-_-_YQ==", ascii(Base64Codec.URL_SAFE.encode(data)));
+        Assert.assertEquals("-_-_YQ", ascii(Base64Codec.URL_SAFE_NO_PADDING.encode(data)));
+        Assert.assertEquals("Zm9vYg", ascii(Base64Codec.URL_SAFE_NO_PADDING.encode("foob".getBytes("US-ASCII"))));
+        Assert.assertEquals("Zm9vYmE", ascii(Base64Codec.URL_SAFE_NO_PADDING.encode("fooba".getBytes("US-ASCII"))));
+
+        Assert.assertArrayEquals(data, Base64Codec.URL_SAFE_NO_PADDING.decode("-_-_YQ".getBytes("US-ASCII")));
+        Assert.assertArrayEquals(data, Base64Codec.URL_SAFE.decode("-_-_YQ==".getBytes("US-ASCII")));
+    }
+
+    @Test
+    public void tMime() throws Exception {
+
+        final byte[] data = new byte[200];
+        random.nextBytes(data);
+
+        final String standard = ascii(Base64.encode(data));
+        final String mime = ascii(Base64Codec.MIME.encode(data));
+        Assert.assertEquals(standard.substring(0, 76) + "\r\n" + standard.substring(76, 152) + "\r\n"
+                + standard.substring(152, 228) + "\r\n" + standard.substring(228), mime);
+        Assert.assertArrayEquals(data, Base64Codec.MIME.decode(mime.getBytes("US-ASCII")));
+
+        // exactly two lines: no separator at the end
+        final byte[] two = new byte[114];
+        Assert.assertEquals(154, Base64Codec.MIME.encode(two).length);
+
+        // line breaks anywhere, LF only
+        final String relaxed = standard.substring(0, 10) + "\n" + standard.substring(10, 90) + "\n\n"
+                + standard.substring(90);
+        Assert.assertArrayEquals(data, Base64Codec.MIME.decode(relaxed.getBytes("US-ASCII")));
+    }
+
+    @Test
+    public void tRoundTrip() {
+
+        final Base64Codec[] codecs = new Base64Codec[] { Base64Codec.RFC4648, Base64Codec.URL_SAFE,
+                Base64Codec.URL_SAFE_NO_PADDING, Base64Codec.MIME, Base64Codec.MIME.withoutPadding(),
+                Base64Codec.URL_SAFE.withLines(10, "|") };
+
+        for (final Base64Codec codec : codecs) {
+            for (int length = 0; length < 300; length++) {
+                final byte[] data = new byte[length];
+                random.nextBytes(data);
+
+                final byte[] encoded = codec.encode(data);
+                Assert.assertEquals(codec.encodedLength(length), encoded.length);
+                Assert.assertArrayEquals(data, codec.decode(encoded));
+            }
+        }
+    }
+
+    @Test
+    public void tInvalid() throws Exception {
+
+        final byte[] dst = new byte[16];
+
+        // padding policy
+        Assert.assertEquals(-1, Base64Codec.URL_SAFE_NO_PADDING.decode(bytes("YQ=="), 0, 4, dst, 0));
+        Assert.assertEquals(-1, Base64Codec.URL_SAFE.decode(bytes("YQ"), 0, 2, dst, 0));
+        // alphabet
+        Assert.assertEquals(-1, Base64Codec.URL_SAFE.decode(bytes("+/+/"), 0, 4, dst, 0));
+        Assert.assertEquals(-1, Base64Codec.RFC4648.decode(bytes("-_-_"), 0, 4, dst, 0));
+        // a single char left
+        Assert.assertEquals(-1, Base64Codec.URL_SAFE_NO_PADDING.decode(bytes("YWFhY"), 0, 5, dst, 0));
+        // line breaks only when lines are on
+        Assert.assertEquals(-1, Base64Codec.RFC4648.decode(bytes("YWFh\r\nYWFh"), 0, 10, dst, 0));
+        Assert.assertEquals(6, Base64Codec.MIME.decode(bytes("YWFh\r\nYWFh"), 0, 10, dst, 0));
+        // data after the padding
+        Assert.assertEquals(-1, Base64Codec.MIME.decode(bytes("YQ==YWFh"), 0, 8, dst, 0));
+
+        try {
+            Base64Codec.URL_SAFE.decode(bytes("a"));
+            Assert.fail();
+        } catch (final IllegalArgumentException e) {
+            // expected
+        }
+    }
+
+    @Test
+    public void tCustomAlphabet() throws Exception {
+
+        final Base64Codec codec = Base64Codec.of("./0123456789ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz")
+            .withoutPadding();
+        final byte[] data = new byte[] { 0, 0, 0, -1, -1, -1 };
+        Assert.assertEquals("....zzzz", ascii(codec.encode(data)));
+        Assert.assertArrayEquals(data, codec.decode(codec.encode(data)));
+
+        try {
+            Base64Codec.of("AAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAA");
+            Assert.fail();
+        } catch (final IllegalArgumentException e) {
+            // expected
+        }
+    }
+
+    private static byte[] bytes(final String s) throws Exception {
+
+        return s.getBytes("US-ASCII");
+    }
+
+    private static String ascii(final byte[] b) throws Exception {
+
+        return new String(b, "US-ASCII");
+    }
+
+}
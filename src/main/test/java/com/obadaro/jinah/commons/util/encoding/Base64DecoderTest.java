@@ -0,0 +1,123 @@
+/* 
+ * JINAH Project - Java Is Not A Hammer
+ * http://obadaro.com/jinah
+ * 
+ * Copyright (C) 2010-2012 Roberto Badaro 
+ * and individual contributors by the @authors tag.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.obadaro.jinah.commons.util.encoding;
+
+import java.util.Random;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.obadaro.jinah.common.util.encoding.Base64;
+import com.obadaro.jinah.common.util.encoding.Base64Decoder;
+
+/**
+ * 
+ * @author Roberto Badaro
+ */
+public class Base64DecoderTest {
+
+    private final Random random = new Random(40);
+
+    @Test
+    public void tRoundTrip() {
+
+        final Base64Decoder strict = Base64Decoder.strict();
+        final Base64Decoder lenient = Base64Decoder.lenient();
+
+        for (int length = 0; length < 100; length++) {
+            final byte[] data = new byte[length];
+            random.nextBytes(data);
+            final byte[] encoded = Base64.encode(data);
+
+            Assert.assertArrayEquals(data, strict.decode(encoded));
+            Assert.assertNull(strict.getError());
+            Assert.assertEquals(-1, strict.getErrorIndex());
+            Assert.assertArrayEquals(data, lenient.decode(encoded));
+        }
+    }
+
+    @Test
+    public void tErrors() throws Exception {
+
+        final Base64Decoder strict = Base64Decoder.strict();
+
+        assertError(strict, "Zm9v!mFy", Base64Decoder.Error.INVALID_CHAR, 4);
+        assertError(strict, "Zm9vYmFy\n", Base64Decoder.Error.INVALID_CHAR, 8);
+        assertError(strict, "Zm9v\u00e9mFy", Base64Decoder.Error.INVALID_CHAR, 4);
+        assertError(strict, "Zm9vY===", Base64Decoder.Error.INVALID_PADDING, 5);
+        assertError(strict, "Zg==Zm9v", Base64Decoder.Error.INVALID_PADDING, 4);
+        assertError(strict, "Zg===", Base64Decoder.Error.INVALID_PADDING, 4);
+        assertError(strict, "Zm9vYg", Base64Decoder.Error.TRUNCATED, 6);
+        assertError(strict, "Zm9vYg=", Base64Decoder.Error.TRUNCATED, 7);
+        assertError(strict, "Zm9vYh==", Base64Decoder.Error.TRAILING_BITS, 5);
+        assertError(strict, "Zm9=", Base64Decoder.Error.TRAILING_BITS, 2);
+
+        // the decoder is reusable after an error
+        final byte[] dst = new byte[3];
+        Assert.assertEquals(3, strict.decode(bytes("Zm9v"), 0, 4, dst, 0));
+        Assert.assertNull(strict.getError());
+
+        try {
+            strict.decode(bytes("Zm9vYg"));
+            Assert.fail();
+        } catch (final IllegalArgumentException e) {
+            // expected
+        }
+    }
+
+    @Test
+    public void tLenient() throws Exception {
+
+        final Base64Decoder lenient = Base64Decoder.lenient();
+
+        Assert.assertEquals("foobar", new String(lenient.decode(bytes(" Zm9v\r\nYm\tFy\n")), "US-ASCII"));
+        Assert.assertEquals("fo", new String(lenient.decode(bytes("Zm\n8=\n")), "US-ASCII"));
+        Assert.assertEquals("fo", new String(lenient.decode(bytes("Zm8\n=")), "US-ASCII"));
+
+        assertError(lenient, "Zm9v Y!Fy", Base64Decoder.Error.INVALID_CHAR, 6);
+        assertError(lenient, "Zm8=\nZm8=", Base64Decoder.Error.INVALID_PADDING, 5);
+        assertError(lenient, "Zm9v Y", Base64Decoder.Error.TRUNCATED, 6);
+    }
+
+    @Test
+    public void tNegativeBytes() {
+
+        Assert.assertFalse(Base64.isBase64((byte) 0xe9));
+        Assert.assertFalse(Base64.isArrayByteBase64(new byte[] { 'Z', 'm', (byte) 0x80, 'v' }));
+    }
+
+    private static void assertError(final Base64Decoder decoder,
+                                    final String input,
+                                    final Base64Decoder.Error error,
+                                    final int index) throws Exception {
+
+        final byte[] src = input.getBytes("ISO-8859-1");
+        final byte[] dst = new byte[Base64Decoder.maxDecodedLength(src.length)];
+        Assert.assertEquals(-1, decoder.decode(src, 0, src.length, dst, 0));
+        Assert.assertEquals(error, decoder.getError());
+        Assert.assertEquals(index, decoder.getErrorIndex());
+    }
+
+    private static byte[] bytes(final String s) throws Exception {
+
+        return s.getBytes("US-ASCII");
+    }
+
+}
@@ -0,0 +1,195 @@
+/* 
+ * JINAH Project - Java Is Not A Hammer
+ * http://obadaro.com/jinah
+ * 
+ * Copyright (C) 2010-2012 Roberto Badaro 
+ * and individual contributors by the @authors tag.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.obadaro.jinah.commons.util.encoding;
+
+import java.util.Arrays;
+import java.util.Random;
+import java.util.ServiceLoader;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.obadaro.jinah.common.util.encoding.Base64;
+import com.obadaro.jinah.common.util.encoding.Base64Engine;
+
+/**
+ * 
+ * @author Roberto Badaro
+ */
+public class Base64EngineTest {
+
+    private final Random random = new Random(3);
+
+    @Test
+    public void tVectors() throws Exception {
+        final String[][] vectors = { { "", "" }, { "f", "Zg==" }, { "fo", "Zm8=" }, { "foo", "Zm9v" },
+                { "foob", "Zm9vYg==" }, { "fooba", "Zm9vYmE=" }, { "foobar", "Zm9vYmFy" } };
+
+        for (final Base64Engine engine : new Base64Engine[] { Base64Engine.scalar(), Base64Engine.swar() }) {
+            for (final String[] v : vectors) {
+                Assert.assertEquals(v[1], new String(engine.encode(v[0].getBytes("US-ASCII")), "US-ASCII"));
+
+                final byte[] encoded = v[1].getBytes("US-ASCII");
+                final byte[] decoded = new byte[Base64Engine.decodedLength(encoded, 0, encoded.length)];
+                Assert.assertEquals(decoded.length, engine.decode(encoded, 0, encoded.length, decoded, 0));
+                Assert.assertEquals(v[0], new String(decoded, "US-ASCII"));
+            }
+        }
+    }
+
+    @Test
+    public void tSameOutput() {
+        for (int length = 0; length < 300; length++) {
+            final byte[] data = new byte[length];
+            random.nextBytes(data);
+
+            final byte[] scalar = Base64Engine.scalar().encode(data);
+            final byte[] swar = Base64Engine.swar().encode(data);
+            Assert.assertArrayEquals(scalar, swar);
+
+            final char[] chars = new char[scalar.length];
+            Base64.encode(data, 0, length, chars, 0);
+            Assert.assertEquals(new String(chars), new String(swar));
+
+            final byte[] decoded = new byte[length + 1];
+            Assert.assertEquals(length, Base64Engine.swar().decode(swar, 0, swar.length, decoded, 1));
+            Assert.assertArrayEquals(data, Arrays.copyOfRange(decoded, 1, length + 1));
+            Assert.assertArrayEquals(data, Base64.decode(swar));
+        }
+    }
+
+    @Test
+    public void tNotCanonical() throws Exception {
+        final String[] inputs = { "QUJD*UJD", "QQ==QUJD", "QUJDQUJDQUJ=QUJD", "QUJ", "QUJDQ", "====", "Q===",
+                "QQ=A" };
+
+        for (final String input : inputs) {
+            final byte[] src = input.getBytes("US-ASCII");
+            final byte[] dst = new byte[16];
+            Assert.assertEquals(-1, Base64Engine.swar().decode(src, 0, src.length, dst, 0));
+            Assert.assertEquals(-1, Base64Engine.scalar().decode(src, 0, src.length, dst, 0));
+
+            // Base64.decode keeps its historical output, whatever the engine
+            Base64Engine.setDefault(Base64Engine.scalar());
+            final String expected = decode(src);
+            Base64Engine.setDefault(Base64Engine.swar());
+            Assert.assertEquals(expected, decode(src));
+            Base64Engine.setDefault(null);
+        }
+    }
+
+    private static String decode(final byte[] src) {
+        try {
+            return Arrays.toString(Base64.decode(src));
+        } catch (final RuntimeException e) {
+            return e.getClass().getName();
+        }
+    }
+
+    @Test
+    public void tPluggable() {
+        // the vector engine, when built and run with its module, else swar
+        final String expected = (vector() != null ? "vector" : "swar");
+        Assert.assertEquals(expected, Base64Engine.getDefault().getName());
+
+        final Base64Engine custom = new Base64Engine() {
+
+            @Override
+            public String getName() {
+                return "custom";
+            }
+
+            @Override
+            public int encode(final byte[] src, final int srcOff, final int srcLen, final byte[] dst, final int dstOff) {
+                return Base64Engine.scalar().encode(src, srcOff, srcLen, dst, dstOff);
+            }
+
+            @Override
+            public int decode(final byte[] src, final int srcOff, final int srcLen, final byte[] dst, final int dstOff) {
+                return -1;
+            }
+        };
+
+        Base64Engine.setDefault(custom);
+        try {
+            // an engine refusing the input: Base64 falls back to its historical decoder
+            Assert.assertArrayEquals(new byte[] { 'f', 'o', 'o' }, Base64.decode(Base64.encode(new byte[] { 'f', 'o',
+                    'o' })));
+        } finally {
+            Base64Engine.setDefault(null);
+        }
+        Assert.assertEquals(expected, Base64Engine.getDefault().getName());
+    }
+
+    @Test
+    public void tVectorEngine() throws Exception {
+        final Base64Engine vector = vector();
+        if (vector == null) {
+            // not built, or run without jdk.incubator.vector
+            return;
+        }
+
+        for (int length = 0; length < 1000; length++) {
+            final byte[] data = new byte[length + 3];
+            random.nextBytes(data);
+
+            final byte[] expected = new byte[Base64.encodedLength(length)];
+            Base64Engine.scalar().encode(data, 3, length, expected, 0);
+            final byte[] encoded = new byte[expected.length + 5];
+            Assert.assertEquals(expected.length, vector.encode(data, 3, length, encoded, 5));
+            Assert.assertArrayEquals(expected, Arrays.copyOfRange(encoded, 5, encoded.length));
+
+            final byte[] decoded = new byte[length + 2];
+            decoded[length + 1] = 7;
+            Assert.assertEquals(length, vector.decode(expected, 0, expected.length, decoded, 1));
+            Assert.assertArrayEquals(Arrays.copyOfRange(data, 3, length + 3), Arrays.copyOfRange(decoded, 1, length + 1));
+            // nothing written past the decoded bytes
+            Assert.assertEquals(7, decoded[length + 1]);
+        }
+
+        final byte[] big = new byte[3 << 20];
+        random.nextBytes(big);
+        final byte[] encoded = vector.encode(big);
+        Assert.assertArrayEquals(Base64Engine.swar().encode(big), encoded);
+        final byte[] decoded = new byte[big.length];
+        Assert.assertEquals(big.length, vector.decode(encoded, 0, encoded.length, decoded, 0));
+        Assert.assertArrayEquals(big, decoded);
+
+        // invalid chars and padding anywhere
+        final byte[] text = Base64Engine.scalar().encode(Arrays.copyOf(big, 3000));
+        for (final byte bad : new byte[] { '=', '*', ' ', (byte) 0xc3, 0 }) {
+            for (int i = 0; i < text.length; i += 37) {
+                final byte[] src = text.clone();
+                src[i] = bad;
+                Assert.assertEquals(Base64Engine.scalar().decode(src, 0, src.length, decoded, 0),
+                    vector.decode(src, 0, src.length, decoded, 0));
+            }
+        }
+    }
+
+    private static Base64Engine vector() {
+        for (final Base64Engine engine : ServiceLoader.load(Base64Engine.class)) {
+            if ("vector".equals(engine.getName()) && engine.isAvailable()) {
+                return engine;
+            }
+        }
+        return null;
+    }
+}
@@ -0,0 +1,134 @@
+/* 
+ * JINAH Project - Java Is Not A Hammer
+ * http://obadaro.com/jinah
+ * 
+ * Copyright (C) 2010-2012 Roberto Badaro 
+ * and individual contributors by the @authors tag.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.obadaro.jinah.commons.util.encoding;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.Random;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.obadaro.jinah.common.util.encoding.Base64;
+import com.obadaro.jinah.common.util.encoding.Base64Files;
+
+/**
+ * 
+ * @author Roberto Badaro
+ */
+public class Base64FilesTest {
+
+    private final Random random = new Random(42);
+
+    @Test
+    public void tSmall() throws Exception {
+
+        for (final int length : new int[] { 0, 1, 2, 3, 100000, 100001 }) {
+            roundTrip(length, false);
+        }
+    }
+
+    @Test
+    public void tManyWindows() throws Exception {
+
+        // a bit more than 2 windows of 12 MB
+        roundTrip(25 * 1024 * 1024 + 2, true);
+    }
+
+    @Test
+    public void tInvalid() throws Exception {
+
+        final File in = File.createTempFile("b64", ".txt");
+        final File out = File.createTempFile("b64", ".bin");
+        try {
+            write(in, "Zm9vYg".getBytes("US-ASCII"));
+            try {
+                Base64Files.decode(in, out);
+                Assert.fail();
+            } catch (final IOException e) {
+                // expected
+            }
+
+            write(in, "Zg==Zm9v".getBytes("US-ASCII"));
+            try {
+                Base64Files.decode(in, out);
+                Assert.fail();
+            } catch (final IOException e) {
+                // expected
+            }
+        } finally {
+            in.delete();
+            out.delete();
+        }
+    }
+
+    private void roundTrip(final int length, final boolean parallel) throws Exception {
+
+        final byte[] data = new byte[length];
+        random.nextBytes(data);
+
+        final File in = File.createTempFile("b64", ".bin");
+        final File encoded = File.createTempFile("b64", ".txt");
+        final File decoded = File.createTempFile("b64", ".bin");
+        try {
+            write(in, data);
+            // longer than the result: truncated
+            write(encoded, new byte[length * 2 + 10]);
+
+            Assert.assertEquals(Base64.encodedLength(length), Base64Files.encode(in, encoded, parallel));
+            Assert.assertArrayEquals(Base64.encode(data), read(encoded));
+
+            Assert.assertEquals(length, Base64Files.decode(encoded, decoded, parallel));
+            Assert.assertArrayEquals(data, read(decoded));
+        } finally {
+            in.delete();
+            encoded.delete();
+            decoded.delete();
+        }
+    }
+
+    private static void write(final File file, final byte[] data) throws IOException {
+
+        final FileOutputStream out = new FileOutputStream(file);
+        try {
+            out.write(data);
+        } finally {
+            out.close();
+        }
+    }
+
+    private static byte[] read(final File file) throws IOException {
+
+        final byte[] data = new byte[(int) file.length()];
+        final FileInputStream in = new FileInputStream(file);
+        try {
+            int n = 0;
+            while (n < data.length) {
+                n += in.read(data, n, data.length - n);
+            }
+        } finally {
+            in.close();
+        }
+        return data;
+    }
+
+}
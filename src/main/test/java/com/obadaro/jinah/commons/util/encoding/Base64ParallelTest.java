@@ -0,0 +1,82 @@
+/* 
+ * JINAH Project - Java Is Not A Hammer
+ * http://obadaro.com/jinah
+ * 
+ * Copyright (C) 2010-2012 Roberto Badaro 
+ * and individual contributors by the @authors tag.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.obadaro.jinah.commons.util.encoding;
+
+import java.util.Random;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.obadaro.jinah.common.util.encoding.Base64;
+
+/**
+ * 
+ * @author Roberto Badaro
+ */
+public class Base64ParallelTest {
+
+    private static final int LARGE = 3 * 1024 * 1024;
+
+    private final Random random = new Random(38);
+
+    @Test
+    public void tSmall() {
+
+        final byte[] data = new byte[1000];
+        random.nextBytes(data);
+
+        final byte[] encoded = Base64.encodeParallel(data);
+        Assert.assertArrayEquals(Base64.encode(data), encoded);
+        Assert.assertArrayEquals(data, Base64.decodeParallel(encoded));
+    }
+
+    @Test
+    public void tLarge() {
+
+        for (int extra = 0; extra < 3; extra++) {
+            final byte[] data = new byte[LARGE + extra];
+            random.nextBytes(data);
+
+            final byte[] encoded = Base64.encodeParallel(data);
+            Assert.assertArrayEquals(Base64.encode(data), encoded);
+            Assert.assertArrayEquals(data, Base64.decodeParallel(encoded));
+        }
+    }
+
+    @Test
+    public void tNotCanonical() {
+
+        final byte[] data = new byte[LARGE];
+        random.nextBytes(data);
+        final byte[] encoded = Base64.encode(data);
+
+        // padding in the middle: decodes like the sequential code
+        final byte[] padded = encoded.clone();
+        padded[LARGE / 2 + 2] = '=';
+        padded[LARGE / 2 + 3] = '=';
+        Assert.assertArrayEquals(Base64.decode(padded), Base64.decodeParallel(padded));
+
+        // missing the last char
+        final byte[] truncated = new byte[encoded.length - 1];
+        System.arraycopy(encoded, 0, truncated, 0, truncated.length);
+        Assert.assertArrayEquals(Base64.decode(truncated), Base64.decodeParallel(truncated));
+    }
+
+}
@@ -0,0 +1,229 @@
+/* 
+ * JINAH Project - Java Is Not A Hammer
+ * http://obadaro.com/jinah
+ * 
+ * Copyright (C) 2010-2012 Roberto Badaro 
+ * and individual contributors by the @authors tag.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.obadaro.jinah.commons.util.encoding;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
+import java.util.Random;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.obadaro.jinah.common.util.encoding.Base64;
+import com.obadaro.jinah.common.util.encoding.Base64Codec;
+import com.obadaro.jinah.common.util.encoding.Base64InputStream;
+import com.obadaro.jinah.common.util.encoding.Base64OutputStream;
+import com.obadaro.jinah.common.util.encoding.Base64Reader;
+import com.obadaro.jinah.common.util.encoding.Base64Writer;
+import com.obadaro.jinah.common.util.encoding.CodecOutputStream;
+
+/**
+ * 
+ * @author Roberto Badaro
+ */
+public class Base64StreamsTest {
+
+    private final Random random = new Random(11);
+
+    @Test
+    public void tEncodeIntoArray() {
+        for (int length = 0; length < 64; length++) {
+            final byte[] data = bytes(length);
+            final byte[] expected = Base64.encode(data);
+
+            final byte[] dst = new byte[Base64.encodedLength(length) + 2];
+            Assert.assertEquals(expected.length, Base64.encode(data, 0, length, dst, 1));
+            Assert.assertArrayEquals(expected, Arrays.copyOfRange(dst, 1, expected.length + 1));
+
+            final char[] chars = new char[expected.length];
+            Base64.encode(data, 0, length, chars, 0);
+            Assert.assertEquals(new String(expected), new String(chars));
+        }
+    }
+
+    @Test
+    public void tOutputStream() throws IOException {
+        for (final int length : new int[] { 0, 1, 2, 3, 100, 3071, 3072, 3073, 20000 }) {
+            final byte[] data = bytes(length);
+            final ByteArrayOutputStream sink = new ByteArrayOutputStream();
+            final Base64OutputStream out = new Base64OutputStream(sink);
+
+            int i = 0;
+            while (i < length) {
+                if (random.nextBoolean()) {
+                    out.write(data[i++]);
+                } else {
+                    final int n = Math.min(length - i, random.nextInt(5000));
+                    out.write(data, i, n);
+                    i += n;
+                }
+                if (random.nextInt(10) == 0) {
+                    out.flush();
+                }
+            }
+            out.close();
+
+            Assert.assertArrayEquals(Base64.encode(data), sink.toByteArray());
+        }
+    }
+
+    @Test
+    public void tInputStream() throws IOException {
+        for (final int length : new int[] { 0, 1, 2, 3, 100, 3071, 3072, 3073, 20000 }) {
+            final byte[] data = bytes(length);
+
+            // MIME style lines, served in small reads
+            final byte[] encoded = Base64.encode(data);
+            final ByteArrayOutputStream wrapped = new ByteArrayOutputStream();
+            for (int i = 0; i < encoded.length; i += 76) {
+                wrapped.write(encoded, i, Math.min(76, encoded.length - i));
+                wrapped.write('\r');
+                wrapped.write('\n');
+            }
+            final InputStream in = new Base64InputStream(new TrickleInputStream(wrapped.toByteArray()));
+
+            final ByteArrayOutputStream decoded = new ByteArrayOutputStream();
+            final byte[] buf = new byte[777];
+            for (int n; (n = in.read(buf, 0, 1 + random.nextInt(buf.length))) >= 0;) {
+                decoded.write(buf, 0, n);
+            }
+            in.close();
+
+            Assert.assertArrayEquals(data, decoded.toByteArray());
+        }
+    }
+
+    @Test
+    public void tReaderAndWriter() throws IOException {
+        final byte[] data = bytes(10000);
+
+        final Base64Reader reader = new Base64Reader(new TrickleInputStream(data));
+        final StringBuilder sb = new StringBuilder();
+        final char[] buf = new char[1000];
+        for (int n; (n = reader.read(buf)) >= 0;) {
+            sb.append(buf, 0, n);
+        }
+        reader.close();
+        Assert.assertEquals(new String(Base64.encode(data), "US-ASCII"), sb.toString());
+
+        final ByteArrayOutputStream sink = new ByteArrayOutputStream();
+        final Base64Writer writer = new Base64Writer(sink);
+        for (int i = 0; i < sb.length();) {
+            final int n = Math.min(sb.length() - i, random.nextInt(100));
+            writer.write(sb.toString(), i, n);
+            i += n;
+        }
+        writer.close();
+        Assert.assertArrayEquals(data, sink.toByteArray());
+    }
+
+    @Test(expected = IOException.class)
+    public void tTruncated() throws IOException {
+        final InputStream in = new Base64InputStream(new ByteArrayInputStream("QUJD\nQ".getBytes("US-ASCII")));
+        while (in.read() >= 0) {
+            // consume
+        }
+    }
+
+    @Test
+    public void tLenient() throws IOException {
+        final Base64Codec lenient = Base64Codec.RFC4648.lenient();
+        for (final String text : new String[] { "Zm9vYg", "Zm9vYg==", "Zm9v\r\nYg==", " Zm9v\tYg = = \n" }) {
+            final byte[] b = text.getBytes("US-ASCII");
+            final InputStream in = new Base64InputStream(new ByteArrayInputStream(b));
+            Assert.assertEquals("foob", new String(read(in), "US-ASCII"));
+            Assert.assertEquals("foob", new String(lenient.decode(b), "US-ASCII"));
+        }
+
+        // the strict codec refuses what the lenient one tolerates
+        final byte[] unpadded = "Zm9vYg".getBytes("US-ASCII");
+        Assert.assertEquals(-1, Base64Codec.RFC4648.decode(unpadded, 0, unpadded.length, new byte[4], 0));
+
+        assertError("Zm9vYg=", "at offset 7");
+        assertError("Zm9v\r\nY*==", "at offset 7");
+        assertError("Zg==Zm9v", "at offset 4");
+        assertError("QUJD\n  Q", "at offset 8");
+    }
+
+    @Test
+    public void tFlush() throws IOException {
+        final byte[] data = bytes(1000);
+        for (final Base64Codec codec : new Base64Codec[] { Base64Codec.RFC4648, Base64Codec.MIME }) {
+            final ByteArrayOutputStream sink = new ByteArrayOutputStream();
+            final CodecOutputStream out = codec.encodingStream(sink);
+            out.write(data, 0, 200);
+            out.flush();
+            // whole groups, or whole lines, are out
+            final int unit = (codec.getLineLength() > 0 ? 57 : 3);
+            Assert.assertEquals(codec.encodedLength(200 / unit * unit), sink.size());
+            out.write(data, 200, 800);
+            out.close();
+            Assert.assertArrayEquals(codec.encode(data), sink.toByteArray());
+        }
+    }
+
+    @Test(expected = IOException.class)
+    public void tInvalidChar() throws IOException {
+        final Base64Writer writer = new Base64Writer(new ByteArrayOutputStream());
+        writer.write("QUJD*UJD");
+    }
+
+    private static byte[] read(final InputStream in) throws IOException {
+        final ByteArrayOutputStream decoded = new ByteArrayOutputStream();
+        for (int c; (c = in.read()) >= 0;) {
+            decoded.write(c);
+        }
+        in.close();
+        return decoded.toByteArray();
+    }
+
+    private static void assertError(final String text, final String expected) throws IOException {
+        try {
+            read(new Base64InputStream(new ByteArrayInputStream(text.getBytes("US-ASCII"))));
+            Assert.fail(text);
+        } catch (final IOException e) {
+            Assert.assertTrue(e.getMessage(), e.getMessage().contains(expected));
+        }
+    }
+
+    private byte[] bytes(final int length) {
+        final byte[] data = new byte[length];
+        random.nextBytes(data);
+        return data;
+    }
+
+    /**
+     * Serves a few bytes per read, to split quanta across reads.
+     */
+    private class TrickleInputStream extends ByteArrayInputStream {
+
+        TrickleInputStream(final byte[] buf) {
+            super(buf);
+        }
+
+        @Override
+        public synchronized int read(final byte[] b, final int off, final int len) {
+            return super.read(b, off, Math.min(len, 1 + random.nextInt(7)));
+        }
+    }
+}
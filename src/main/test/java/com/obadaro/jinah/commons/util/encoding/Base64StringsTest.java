@@ -0,0 +1,80 @@
+/* 
+ * JINAH Project - Java Is Not A Hammer
+ * http://obadaro.com/jinah
+ * 
+ * Copyright (C) 2010-2012 Roberto Badaro 
+ * and individual contributors by the @authors tag.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.obadaro.jinah.commons.util.encoding;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.obadaro.jinah.common.util.encoding.Base64;
+
+/**
+ * 
+ * @author Roberto Badaro
+ */
+public class Base64StringsTest {
+
+    private final Random random = new Random(41);
+
+    @Test
+    public void tRoundTrip() throws Exception {
+
+        for (int length = 0; length < 100; length++) {
+            final byte[] data = new byte[length];
+            random.nextBytes(data);
+
+            final String encoded = Base64.encodeToString(data);
+            Assert.assertEquals(new String(Base64.encode(data), "US-ASCII"), encoded);
+            Assert.assertArrayEquals(data, Base64.decode(encoded));
+            Assert.assertArrayEquals(data, Base64.decode(new StringBuilder(encoded)));
+            Assert.assertArrayEquals(data, Base64.decode("[" + encoded + "]", 1, encoded.length()));
+            Assert.assertTrue(Base64.isBase64(encoded));
+        }
+    }
+
+    @Test
+    public void tNotCanonical() throws Exception {
+
+        final String[] inputs = new String[] { "Zm9vYg", "Zm9v!mFy", "Zg==Zm9v", "Zm9v\u00e9mFy", "====" };
+        for (final String input : inputs) {
+            Assert.assertEquals(outcome(input.replace('\u00e9', '?').getBytes("US-ASCII")), outcome(input));
+        }
+
+        Assert.assertFalse(Base64.isBase64("Zm9v\u00e9mFy"));
+        Assert.assertFalse(Base64.isBase64("Zm9v mFy"));
+    }
+
+    /**
+     * Result, or exception, of the decoding.
+     */
+    private static String outcome(final Object input) {
+
+        try {
+            final byte[] decoded = (input instanceof byte[] ? Base64.decode((byte[]) input) : Base64
+                .decode((String) input));
+            return Arrays.toString(decoded);
+        } catch (final RuntimeException e) {
+            return e.getClass().getName();
+        }
+    }
+
+}
@@ -0,0 +1,265 @@
+/* 
+ * JINAH Project - Java Is Not A Hammer
+ * http://obadaro.com/jinah
+ * 
+ * Copyright (C) 2010-2012 Roberto Badaro 
+ * and individual contributors by the @authors tag.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.obadaro.jinah.commons.util.encoding;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.util.Random;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.obadaro.jinah.common.util.encoding.Ascii85;
+import com.obadaro.jinah.common.util.encoding.Base16;
+import com.obadaro.jinah.common.util.encoding.Base32;
+import com.obadaro.jinah.common.util.encoding.Base64Codec;
+import com.obadaro.jinah.common.util.encoding.Codec;
+import com.obadaro.jinah.common.util.encoding.CodecOutputStream;
+
+/**
+ * 
+ * @author Roberto Badaro
+ */
+public class CodecTest {
+
+    private static final Codec[] CODECS = { Base16.UPPER, Base16.LOWER, Base32.RFC4648, Base32.HEX,
+            Base64Codec.RFC4648, Base64Codec.URL_SAFE_NO_PADDING, Base64Codec.MIME, Ascii85.INSTANCE };
+
+    private final Random random = new Random(43);
+
+    @Test
+    public void tVectors() throws Exception {
+
+        // RFC 4648, section 10
+        final String[] inputs = { "", "f", "fo", "foo", "foob", "fooba", "foobar" };
+        final String[] base16 = { "", "66", "666F", "666F6F", "666F6F62", "666F6F6261", "666F6F626172" };
+        final String[] base32 = { "", "MY======", "MZXQ====", "MZXW6===", "MZXW6YQ=", "MZXW6YTB", "MZXW6YTBOI======" };
+        final String[] base32Hex = { "", "CO======", "CPNG====", "CPNMU===", "CPNMUOG=", "CPNMUOJ1",
+                "CPNMUOJ1E8======" };
+
+        for (int i = 0; i < inputs.length; i++) {
+            final byte[] data = bytes(inputs[i]);
+            assertCodes(Base16.UPPER, data, base16[i]);
+            assertCodes(Base32.RFC4648, data, base32[i]);
+            assertCodes(Base32.HEX, data, base32Hex[i]);
+        }
+
+        Assert.assertEquals("deadbeef", ascii(Base16.LOWER.encode(new byte[] { (byte) 0xde, (byte) 0xad,
+                (byte) 0xbe, (byte) 0xef })));
+        Assert.assertArrayEquals(Base16.UPPER.decode(bytes("DEADBEEF")), Base16.LOWER.decode(bytes("deadbeef")));
+        Assert.assertArrayEquals(bytes("foobar"), Base32.RFC4648.decode(bytes("mzxw6ytboi======")));
+
+        assertCodes(Ascii85.INSTANCE, bytes("Man "), "9jqo^");
+        assertCodes(Ascii85.INSTANCE, bytes("Man a"), "9jqo^@/");
+        assertCodes(Ascii85.INSTANCE, new byte[4], "!!!!!");
+        assertCodes(Ascii85.INSTANCE, new byte[] { -1, -1, -1, -1 }, "s8W-!");
+    }
+
+    @Test
+    public void tInvalid() throws Exception {
+
+        final byte[] dst = new byte[64];
+
+        Assert.assertEquals(-1, decode(Base16.UPPER, "ABC", dst));
+        Assert.assertEquals(-1, decode(Base16.UPPER, "AG", dst));
+        Assert.assertEquals(-1, decode(Base32.RFC4648, "MZXW6YT", dst));
+        Assert.assertEquals(-1, decode(Base32.RFC4648, "MZXW6Y1B", dst));
+        Assert.assertEquals(-1, decode(Base32.RFC4648, "MZXW6YQ=MZXW6YTB", dst));
+        Assert.assertEquals(-1, decode(Base32.RFC4648, "MZX=====", dst));
+        Assert.assertEquals(-1, decode(Base32.RFC4648, "MZ=W6===", dst));
+        Assert.assertEquals(-1, decode(Base32.HEX, "MZXW6YTB", dst));
+        Assert.assertEquals(-1, decode(Ascii85.INSTANCE, "9jqo^9", dst));
+        Assert.assertEquals(-1, decode(Ascii85.INSTANCE, "9jqov", dst));
+        // above 2^32 - 1
+        Assert.assertEquals(-1, decode(Ascii85.INSTANCE, "s8W-\"", dst));
+
+        try {
+            Base32.RFC4648.decode(bytes("MZXW6YT"));
+            Assert.fail();
+        } catch (final IllegalArgumentException e) {
+            // expected
+        }
+    }
+
+    @Test
+    public void tBuffers() {
+
+        for (final Codec codec : CODECS) {
+            for (final int length : new int[] { 0, 1, 7, 100, 10000 }) {
+                final byte[] data = new byte[length];
+                random.nextBytes(data);
+                final byte[] encoded = codec.encode(data);
+
+                for (final boolean direct : new boolean[] { false, true }) {
+                    final ByteBuffer src = allocate(length + 2, direct);
+                    src.put(data).flip();
+                    final ByteBuffer dst = allocate(codec.encodedLength(length) + 3, direct);
+                    dst.position(1);
+                    Assert.assertEquals(encoded.length, codec.encode(src, dst));
+                    Assert.assertFalse(src.hasRemaining());
+                    Assert.assertEquals(1 + encoded.length, dst.position());
+
+                    dst.flip().position(1);
+                    final ByteBuffer decoded = allocate(codec.maxDecodedLength(dst.remaining()), direct);
+                    Assert.assertEquals(length, codec.decode(dst, decoded));
+                    Assert.assertArrayEquals(data, toArray(decoded));
+                }
+            }
+        }
+    }
+
+    @Test
+    public void tInvalidBuffer() throws Exception {
+
+        final byte[] encoded = Base32.RFC4648.encode(new byte[10000]);
+        encoded[8000] = '1';
+
+        final ByteBuffer src = ByteBuffer.allocateDirect(encoded.length);
+        src.put(encoded).flip();
+        final ByteBuffer dst = ByteBuffer.allocateDirect(10000);
+        Assert.assertEquals(-1, Base32.RFC4648.decode(src, dst));
+        Assert.assertEquals(0, src.position());
+        Assert.assertEquals(0, dst.position());
+    }
+
+    @Test
+    public void tStreams() throws IOException {
+
+        for (final Codec codec : CODECS) {
+            for (final int length : new int[] { 0, 1, 7, 100, 10000, 50001 }) {
+                final byte[] data = new byte[length];
+                random.nextBytes(data);
+
+                final ByteArrayOutputStream text = new ByteArrayOutputStream();
+                final CodecOutputStream out = codec.encodingStream(text);
+                for (int i = 0; i < length;) {
+                    final int n = Math.min(length - i, random.nextInt(5000));
+                    if (n == 0) {
+                        out.write(data[i++]);
+                    } else {
+                        out.write(data, i, n);
+                        i += n;
+                    }
+                }
+                out.close();
+                Assert.assertArrayEquals(codec.encode(data), text.toByteArray());
+
+                final InputStream in = codec.decodingStream(new ByteArrayInputStream(text.toByteArray()));
+                final ByteArrayOutputStream decoded = new ByteArrayOutputStream();
+                final byte[] b = new byte[777];
+                for (int n; (n = in.read(b, 0, b.length)) > 0;) {
+                    decoded.write(b, 0, n);
+                }
+                Assert.assertArrayEquals(data, decoded.toByteArray());
+            }
+        }
+    }
+
+    @Test
+    public void tInvalidStream() throws Exception {
+
+        // padding in the middle
+        final byte[] text = bytes("MY======MZXW6YTB");
+        final InputStream in = Base32.RFC4648.decodingStream(new ByteArrayInputStream(text));
+        try {
+            while (in.read() >= 0) {
+                // consume
+            }
+            Assert.fail();
+        } catch (final IOException e) {
+            // expected
+        }
+    }
+
+    @Test
+    public void tStreamErrorOffsets() throws Exception {
+
+        assertStreamError(Base64Codec.RFC4648, "Zm9vYg", 6);
+        assertStreamError(Base64Codec.RFC4648, "Zm9vYg=", 7);
+        assertStreamError(Base64Codec.RFC4648, "Zm9v*g==", 4);
+        assertStreamError(Base64Codec.RFC4648, "Zg==Zm9v", 4);
+        assertStreamError(Base64Codec.MIME, "Zm9v\r\nYg=", 9);
+        assertStreamError(Base64Codec.MIME, "Zm9v\r\n\r\nY*==", 9);
+        assertStreamError(Base32.RFC4648, "MY======MZXW6YTB", 8);
+        assertStreamError(Base16.UPPER, "666F6G", 4);
+
+        // past the first chunk, skipped chars counted
+        final StringBuilder sb = new StringBuilder();
+        while (sb.length() < 10000) {
+            sb.append("Zm9vYmFy\r\n");
+        }
+        final int at = sb.length() + 2;
+        sb.append("Zm*v");
+        assertStreamError(Base64Codec.MIME, sb.toString(), at);
+    }
+
+    private static void assertStreamError(final Codec codec, final String text, final long offset) throws Exception {
+
+        final InputStream in = codec.decodingStream(new ByteArrayInputStream(bytes(text)));
+        try {
+            while (in.read() >= 0) {
+                // consume
+            }
+            Assert.fail(text);
+        } catch (final IOException e) {
+            Assert.assertTrue(e.getMessage(), e.getMessage().contains(" at offset " + offset));
+        }
+    }
+
+    private static void assertCodes(final Codec codec, final byte[] data, final String text) throws Exception {
+
+        Assert.assertEquals(text, ascii(codec.encode(data)));
+        Assert.assertEquals(text.length(), codec.encodedLength(data.length));
+        Assert.assertArrayEquals(data, codec.decode(bytes(text)));
+    }
+
+    private static int decode(final Codec codec, final String text, final byte[] dst) throws Exception {
+
+        final byte[] src = bytes(text);
+        return codec.decode(src, 0, src.length, dst, 0);
+    }
+
+    private static ByteBuffer allocate(final int capacity, final boolean direct) {
+
+        return (direct ? ByteBuffer.allocateDirect(capacity) : ByteBuffer.allocate(capacity));
+    }
+
+    private static byte[] toArray(final ByteBuffer buffer) {
+
+        buffer.flip();
+        final byte[] b = new byte[buffer.remaining()];
+        buffer.get(b);
+        return b;
+    }
+
+    private static byte[] bytes(final String s) throws Exception {
+
+        return s.getBytes("US-ASCII");
+    }
+
+    private static String ascii(final byte[] b) throws Exception {
+
+        return new String(b, "US-ASCII");
+    }
+
+}
@@ -0,0 +1,103 @@
+/* 
+ * JINAH Project - Java Is Not A Hammer
+ * http://obadaro.com/jinah
+ * 
+ * Copyright (C) 2010-2012 Roberto Badaro 
+ * and individual contributors by the @authors tag.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.obadaro.jinah.commons.util.time;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.obadaro.jinah.common.util.time.BusinessCalendar;
+import com.obadaro.jinah.common.util.time.EpochDays;
+import com.obadaro.jinah.common.util.time.Holidays;
+
+/**
+ * 
+ * @author Roberto Badaro
+ */
+public class BusinessCalendarTest {
+
+    private final BusinessCalendar calendar = new BusinessCalendar(Holidays.BRAZIL, 2000, 2040);
+
+    @Test
+    public void tEaster() {
+        Assert.assertTrue(EpochDays.of(2012, 4, 8) == Holidays.easter(2012));
+        Assert.assertTrue(EpochDays.of(2013, 3, 31) == Holidays.easter(2013));
+        Assert.assertTrue(EpochDays.of(2024, 3, 31) == Holidays.easter(2024));
+    }
+
+    @Test
+    public void tMoveableFeasts() {
+        // carnival 2013: feb 11 and 12; corpus christi: may 30
+        Assert.assertFalse(calendar.isBusinessDay(EpochDays.of(2013, 2, 11)));
+        Assert.assertFalse(calendar.isBusinessDay(EpochDays.of(2013, 2, 12)));
+        Assert.assertTrue(calendar.isBusinessDay(EpochDays.of(2013, 2, 13)));
+        Assert.assertFalse(calendar.isBusinessDay(EpochDays.of(2013, 5, 30)));
+
+        Assert.assertTrue(calendar.isBusinessDay(EpochDays.of(2023, 11, 20)));
+        Assert.assertFalse(calendar.isBusinessDay(EpochDays.of(2024, 11, 20)));
+    }
+
+    @Test
+    public void tAddBusinessDays() {
+        final int friday = EpochDays.of(2013, 2, 8);
+
+        Assert.assertTrue(EpochDays.of(2013, 2, 13) == calendar.addBusinessDays(friday, 1));
+        Assert.assertTrue(EpochDays.of(2013, 2, 7) == calendar.addBusinessDays(friday, -1));
+        Assert.assertTrue(friday == calendar.addBusinessDays(EpochDays.of(2013, 2, 13), -1));
+        Assert.assertTrue(friday == calendar.addBusinessDays(friday, 0));
+    }
+
+    @Test
+    public void tAgainstDayByDay() {
+        final int start = EpochDays.of(2001, 1, 1);
+        final int end = EpochDays.of(2039, 12, 31);
+
+        for (int from = start; from < end; from += 97) {
+            int count = 0;
+            int day = from;
+            for (int n = 1; n <= 800 && day < end - 10; n++) {
+                do {
+                    day++;
+                } while (!calendar.isBusinessDay(day));
+                count++;
+
+                Assert.assertTrue(day == calendar.addBusinessDays(from, n));
+                Assert.assertTrue(calendar.businessDaysBetween(from + 1, day + 1) == count);
+                Assert.assertTrue(calendar.businessDaysBetween(day + 1, from + 1) == -count);
+                if (calendar.isBusinessDay(from)) {
+                    Assert.assertTrue(from == calendar.addBusinessDays(day, -n));
+                }
+            }
+        }
+    }
+
+    @Test
+    public void tParse() {
+        final Holidays holidays = Holidays.parse("# test\n03-19 2010-2011\n2012-06-20\n\neaster+1\n");
+
+        Assert.assertTrue(holidays.of(2010).length == 2);
+        Assert.assertTrue(holidays.of(2012).length == 2);
+        Assert.assertTrue(holidays.of(2013).length == 1);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void tParseInvalid() {
+        Holidays.parse("02-30\n");
+    }
+}
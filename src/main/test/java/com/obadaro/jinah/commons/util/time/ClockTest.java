@@ -0,0 +1,83 @@
+/* 
+ * JINAH Project - Java Is Not A Hammer
+ * http://obadaro.com/jinah
+ * 
+ * Copyright (C) 2010-2012 Roberto Badaro 
+ * and individual contributors by the @authors tag.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.obadaro.jinah.commons.util.time;
+
+import java.util.TimeZone;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.obadaro.jinah.common.util.Dates;
+import com.obadaro.jinah.common.util.time.Clock;
+import com.obadaro.jinah.common.util.time.EpochDays;
+import com.obadaro.jinah.common.util.time.ZoneOffsets;
+
+/**
+ * 
+ * @author Roberto Badaro
+ */
+public class ClockTest {
+
+    @Test
+    public void tFake() {
+        final Clock.Fake clock = Clock.fake(0);
+        final ZoneOffsets saoPaulo = ZoneOffsets.of(TimeZone.getTimeZone("America/Sao_Paulo"));
+
+        clock.set(EpochDays.of(2012, 3, 1) * Dates.ONE_DAY_MILLIS);
+        Assert.assertTrue(EpochDays.of(2012, 3, 1) == clock.today(ZoneOffsets.of(TimeZone.getTimeZone("UTC"))));
+        Assert.assertTrue(EpochDays.of(2012, 2, 29) == clock.today(saoPaulo));
+        Assert.assertTrue(EpochDays.of(2012, 2, 29) * Dates.ONE_DAY_MILLIS + 3 * Dates.ONE_HOUR == clock
+            .startOfToday(saoPaulo));
+
+        clock.advance(3 * Dates.ONE_HOUR);
+        Assert.assertTrue(EpochDays.of(2012, 3, 1) == clock.today(saoPaulo));
+        Assert.assertTrue(clock.now().getTime() == clock.millis());
+    }
+
+    @Test
+    public void tDefault() {
+        final Clock.Fake clock = Clock.fake(1000);
+        Clock.setDefault(clock);
+        try {
+            Assert.assertTrue(Clock.getDefault().millis() == 1000);
+        } finally {
+            Clock.setDefault(null);
+        }
+        Assert.assertTrue(Clock.getDefault() == Clock.system());
+    }
+
+    @Test
+    public void tCached() throws InterruptedException {
+        final TimeZone tz = TimeZone.getTimeZone("Asia/Tokyo");
+        final Clock.Cached clock = Clock.cached(1, tz);
+        try {
+            final long before = System.currentTimeMillis();
+            Thread.sleep(20);
+            final long millis = clock.millis();
+            Assert.assertTrue(millis >= before && millis <= System.currentTimeMillis());
+
+            final ZoneOffsets tokyo = ZoneOffsets.of(tz);
+            Assert.assertTrue(clock.today(tokyo) == tokyo.epochDay(clock.millis()));
+            Assert.assertTrue(clock.today() == EpochDays.ofInstant(clock.millis(), TimeZone.getDefault()));
+        } finally {
+            clock.stop();
+        }
+    }
+}
@@ -0,0 +1,79 @@
+/* 
+ * JINAH Project - Java Is Not A Hammer
+ * http://obadaro.com/jinah
+ * 
+ * Copyright (C) 2010-2012 Roberto Badaro 
+ * and individual contributors by the @authors tag.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.obadaro.jinah.commons.util.time;
+
+import java.util.Calendar;
+import java.util.Date;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.obadaro.jinah.common.util.Dates;
+import com.obadaro.jinah.common.util.time.DateIntList;
+import com.obadaro.jinah.common.util.time.EpochDays;
+import com.obadaro.jinah.common.util.time.FixedDatePattern;
+
+/**
+ * 
+ * @author Roberto Badaro
+ */
+public class DateIntListTest {
+
+    @Test
+    public void tEpochDays() {
+        Assert.assertTrue(0 == EpochDays.of(1970, 1, 1));
+        Assert.assertTrue(20120229 == EpochDays.toYyyymmdd(EpochDays.of(2012, 2, 29)));
+        Assert.assertTrue(EpochDays.of(2012, 3, 1) - EpochDays.of(2012, 2, 28) == 2);
+
+        for (int day = EpochDays.of(1600, 1, 1); day < EpochDays.of(2400, 1, 1); day++) {
+            Assert.assertTrue(day == EpochDays.fromYyyymmdd(EpochDays.toYyyymmdd(day)));
+        }
+    }
+
+    @Test
+    public void tDateConversion() {
+        final Calendar c = Dates.calendar(true);
+        final Date today = c.getTime();
+        final int epochDay = EpochDays.ofDate(today);
+
+        Assert.assertTrue(today.equals(EpochDays.toDate(epochDay)));
+        Assert.assertTrue(Dates.getFormatter(Dates.dd_MM_yyyy).format(today).equals(
+            EpochDays.format(epochDay, FixedDatePattern.compile(Dates.dd_MM_yyyy))));
+    }
+
+    @Test
+    public void tSortAndSearch() {
+        final DateIntList list = new DateIntList(2);
+        for (int i = 0; i < 100; i++) {
+            list.add(EpochDays.of(2012, 1, 1) + (i * 37) % 100);
+        }
+        Assert.assertFalse(list.isSorted());
+        Assert.assertTrue(10 == list.countInRange(EpochDays.of(2012, 1, 1), EpochDays.of(2012, 1, 10)));
+
+        list.sort();
+        Assert.assertTrue(list.isSorted());
+        Assert.assertTrue(100 == list.size());
+        Assert.assertTrue(10 == list.countInRange(EpochDays.of(2012, 1, 1), EpochDays.of(2012, 1, 10)));
+        Assert.assertTrue(0 == list.countInRange(EpochDays.of(2013, 1, 1), EpochDays.of(2014, 1, 1)));
+        Assert.assertTrue(31 == list.binarySearch(EpochDays.of(2012, 2, 1)));
+        Assert.assertTrue(list.binarySearch(EpochDays.of(2013, 2, 1)) < 0);
+        Assert.assertTrue("01/02/2012".equals(list.format(31, FixedDatePattern.compile(Dates.dd_MM_yyyy))));
+    }
+}
@@ -0,0 +1,99 @@
+/* 
+ * JINAH Project - Java Is Not A Hammer
+ * http://obadaro.com/jinah
+ * 
+ * Copyright (C) 2010-2012 Roberto Badaro 
+ * and individual contributors by the @authors tag.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.obadaro.jinah.commons.util.time;
+
+import java.util.Date;
+import java.util.Random;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.obadaro.jinah.common.util.Dates;
+import com.obadaro.jinah.common.util.time.IntervalIndex;
+
+/**
+ * 
+ * @author Roberto Badaro
+ */
+public class IntervalIndexTest {
+
+    @Test
+    public void tAgainstLinearScan() {
+        final Random random = new Random(42);
+
+        for (final int n : new int[] { 0, 1, 2, 3, 7, 16, 17, 100, 1000, 5000 }) {
+            final long[] starts = new long[n];
+            final long[] ends = new long[n];
+            for (int i = 0; i < n; i++) {
+                starts[i] = random.nextInt(100000);
+                ends[i] = starts[i] + (random.nextInt(10) == 0 ? random.nextInt(50000) : random.nextInt(500));
+            }
+            final IntervalIndex index = IntervalIndex.of(starts, ends);
+
+            for (int q = 0; q < 200; q++) {
+                final long from = random.nextInt(110000) - 5000;
+                final long to = from + (q % 2 == 0 ? 0 : random.nextInt(1000));
+
+                int expected = 0;
+                for (int i = 0; i < n; i++) {
+                    if (starts[i] <= to && from <= ends[i]) {
+                        expected++;
+                    }
+                }
+
+                final int[] found = index.overlapping(from, to);
+                Assert.assertTrue(expected == found.length);
+                for (int i = 0; i < found.length; i++) {
+                    Assert.assertTrue(starts[found[i]] <= to && from <= ends[found[i]]);
+                    Assert.assertTrue(i == 0 || starts[found[i - 1]] <= starts[found[i]]);
+                }
+                Assert.assertTrue(expected == index.overlapping(from, to, new int[1]));
+            }
+        }
+    }
+
+    @Test
+    public void tInverted() {
+        final IntervalIndex index = IntervalIndex.of(new long[] { 10, 3 }, new long[] { 5, 8 });
+
+        Assert.assertTrue(1 == index.size());
+        Assert.assertTrue(index.stab(7).length == 1 && index.stab(7)[0] == 1);
+        Assert.assertTrue(index.overlapping(0, 20).length == 1 && index.overlapping(0, 20)[0] == 1);
+        Assert.assertTrue(0 == index.overlapping(9, 20, null));
+
+        final IntervalIndex only = IntervalIndex.of(new long[] { 10 }, new long[] { 5 });
+        Assert.assertTrue(0 == only.stab(7).length);
+        Assert.assertTrue(0 == only.overlapping(0, 20).length);
+    }
+
+    @Test
+    public void tDays() {
+        final Date a = new Date(1326196800000L);
+        final Date b = Dates.addDays(a, 3);
+        final IntervalIndex index = IntervalIndex.ofDays(new Date[] { a, b }, new Date[] { b, Dates.addDays(b, 1) });
+
+        for (long t = a.getTime() - Dates.ONE_DAY_MILLIS * 2; t < b.getTime() + Dates.ONE_DAY_MILLIS * 3; t += Dates.ONE_HOUR / 2) {
+            final Date date = new Date(t);
+            final int expected = (Dates.isBetween(a, b, date, true) ? 1 : 0)
+                    + (Dates.isBetween(b, Dates.addDays(b, 1), date, true) ? 1 : 0);
+            Assert.assertTrue(expected == index.count(t));
+        }
+    }
+}
@@ -0,0 +1,120 @@
+/* 
+ * JINAH Project - Java Is Not A Hammer
+ * http://obadaro.com/jinah
+ * 
+ * Copyright (C) 2010-2012 Roberto Badaro 
+ * and individual contributors by the @authors tag.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.obadaro.jinah.commons.util.time;
+
+import java.util.Calendar;
+import java.util.Date;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.obadaro.jinah.common.util.Dates;
+import com.obadaro.jinah.common.util.time.BusinessCalendar;
+import com.obadaro.jinah.common.util.time.EpochDays;
+import com.obadaro.jinah.common.util.time.Holidays;
+import com.obadaro.jinah.common.util.time.Schedule;
+
+/**
+ * 
+ * @author Roberto Badaro
+ */
+public class ScheduleTest {
+
+    private final BusinessCalendar calendar = new BusinessCalendar(Holidays.BRAZIL, 2000, 2040);
+
+    @Test
+    public void tMonthly() {
+        final Schedule s = Schedule.monthly(EpochDays.of(2012, 1, 31), 5);
+
+        Assert.assertTrue(5 == s.size());
+        Assert.assertTrue(20120131 == EpochDays.toYyyymmdd(s.occurrence(0)));
+        Assert.assertTrue(20120229 == EpochDays.toYyyymmdd(s.occurrence(1)));
+        Assert.assertTrue(20120331 == EpochDays.toYyyymmdd(s.occurrence(2)));
+        Assert.assertTrue(20120430 == EpochDays.toYyyymmdd(s.occurrence(3)));
+
+        // same as Calendar.add from the start date
+        final Calendar c = Dates.calendar(true);
+        c.set(2012, Calendar.JANUARY, 31);
+        final Date start = c.getTime();
+        for (int i = 0; i < s.size(); i++) {
+            Assert.assertEquals(Dates.addMonths(start, i), s.getDate(i));
+        }
+    }
+
+    @Test
+    public void tEndOfMonth() {
+        final Schedule s = Schedule.monthly(EpochDays.of(2012, 2, 29), 3).endOfMonth();
+
+        Assert.assertTrue(20120331 == EpochDays.toYyyymmdd(s.occurrence(1)));
+        Assert.assertTrue(20120430 == EpochDays.toYyyymmdd(s.occurrence(2)));
+
+        final Schedule yearly = Schedule.yearly(EpochDays.of(2012, 2, 29), 3);
+        Assert.assertTrue(20130228 == EpochDays.toYyyymmdd(yearly.occurrence(1)));
+        Assert.assertTrue(20140228 == EpochDays.toYyyymmdd(yearly.occurrence(2)));
+    }
+
+    @Test
+    public void tAdjusted() {
+        // 2013-03-30 is saturday, 2013-03-29 good friday
+        final Schedule s = Schedule.monthly(EpochDays.of(2013, 1, 30), 3);
+
+        Assert.assertTrue(20130401 == EpochDays.toYyyymmdd(s.adjusted(calendar, Schedule.Adjustment.FOLLOWING)
+            .occurrence(2)));
+        Assert.assertTrue(20130328 == EpochDays.toYyyymmdd(s.adjusted(calendar,
+            Schedule.Adjustment.MODIFIED_FOLLOWING).occurrence(2)));
+        Assert.assertTrue(20130328 == EpochDays.toYyyymmdd(s.adjusted(calendar, Schedule.Adjustment.PRECEDING)
+            .occurrence(2)));
+
+        // 2013-06-01 is saturday
+        final Schedule june = Schedule.monthly(EpochDays.of(2013, 5, 1), 2);
+        Assert.assertTrue(20130603 == EpochDays.toYyyymmdd(june.adjusted(calendar,
+            Schedule.Adjustment.MODIFIED_PRECEDING).occurrence(1)));
+    }
+
+    @Test
+    public void tRandomAccess() {
+        final Schedule s = new Schedule(EpochDays.of(2000, 1, 3), Schedule.Frequency.WEEKLY, 2, 1000).adjusted(
+            calendar, Schedule.Adjustment.MODIFIED_FOLLOWING);
+
+        final Schedule.Occurrences it = s.iterator();
+        int previous = Integer.MIN_VALUE;
+        for (int i = 0; it.hasNext(); i++) {
+            final int day = it.next();
+            Assert.assertTrue(day == s.occurrence(i));
+            Assert.assertTrue(calendar.isBusinessDay(day));
+            Assert.assertTrue(day >= previous);
+            previous = day;
+        }
+
+        for (int day = s.occurrence(0) - 3; day < s.occurrence(999) + 3; day += 5) {
+            int expected = 0;
+            while (expected < s.size() && s.occurrence(expected) < day) {
+                expected++;
+            }
+            Assert.assertTrue(expected == s.indexOnOrAfter(day));
+        }
+        Assert.assertTrue(s.toList().size() == 1000);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void tBeyondYear9999() {
+        Schedule.yearly(EpochDays.of(2012, 1, 1), 9000);
+    }
+}
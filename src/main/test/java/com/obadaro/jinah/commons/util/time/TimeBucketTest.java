@@ -0,0 +1,88 @@
+/* 
+ * JINAH Project - Java Is Not A Hammer
+ * http://obadaro.com/jinah
+ * 
+ * Copyright (C) 2010-2012 Roberto Badaro 
+ * and individual contributors by the @authors tag.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.obadaro.jinah.commons.util.time;
+
+import java.util.Calendar;
+import java.util.Date;
+import java.util.Locale;
+import java.util.TimeZone;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.obadaro.jinah.common.util.Dates;
+import com.obadaro.jinah.common.util.time.TimeBucket;
+import com.obadaro.jinah.common.util.time.ZoneOffsets;
+
+/**
+ * 
+ * @author Roberto Badaro
+ */
+public class TimeBucketTest {
+
+    private static final String[] ZONES = { "America/Sao_Paulo", "Europe/London", "Asia/Kolkata", "UTC" };
+
+    @Test
+    public void tOffsets() {
+        for (final String id : ZONES) {
+            final TimeZone tz = TimeZone.getTimeZone(id);
+            final ZoneOffsets zone = ZoneOffsets.of(tz);
+            for (long t = -1500000000000L; t < 2500000000000L; t += 3 * Dates.ONE_HOUR + 17) {
+                Assert.assertTrue(id, tz.getOffset(t) == zone.getOffset(t));
+            }
+        }
+    }
+
+    @Test
+    public void tBuckets() {
+        for (final String id : ZONES) {
+            final TimeZone tz = TimeZone.getTimeZone(id);
+            final long[] millis = new long[50000];
+            for (int i = 0; i < millis.length; i++) {
+                millis[i] = 946684800000L + i * (47 * Dates.ONE_MINUTE + 13);
+            }
+
+            final long[] days = new long[millis.length];
+            final long[] months = new long[millis.length];
+            final long[] years = new long[millis.length];
+            final long[] hours = new long[millis.length];
+            TimeBucket.DAY.truncate(millis, tz, days);
+            TimeBucket.MONTH.truncate(millis, tz, months);
+            TimeBucket.YEAR.truncate(millis, tz, years);
+            TimeBucket.HOUR.truncate(millis, tz, hours);
+
+            final Calendar c = Calendar.getInstance(tz, Locale.US);
+            for (int i = 0; i < millis.length; i++) {
+                final Date date = new Date(millis[i]);
+                Assert.assertTrue(id, days[i] == Dates.calendar(date, true, tz, Locale.US).getTimeInMillis());
+
+                c.setTime(date);
+                Dates.clearTime(c).set(Calendar.DAY_OF_MONTH, 1);
+                Assert.assertTrue(id, months[i] == c.getTimeInMillis());
+                c.set(Calendar.MONTH, Calendar.JANUARY);
+                Assert.assertTrue(id, years[i] == c.getTimeInMillis());
+
+                c.setTime(date);
+                Assert.assertTrue(id, hours[i] <= millis[i] && millis[i] - hours[i] < Dates.ONE_HOUR);
+                Assert.assertTrue(id, c.get(Calendar.MINUTE) == (millis[i] - hours[i]) / Dates.ONE_MINUTE);
+            }
+        }
+    }
+}
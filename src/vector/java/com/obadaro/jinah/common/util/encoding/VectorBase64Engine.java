@@ -0,0 +1,113 @@
+/*
+ * JINAH Project - Java Is Not A Hammer
+ * http://obadaro.com/jinah
+ *
+ * Copyright (C) 2010-2012 Roberto Badaro
+ * and individual contributors by the @authors tag.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.obadaro.jinah.common.util.encoding;
+
+import java.nio.ByteOrder;
+
+/**
+ * Base64 engine built on the {@code jdk.incubator.vector} module: encoding rearranges the bytes
+ * of a whole vector at a time with a shuffle, and decoding translates and validates a whole vector
+ * of chars with lane masks. Tails, padding and invalid input go to the {@link Base64Engine#swar()
+ * swar} engine, so the output is the same.
+ * <p>
+ * Compiled apart from the rest of the library, by the {@code vector} profile on JDK 17 or later,
+ * and plugged in through {@code META-INF/services}. The vector code lives in
+ * {@link VectorKernels}, loaded only once {@link #isAvailable()} found the module: on JVMs without
+ * it, or run without {@code --add-modules jdk.incubator.vector}, the engine is skipped and the
+ * library falls back to the scalar engines.
+ * </p>
+ *
+ * @author Roberto Badaro
+ */
+public final class VectorBase64Engine extends Base64Engine {
+
+    private static final Base64Engine TAIL = Base64Engine.swar();
+
+    private static volatile Boolean available;
+
+    /**
+     * Used by {@link java.util.ServiceLoader}.
+     */
+    public VectorBase64Engine() {
+
+        // NOOP
+    }
+
+    /**
+     * Tells if the module is present, its preferred vectors hold 16 bytes or more, and lanes are
+     * laid out little-endian.
+     */
+    @Override
+    public boolean isAvailable() {
+
+        Boolean result = available;
+        if (result == null) {
+            result = Boolean.valueOf(detect());
+            available = result;
+        }
+        return result.booleanValue();
+    }
+
+    private static boolean detect() {
+
+        try {
+            Class.forName("jdk.incubator.vector.ByteVector", false, VectorBase64Engine.class.getClassLoader());
+            return ByteOrder.nativeOrder() == ByteOrder.LITTLE_ENDIAN && VectorKernels.isSupported();
+        } catch (final ClassNotFoundException e) {
+            return false;
+        } catch (final LinkageError e) {
+            return false;
+        }
+    }
+
+    @Override
+    public String getName() {
+
+        return "vector";
+    }
+
+    @Override
+    public int encode(final byte[] src, final int srcOff, final int srcLen, final byte[] dst, final int dstOff) {
+
+        Base64.checkRange(src.length, srcOff, srcLen);
+        Base64.checkRange(dst.length, dstOff, Base64.encodedLength(srcLen));
+
+        final int n = VectorKernels.encode(src, srcOff, srcOff + srcLen, dst, dstOff);
+        final int written = n / 3 * 4;
+        return written + TAIL.encode(src, srcOff + n, srcLen - n, dst, dstOff + written);
+    }
+
+    @Override
+    public int decode(final byte[] src, final int srcOff, final int srcLen, final byte[] dst, final int dstOff) {
+
+        Base64.checkRange(src.length, srcOff, srcLen);
+        final int length = decodedLength(src, srcOff, srcLen);
+        if (length < 0) {
+            return -1;
+        }
+        Base64.checkRange(dst.length, dstOff, length);
+
+        final int n = VectorKernels.decode(src, srcOff, srcOff + srcLen, dst, dstOff, dstOff + length);
+        final int written = n / 4 * 3;
+        final int m = TAIL.decode(src, srcOff + n, srcLen - n, dst, dstOff + written);
+        return (m < 0 ? -1 : written + m);
+    }
+
+}
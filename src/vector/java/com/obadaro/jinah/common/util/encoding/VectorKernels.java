@@ -0,0 +1,152 @@
+/*
+ * JINAH Project - Java Is Not A Hammer
+ * http://obadaro.com/jinah
+ *
+ * Copyright (C) 2010-2012 Roberto Badaro
+ * and individual contributors by the @authors tag.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.obadaro.jinah.common.util.encoding;
+
+import jdk.incubator.vector.ByteVector;
+import jdk.incubator.vector.IntVector;
+import jdk.incubator.vector.VectorMask;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorShuffle;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * The vector loops of {@link VectorBase64Engine}, on the preferred species of the platform. Each
+ * step handles a whole vector of {@code L} chars - {@code 3L/4} bytes - and leaves the rest to the
+ * caller.
+ *
+ * @author Roberto Badaro
+ */
+final class VectorKernels {
+
+    private static final VectorSpecies<Byte> B = ByteVector.SPECIES_PREFERRED;
+    private static final int L = B.length();
+
+    /**
+     * Spreads each 3-byte group over a 4-byte lane, as {@code b2 b1 b0 b0}: read as a
+     * little-endian int, its low 24 bits are the group.
+     */
+    private static final VectorShuffle<Byte> SPREAD = shuffle(true);
+
+    /**
+     * Packs the first 3 bytes of each 4-byte lane at the start of the vector.
+     */
+    private static final VectorShuffle<Byte> PACK = shuffle(false);
+
+    private VectorKernels() {
+
+        // no instances
+    }
+
+    static boolean isSupported() {
+
+        return L >= 16;
+    }
+
+    /**
+     * Encodes whole vectors of {@code src[sp, end)} into {@code dst} from {@code dp}.
+     *
+     * @return Number of bytes encoded, a multiple of {@code 3L/4}.
+     */
+    static int encode(final byte[] src, final int srcOff, final int end, final byte[] dst, int dp) {
+
+        int sp = srcOff;
+        for (; end - sp >= L; sp += L / 4 * 3, dp += L) {
+            final IntVector groups = ByteVector.fromArray(B, src, sp).rearrange(SPREAD).reinterpretAsInts().and(0xffffff);
+
+            // the 4 sextets of each group, first one in the lowest byte
+            final ByteVector sextets = groups.lanewise(VectorOperators.LSHR, 18)
+                .or(groups.lanewise(VectorOperators.LSHR, 4).and(0x3f00))
+                .or(groups.lanewise(VectorOperators.LSHL, 10).and(0x3f0000))
+                .or(groups.lanewise(VectorOperators.LSHL, 24).and(0x3f000000))
+                .reinterpretAsBytes();
+
+            final ByteVector offsets = ByteVector.broadcast(B, (byte) 'A')
+                .blend((byte) ('a' - 26), sextets.compare(VectorOperators.GE, (byte) 26))
+                .blend((byte) ('0' - 52), sextets.compare(VectorOperators.GE, (byte) 52))
+                .blend((byte) ('+' - 62), sextets.compare(VectorOperators.EQ, (byte) 62))
+                .blend((byte) ('/' - 63), sextets.compare(VectorOperators.EQ, (byte) 63));
+            sextets.add(offsets).intoArray(dst, dp);
+        }
+        return sp - srcOff;
+    }
+
+    /**
+     * Decodes whole vectors of {@code src[sp, end)} into {@code dst} from {@code dp}, up to the
+     * first vector with a char out of the alphabet - padding included. Each step stores a whole
+     * vector, so it stops {@code L} bytes before {@code dstEnd}.
+     *
+     * @return Number of chars decoded, a multiple of {@code L}.
+     */
+    static int decode(final byte[] src, final int srcOff, final int end, final byte[] dst, int dp, final int dstEnd) {
+
+        int sp = srcOff;
+        for (; end - sp >= L && dstEnd - dp >= L; sp += L, dp += L / 4 * 3) {
+            final ByteVector chars = ByteVector.fromArray(B, src, sp);
+            final VectorMask<Byte> upper = chars.compare(VectorOperators.GE, (byte) 'A')
+                .and(chars.compare(VectorOperators.LE, (byte) 'Z'));
+            final VectorMask<Byte> lower = chars.compare(VectorOperators.GE, (byte) 'a')
+                .and(chars.compare(VectorOperators.LE, (byte) 'z'));
+            final VectorMask<Byte> digit = chars.compare(VectorOperators.GE, (byte) '0')
+                .and(chars.compare(VectorOperators.LE, (byte) '9'));
+            final VectorMask<Byte> plus = chars.compare(VectorOperators.EQ, (byte) '+');
+            final VectorMask<Byte> slash = chars.compare(VectorOperators.EQ, (byte) '/');
+            if (!upper.or(lower).or(digit).or(plus).or(slash).allTrue()) {
+                break;
+            }
+
+            final ByteVector offsets = ByteVector.broadcast(B, (byte) -'A')
+                .blend((byte) (26 - 'a'), lower)
+                .blend((byte) (52 - '0'), digit)
+                .blend((byte) (62 - '+'), plus)
+                .blend((byte) (63 - '/'), slash);
+            final IntVector sextets = chars.add(offsets).reinterpretAsInts();
+
+            // the 24 bits of each quantum, first sextet highest
+            final IntVector bits = sextets.lanewise(VectorOperators.LSHL, 18).and(0xfc0000)
+                .or(sextets.lanewise(VectorOperators.LSHL, 4).and(0x3f000))
+                .or(sextets.lanewise(VectorOperators.LSHR, 10).and(0xfc0))
+                .or(sextets.lanewise(VectorOperators.LSHR, 24));
+
+            // bytes of the quantum in order, in the low 3 bytes of the lane
+            bits.lanewise(VectorOperators.LSHR, 16)
+                .or(bits.and(0xff00))
+                .or(bits.and(0xff).lanewise(VectorOperators.LSHL, 16))
+                .reinterpretAsBytes()
+                .rearrange(PACK)
+                .intoArray(dst, dp);
+        }
+        return sp - srcOff;
+    }
+
+    private static VectorShuffle<Byte> shuffle(final boolean spread) {
+
+        final int[] order = new int[L];
+        for (int i = 0; i < L; i++) {
+            if (spread) {
+                final int lane = i % 4;
+                order[i] = i / 4 * 3 + (lane == 3 ? 0 : 2 - lane);
+            } else {
+                order[i] = (i < L / 4 * 3 ? i / 3 * 4 + i % 3 : 0);
+            }
+        }
+        return VectorShuffle.fromArray(B, order, 0);
+    }
+
+}